@@ -10,6 +10,12 @@ gfsh start locator \
   --hostname-for-clients=$GEMFIRE_HOST \
   --J=-Xmx512m
 
+# Keep PDX values serialized on the server: OQL reads individual fields of
+# SensorPrediction without the domain class on the server classpath
+echo "Configuring PDX..."
+gfsh -e "connect --locator=localhost[10334]" \
+     -e "configure pdx --read-serialized=true" || true
+
 echo "Starting GemFire server..."
 gfsh start server \
   --name=server1 \
@@ -39,7 +45,7 @@ echo "GemFire cluster is ready for Titan Manufacturing."
 echo "  Locator:    $GEMFIRE_HOST:10334"
 echo "  Server:     $GEMFIRE_HOST:40404"
 echo "  Regions:    PmmlModels, SensorPredictions, EquipmentState"
-echo "  Functions:  PmmlScoringFunction"
+echo "  Functions:  PmmlScoringFunction, PmmlBatchScoringFunction, ClearPredictionsFunction"
 
 # Keep container running and tail logs
 tail -f /data/locator1/locator1.log /data/server1/server1.log
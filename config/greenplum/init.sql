@@ -969,7 +969,10 @@ INSERT INTO equipment_types VALUES
 ('EDM', 'Electrical Discharge Machine', 'Machining', 12, 60),
 ('GRIND', 'Precision Grinding Machine', 'Finishing', 15, 90);
 
--- Sensor readings table (time-series data)
+-- Sensor readings table (time-series data), one partition per UTC day.
+-- Partitions are created ahead of time and dropped for retention by
+-- sensor_storage_maintenance(); the default partition only catches readings
+-- outside every daily range and is drained when that day's partition appears.
 CREATE TABLE sensor_readings (
     reading_id BIGSERIAL,
     time TIMESTAMPTZ NOT NULL DEFAULT NOW(),
@@ -978,14 +981,193 @@ CREATE TABLE sensor_readings (
     value DOUBLE PRECISION NOT NULL,
     unit VARCHAR(20),
     quality_flag VARCHAR(10) DEFAULT 'GOOD'
-);
+) PARTITION BY RANGE (time);
+
+CREATE TABLE sensor_readings_default PARTITION OF sensor_readings DEFAULT;
 
--- Indexes for time-series queries (replacing hypertable functionality)
-CREATE INDEX idx_sensor_time ON sensor_readings (time DESC);
-CREATE INDEX idx_sensor_equip_time ON sensor_readings (equipment_id, time DESC);
-CREATE INDEX idx_sensor_type_time ON sensor_readings (sensor_type, time DESC);
+-- Single index: time-range filters are served by partition pruning, and every
+-- per-equipment query also filters on equipment_id (and usually sensor_type)
 CREATE INDEX idx_sensor_equip_type ON sensor_readings (equipment_id, sensor_type, time DESC);
 
+-- Rollups maintained by sensor_storage_maintenance(): per equipment, sensor and bucket
+CREATE TABLE sensor_readings_1m (
+    bucket TIMESTAMPTZ NOT NULL,
+    equipment_id VARCHAR(20) NOT NULL,
+    sensor_type VARCHAR(50) NOT NULL,
+    unit VARCHAR(20),
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    avg_value DOUBLE PRECISION,
+    sample_count INT,
+    last_value DOUBLE PRECISION,
+    last_time TIMESTAMPTZ,
+    PRIMARY KEY (equipment_id, sensor_type, bucket)
+);
+
+CREATE TABLE sensor_readings_1h (
+    bucket TIMESTAMPTZ NOT NULL,
+    equipment_id VARCHAR(20) NOT NULL,
+    sensor_type VARCHAR(50) NOT NULL,
+    unit VARCHAR(20),
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    avg_value DOUBLE PRECISION,
+    sample_count INT,
+    last_value DOUBLE PRECISION,
+    last_time TIMESTAMPTZ,
+    PRIMARY KEY (equipment_id, sensor_type, bucket)
+);
+
+-- Create the daily partitions from p_days_back days ago to p_days_ahead days ahead.
+-- Readings for a new day that already landed in the default partition are moved in.
+CREATE OR REPLACE FUNCTION ensure_sensor_partitions(p_days_back INT, p_days_ahead INT)
+RETURNS INT AS $$
+DECLARE
+    v_today DATE := (NOW() AT TIME ZONE 'UTC')::date;
+    v_day DATE;
+    v_part TEXT;
+    v_from TIMESTAMPTZ;
+    v_to TIMESTAMPTZ;
+    v_created INT := 0;
+BEGIN
+    FOR v_day IN SELECT d::date FROM generate_series(v_today - p_days_back, v_today + p_days_ahead, INTERVAL '1 day') d LOOP
+        v_part := 'sensor_readings_p' || to_char(v_day, 'YYYYMMDD');
+        IF to_regclass(v_part) IS NOT NULL THEN
+            CONTINUE;
+        END IF;
+        v_from := v_day::timestamp AT TIME ZONE 'UTC';
+        v_to := (v_day + 1)::timestamp AT TIME ZONE 'UTC';
+
+        IF EXISTS (SELECT 1 FROM sensor_readings_default WHERE time >= v_from AND time < v_to) THEN
+            CREATE TEMP TABLE sensor_readings_move AS
+                SELECT * FROM sensor_readings_default WHERE time >= v_from AND time < v_to;
+            DELETE FROM sensor_readings_default WHERE time >= v_from AND time < v_to;
+            EXECUTE format('CREATE TABLE %I PARTITION OF sensor_readings FOR VALUES FROM (%L) TO (%L)',
+                           v_part, v_from, v_to);
+            INSERT INTO sensor_readings SELECT * FROM sensor_readings_move;
+            DROP TABLE sensor_readings_move;
+        ELSE
+            EXECUTE format('CREATE TABLE %I PARTITION OF sensor_readings FOR VALUES FROM (%L) TO (%L)',
+                           v_part, v_from, v_to);
+        END IF;
+        v_created := v_created + 1;
+    END LOOP;
+    RETURN v_created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drop daily partitions that end before the retention cutoff (whole-table drops, no DELETE)
+CREATE OR REPLACE FUNCTION drop_old_sensor_partitions(p_keep_days INT)
+RETURNS INT AS $$
+DECLARE
+    v_cutoff DATE := (NOW() AT TIME ZONE 'UTC')::date - p_keep_days;
+    v_part TEXT;
+    v_dropped INT := 0;
+BEGIN
+    FOR v_part IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'sensor_readings'::regclass
+          AND c.relname ~ '^sensor_readings_p[0-9]{8}$'
+    LOOP
+        IF to_date(substr(v_part, 18), 'YYYYMMDD') < v_cutoff THEN
+            EXECUTE format('DROP TABLE %I', v_part);
+            v_dropped := v_dropped + 1;
+        END IF;
+    END LOOP;
+    DELETE FROM sensor_readings_default WHERE time < v_cutoff::timestamp AT TIME ZONE 'UTC';
+    RETURN v_dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Recompute the 1-minute rollup for [p_from, p_to), truncated to whole minutes
+CREATE OR REPLACE FUNCTION rollup_sensor_readings_1m(p_from TIMESTAMPTZ, p_to TIMESTAMPTZ)
+RETURNS INT AS $$
+DECLARE
+    v_rows INT;
+BEGIN
+    p_from := date_trunc('minute', p_from);
+    p_to := date_trunc('minute', p_to);
+    DELETE FROM sensor_readings_1m WHERE bucket >= p_from AND bucket < p_to;
+    INSERT INTO sensor_readings_1m (bucket, equipment_id, sensor_type, unit, min_value, max_value,
+                                    avg_value, sample_count, last_value, last_time)
+    SELECT date_trunc('minute', time), equipment_id, sensor_type, MAX(unit),
+           MIN(value), MAX(value), AVG(value), COUNT(*),
+           (array_agg(value ORDER BY time DESC))[1], MAX(time)
+    FROM sensor_readings
+    WHERE time >= p_from AND time < p_to
+    GROUP BY 1, 2, 3;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Recompute the 1-hour rollup for [p_from, p_to) from the 1-minute rollup
+CREATE OR REPLACE FUNCTION rollup_sensor_readings_1h(p_from TIMESTAMPTZ, p_to TIMESTAMPTZ)
+RETURNS INT AS $$
+DECLARE
+    v_rows INT;
+BEGIN
+    p_from := date_trunc('hour', p_from);
+    DELETE FROM sensor_readings_1h WHERE bucket >= p_from AND bucket < p_to;
+    INSERT INTO sensor_readings_1h (bucket, equipment_id, sensor_type, unit, min_value, max_value,
+                                    avg_value, sample_count, last_value, last_time)
+    SELECT date_trunc('hour', bucket), equipment_id, sensor_type, MAX(unit),
+           MIN(min_value), MAX(max_value), SUM(avg_value * sample_count) / SUM(sample_count), SUM(sample_count),
+           (array_agg(last_value ORDER BY last_time DESC))[1], MAX(last_time)
+    FROM sensor_readings_1m
+    WHERE bucket >= p_from AND bucket < p_to
+    GROUP BY 1, 2, 3;
+    GET DIAGNOSTICS v_rows = ROW_COUNT;
+    RETURN v_rows;
+END;
+$$ LANGUAGE plpgsql;
+
+-- One maintenance pass, run every minute by the sensor agent:
+-- create upcoming partitions, roll up completed minutes (catching up from the
+-- last rolled-up minute, and re-rolling the last 3 for late readings), refresh
+-- the hours they touch, and apply retention.
+CREATE OR REPLACE FUNCTION sensor_storage_maintenance(p_raw_keep_days INT, p_1m_keep_days INT, p_1h_keep_days INT)
+RETURNS TABLE(step TEXT, affected INT) AS $$
+DECLARE
+    v_now TIMESTAMPTZ := date_trunc('minute', NOW());
+    v_from TIMESTAMPTZ;
+BEGIN
+    step := 'partitions_created';
+    affected := ensure_sensor_partitions(0, 3);
+    RETURN NEXT;
+
+    SELECT LEAST(MAX(bucket), v_now - INTERVAL '3 minutes') INTO v_from FROM sensor_readings_1m;
+    v_from := GREATEST(COALESCE(v_from, v_now - INTERVAL '1 day'), v_now - make_interval(days => p_raw_keep_days));
+
+    step := 'minute_buckets';
+    affected := rollup_sensor_readings_1m(v_from, v_now);
+    RETURN NEXT;
+
+    step := 'hour_buckets';
+    affected := rollup_sensor_readings_1h(v_from, v_now);
+    RETURN NEXT;
+
+    step := 'partitions_dropped';
+    affected := drop_old_sensor_partitions(p_raw_keep_days);
+    RETURN NEXT;
+
+    DELETE FROM sensor_readings_1m WHERE bucket < NOW() - make_interval(days => p_1m_keep_days);
+    GET DIAGNOSTICS affected = ROW_COUNT;
+    step := 'minute_buckets_expired';
+    RETURN NEXT;
+
+    DELETE FROM sensor_readings_1h WHERE bucket < NOW() - make_interval(days => p_1h_keep_days);
+    GET DIAGNOSTICS affected = ROW_COUNT;
+    step := 'hour_buckets_expired';
+    RETURN NEXT;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for the seed history below plus the next few days
+SELECT ensure_sensor_partitions(8, 3);
+
 -- Sensor types reference
 CREATE TABLE sensor_types (
     sensor_type VARCHAR(50) PRIMARY KEY,
@@ -2160,6 +2342,85 @@ BEGIN
 END;
 $$ LANGUAGE plpgsql;
 
+-- =============================================================================
+-- FLEET-WIDE FAILURE PREDICTION
+-- Same model as predict_equipment_failure, applied to every equipment of a
+-- facility (or the whole fleet when p_facility_id is NULL) in one statement:
+-- coefficients are read once and features come from a single grouped pass
+-- over equipment_ml_features.
+-- =============================================================================
+
+CREATE OR REPLACE FUNCTION predict_fleet_failure(p_facility_id VARCHAR(10) DEFAULT NULL)
+RETURNS TABLE (
+    equipment_id VARCHAR(20),
+    facility_id VARCHAR(10),
+    equipment_type VARCHAR(50),
+    failure_probability DOUBLE PRECISION,
+    risk_level VARCHAR(20),
+    hours_to_failure INT,
+    confidence DOUBLE PRECISION,
+    model_version VARCHAR(50)
+) AS $$
+    WITH coef AS (
+        SELECT
+            MAX(CASE WHEN feature_name = 'intercept' THEN coefficient END) AS intercept,
+            MAX(CASE WHEN feature_name = 'vibration_normalized' THEN coefficient END) AS vibration,
+            MAX(CASE WHEN feature_name = 'temperature_normalized' THEN coefficient END) AS temperature,
+            MAX(CASE WHEN feature_name = 'vibration_trend_rate' THEN coefficient END) AS vib_trend,
+            MAX(CASE WHEN feature_name = 'temperature_trend_rate' THEN coefficient END) AS temp_trend,
+            MAX(CASE WHEN feature_name = 'days_since_maintenance' THEN coefficient END) AS maint,
+            MAX(CASE WHEN feature_name = 'equipment_age_years' THEN coefficient END) AS age,
+            MAX(CASE WHEN feature_name = 'anomaly_count' THEN coefficient END) AS anomaly,
+            MAX(CASE WHEN feature_name = 'power_normalized' THEN coefficient END) AS power,
+            MAX(CASE WHEN feature_name = 'rpm_normalized' THEN coefficient END) AS rpm,
+            MAX(CASE WHEN feature_name = 'pressure_normalized' THEN coefficient END) AS pressure,
+            MAX(CASE WHEN feature_name = 'torque_normalized' THEN coefficient END) AS torque
+        FROM ml_model_coefficients
+        WHERE model_id = 'failure_predictor_v1'
+    ),
+    scored AS (
+        SELECT f.*,
+            1.0 / (1.0 + exp(-(c.intercept
+                + c.vibration * f.vibration_normalized
+                + c.temperature * f.temperature_normalized
+                + c.vib_trend * GREATEST(f.vibration_trend_rate, 0)
+                + c.temp_trend * GREATEST(f.temperature_trend_rate, 0)
+                + c.maint * f.days_since_maintenance
+                + c.age * f.equipment_age_years
+                + c.anomaly * f.anomaly_count
+                + c.power * f.power_normalized
+                + c.rpm * f.rpm_normalized
+                + c.pressure * f.pressure_normalized
+                + c.torque * f.torque_normalized))) AS prob
+        FROM equipment_ml_features f
+        CROSS JOIN coef c
+        WHERE p_facility_id IS NULL OR f.facility_id = p_facility_id
+    )
+    SELECT
+        s.equipment_id::VARCHAR(20),
+        s.facility_id::VARCHAR(10),
+        s.equipment_type::VARCHAR(50),
+        ROUND(s.prob::numeric, 4)::DOUBLE PRECISION,
+        CASE
+            WHEN s.prob >= 0.7 THEN 'CRITICAL'
+            WHEN s.prob >= 0.5 THEN 'HIGH'
+            WHEN s.prob >= 0.3 THEN 'MEDIUM'
+            ELSE 'LOW'
+        END::VARCHAR(20),
+        CASE
+            WHEN s.vibration_trend_rate > 0.0001
+            THEN GREATEST(1, ((5.0 - s.vibration_avg) / (s.vibration_trend_rate * 3600))::INT)
+            ELSE 720
+        END,
+        CASE
+            WHEN s.anomaly_count > 0 THEN 0.85
+            WHEN s.vibration_avg > 0 AND s.temperature_avg > 0 THEN 0.75
+            ELSE 0.5
+        END::DOUBLE PRECISION,
+        'failure_predictor_v1'::VARCHAR(50)
+    FROM scored s;
+$$ LANGUAGE sql STABLE;
+
 -- =============================================================================
 -- HISTORICAL FAILURE EVENTS (for training validation)
 -- =============================================================================
@@ -2231,6 +2492,10 @@ SELECT
     'GOOD'
 FROM generate_series(0, 167) gs;
 
+-- Roll up the seed history so long-window queries find it in the rollup tables
+SELECT rollup_sensor_readings_1m(NOW() - INTERVAL '8 days', NOW());
+SELECT rollup_sensor_readings_1h(NOW() - INTERVAL '8 days', NOW());
+
 -- =============================================================================
 -- ANOMALY DETECTION FOR PHX-CNC-007
 -- =============================================================================
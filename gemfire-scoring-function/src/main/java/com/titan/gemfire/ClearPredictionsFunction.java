@@ -0,0 +1,73 @@
+package com.titan.gemfire;
+
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.apache.geode.cache.execute.RegionFunctionContext;
+import org.apache.geode.cache.partition.PartitionRegionHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * GemFire server-side Function that empties a partitioned region in place.
+ *
+ * Executed with {@code FunctionService.onRegion(sensorPredictionsRegion)}; each
+ * member removes the primary buckets it hosts with one local {@code removeAll},
+ * so clearing is one round trip per member instead of one per key.
+ * ({@code Region.clear()} is not supported on partitioned regions.)
+ *
+ * Output: Integer number of entries removed on this member, or String
+ * "ERROR|message". The caller sums the per-member results.
+ */
+public class ClearPredictionsFunction implements Function<Object> {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger log = Logger.getLogger(ClearPredictionsFunction.class.getName());
+
+    @Override
+    public String getId() {
+        return "ClearPredictionsFunction";
+    }
+
+    @Override
+    public boolean hasResult() {
+        return true;
+    }
+
+    @Override
+    public boolean isHA() {
+        return false;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+        // Run on the members hosting primaries, so each bucket is cleared exactly once
+        return true;
+    }
+
+    @Override
+    public void execute(FunctionContext<Object> context) {
+        try {
+            if (!(context instanceof RegionFunctionContext regionContext)) {
+                context.getResultSender().lastResult("ERROR|ClearPredictionsFunction must be executed onRegion");
+                return;
+            }
+            Region<Object, Object> region = regionContext.getDataSet();
+            Region<Object, Object> local = PartitionRegionHelper.isPartitionedRegion(region)
+                ? PartitionRegionHelper.getLocalPrimaryData(region)
+                : region;
+
+            List<Object> keys = new ArrayList<>(local.keySet());
+            region.removeAll(keys);
+            log.info("Cleared " + keys.size() + " entries from " + region.getFullPath());
+            context.getResultSender().lastResult(keys.size());
+
+        } catch (Throwable e) {
+            log.log(Level.SEVERE, "Clear predictions error", e);
+            context.getResultSender().lastResult("ERROR|" + ModelEvaluators.describe(e));
+        }
+    }
+}
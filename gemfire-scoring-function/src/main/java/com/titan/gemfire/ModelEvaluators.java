@@ -0,0 +1,291 @@
+package com.titan.gemfire;
+
+import com.titan.common.scoring.LogisticRegressionScorer;
+import org.apache.geode.cache.AttributesMutator;
+import org.apache.geode.cache.CacheListener;
+import org.apache.geode.cache.EntryEvent;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.RegionEvent;
+import org.apache.geode.cache.util.CacheListenerAdapter;
+import org.jpmml.evaluator.Computable;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.LoadingModelEvaluatorBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Evaluator lookup and result handling shared by the PMML scoring functions.
+ *
+ * Evaluators are cached per modelId in a small LRU map (several models can be
+ * scored alternately without rebuilding). A {@link CacheListener} on the
+ * PmmlModels region bumps a generation counter whenever a model is written or
+ * removed; while the generation is unchanged a cached evaluator is returned
+ * without touching the region. After a change, each model is re-read once and
+ * rebuilt only if the SHA-256 of its PMML differs from the cached one.
+ *
+ * Plain logistic-regression models are also compiled to a
+ * {@link LogisticRegressionScorer} and checked against JPMML when loaded.
+ *
+ * Cache size: system property {@code titan.pmml.max-cached-models} (default 8).
+ */
+final class ModelEvaluators {
+
+    private static final Logger log = Logger.getLogger(ModelEvaluators.class.getName());
+
+    private static final int MAX_CACHED_MODELS = Math.max(1, Integer.getInteger("titan.pmml.max-cached-models", 8));
+
+    // Largest |compiled - JPMML| accepted when verifying a compiled scorer
+    static final double COMPILED_TOLERANCE = 1e-12;
+    private static final int RANDOM_PROBES = 32;
+
+    /**
+     * A loaded model: the JPMML evaluator, plus the compiled scorer when the model
+     * is a plain logistic regression that agreed with JPMML on the probe vectors.
+     */
+    record LoadedModel(Evaluator evaluator, LogisticRegressionScorer compiled) {
+    }
+
+    private record CachedModel(LoadedModel model, byte[] contentHash, long generation) {
+    }
+
+    // Access-ordered, so iteration order is least recently used first. Guarded by itself.
+    private static final Map<String, CachedModel> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedModel> eldest) {
+            if (size() > MAX_CACHED_MODELS) {
+                log.info("PMML evaluator evicted (LRU): " + eldest.getKey());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    // Bumped by the region listener on any model change
+    private static final AtomicLong generation = new AtomicLong();
+    private static volatile Region<String, String> listenedRegion;
+
+    private ModelEvaluators() {
+    }
+
+    /** Evaluator for {@code modelId}, or null if the model isn't in the region. */
+    static Evaluator get(String modelId, Region<String, String> pmmlRegion) throws Exception {
+        LoadedModel model = load(modelId, pmmlRegion);
+        return model != null ? model.evaluator() : null;
+    }
+
+    /** Evaluator and compiled scorer for {@code modelId}, or null if the model isn't in the region. */
+    static LoadedModel load(String modelId, Region<String, String> pmmlRegion) throws Exception {
+        boolean listening = ensureListener(pmmlRegion);
+
+        // Read the generation before the region so a change racing with the load
+        // leaves the entry stale rather than wrongly current
+        long gen = generation.get();
+        CachedModel cached;
+        synchronized (cache) {
+            cached = cache.get(modelId);
+        }
+        if (listening && cached != null && cached.generation() == gen) {
+            return cached.model();
+        }
+
+        String pmmlXml = pmmlRegion.get(modelId);
+        if (pmmlXml == null) {
+            synchronized (cache) {
+                cache.remove(modelId);
+            }
+            return null;
+        }
+
+        byte[] hash = sha256(pmmlXml);
+        LoadedModel model;
+        if (cached != null && Arrays.equals(cached.contentHash(), hash)) {
+            model = cached.model();
+        } else {
+            // Parse and build evaluator using LoadingModelEvaluatorBuilder (JPMML 1.6.x)
+            Evaluator evaluator = new LoadingModelEvaluatorBuilder()
+                .load(new ByteArrayInputStream(pmmlXml.getBytes(StandardCharsets.UTF_8)))
+                .build();
+            model = new LoadedModel(evaluator, compileAndVerify(modelId, pmmlXml, evaluator));
+            log.info("PMML model loaded: " + modelId + " with " + evaluator.getInputFields().size() + " input fields"
+                + (model.compiled() != null ? " (compiled scorer enabled)" : ""));
+        }
+
+        synchronized (cache) {
+            cache.put(modelId, new CachedModel(model, hash, gen));
+        }
+        return model;
+    }
+
+    /**
+     * Compile the model to a coefficient vector and check it against JPMML on
+     * the zero vector, each unit vector and a fixed set of random vectors.
+     *
+     * @return the compiled scorer, or null to stay on JPMML
+     */
+    private static LogisticRegressionScorer compileAndVerify(String modelId, String pmmlXml, Evaluator evaluator) {
+        LogisticRegressionScorer scorer;
+        try {
+            scorer = LogisticRegressionScorer.compile(pmmlXml);
+        } catch (IllegalArgumentException e) {
+            log.info("PMML model " + modelId + " not compiled, using JPMML: " + e.getMessage());
+            return null;
+        }
+
+        String[] names = scorer.fieldNames();
+        if (names.length != evaluator.getInputFields().size()) {
+            log.warning("Compiled scorer for " + modelId + " has " + names.length + " fields, JPMML has "
+                + evaluator.getInputFields().size() + "; using JPMML");
+            return null;
+        }
+
+        SplittableRandom random = new SplittableRandom(modelId.hashCode());
+        double[] probe = new double[names.length];
+        Map<String, Object> inputMap = new HashMap<>();
+        try {
+            for (int p = 0; p < 1 + names.length + RANDOM_PROBES; p++) {
+                for (int f = 0; f < probe.length; f++) {
+                    if (p == 0) probe[f] = 0.0;
+                    else if (p <= names.length) probe[f] = f == p - 1 ? 1.0 : 0.0;
+                    else probe[f] = random.nextDouble(-1.0, 2.0);
+                    inputMap.put(names[f], probe[f]);
+                }
+                double expected = probability(evaluator.evaluate(inputMap));
+                double actual = Math.max(0.0, Math.min(1.0, scorer.score(probe, 0)));
+                if (!(Math.abs(expected - actual) <= COMPILED_TOLERANCE)) {
+                    log.warning("Compiled scorer for " + modelId + " disagrees with JPMML (" + actual + " vs "
+                        + expected + "); using JPMML");
+                    return null;
+                }
+            }
+        } catch (RuntimeException e) {
+            // e.g. fields with valid intervals or integer types reject the synthetic probes
+            log.info("PMML model " + modelId + " could not be probed, using JPMML: " + e);
+            return null;
+        }
+        return scorer;
+    }
+
+    /**
+     * Attach the invalidation listener to the region once per region instance.
+     * A listener left behind by a previously deployed copy of this jar is
+     * replaced, so redeploys don't stack listeners.
+     *
+     * @return false if the listener couldn't be attached; callers then fall back
+     *         to checking the content hash on every lookup
+     */
+    private static boolean ensureListener(Region<String, String> pmmlRegion) {
+        if (listenedRegion == pmmlRegion) {
+            return true;
+        }
+        synchronized (ModelEvaluators.class) {
+            if (listenedRegion == pmmlRegion) {
+                return true;
+            }
+            try {
+                AttributesMutator<String, String> mutator = pmmlRegion.getAttributesMutator();
+                for (CacheListener<String, String> existing : pmmlRegion.getAttributes().getCacheListeners()) {
+                    if (existing.getClass().getName().equals(InvalidationListener.class.getName())) {
+                        mutator.removeCacheListener(existing);
+                    }
+                }
+                mutator.addCacheListener(new InvalidationListener());
+                generation.incrementAndGet();
+                listenedRegion = pmmlRegion;
+                log.info("PMML evaluator cache listening on region " + pmmlRegion.getFullPath());
+                return true;
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Could not attach PMML cache listener; falling back to content hashing", e);
+                return false;
+            }
+        }
+    }
+
+    private static byte[] sha256(String pmmlXml) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(pmmlXml.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Marks every cached evaluator for revalidation when PmmlModels changes. */
+    private static final class InvalidationListener extends CacheListenerAdapter<String, String> {
+
+        @Override
+        public void afterCreate(EntryEvent<String, String> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void afterUpdate(EntryEvent<String, String> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void afterDestroy(EntryEvent<String, String> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void afterInvalidate(EntryEvent<String, String> event) {
+            invalidate(event.getKey());
+        }
+
+        @Override
+        public void afterRegionClear(RegionEvent<String, String> event) {
+            invalidate("*");
+        }
+
+        @Override
+        public void afterRegionDestroy(RegionEvent<String, String> event) {
+            listenedRegion = null;
+            invalidate("*");
+        }
+
+        private void invalidate(String modelId) {
+            generation.incrementAndGet();
+            log.fine("PMML model changed: " + modelId);
+        }
+    }
+
+    /** Extract the regression output and clamp it to [0, 1]. */
+    static double probability(Map<String, ?> results) {
+        double probability = 0.0;
+        for (Map.Entry<String, ?> entry : results.entrySet()) {
+            Object val = entry.getValue();
+            if (val instanceof Computable) {
+                val = ((Computable) val).getResult();
+            }
+            if (val instanceof Number) {
+                probability = ((Number) val).doubleValue();
+            }
+        }
+        return Math.max(0.0, Math.min(1.0, probability));
+    }
+
+    static String riskLevel(double probability) {
+        if (probability >= 0.7) return "CRITICAL";
+        if (probability >= 0.5) return "HIGH";
+        if (probability >= 0.3) return "MEDIUM";
+        return "LOW";
+    }
+
+    static String describe(Throwable e) {
+        String msg = e.getClass().getName() + ": " + e.getMessage();
+        if (e.getCause() != null) {
+            msg += " caused by " + e.getCause().getClass().getName() + ": " + e.getCause().getMessage();
+        }
+        return msg;
+    }
+}
@@ -0,0 +1,162 @@
+package com.titan.gemfire;
+
+import com.titan.common.scoring.LogisticRegressionScorer;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.Function;
+import org.apache.geode.cache.execute.FunctionContext;
+import org.jpmml.evaluator.Evaluator;
+import org.jpmml.evaluator.InputField;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * GemFire server-side Function that scores many feature vectors in one call.
+ *
+ * Same model lookup as {@link PmmlScoringFunction}, but the features travel as
+ * one flat {@code double[]} instead of a {@code "name=value"} string per feature,
+ * so a whole scoring cycle is a single round trip with no string parsing.
+ *
+ * Input: Object[] { modelId, String[] fieldNames, double[] features [, String engine] }
+ *   features is row-major, {@code fieldNames.length} values per row. If
+ *   fieldNames is null the rows are positional in the model's input-field order.
+ *   engine is "auto" (default: the compiled logistic scorer when the model has
+ *   one, else JPMML), "jpmml" or "compiled".
+ * Output: double[] probabilities (one per row, clamped to [0, 1]; NaN if that
+ *   row failed), or String "ERROR|message" if the whole call failed.
+ */
+public class PmmlBatchScoringFunction implements Function<Object[]> {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger log = Logger.getLogger(PmmlBatchScoringFunction.class.getName());
+
+    @Override
+    public String getId() {
+        return "PmmlBatchScoringFunction";
+    }
+
+    @Override
+    public boolean hasResult() {
+        return true;
+    }
+
+    @Override
+    public boolean isHA() {
+        return false;
+    }
+
+    @Override
+    public boolean optimizeForWrite() {
+        return false;
+    }
+
+    @Override
+    public void execute(FunctionContext<Object[]> context) {
+        try {
+            Object[] args = context.getArguments();
+            if (args == null || args.length < 3 || !(args[0] instanceof String) || !(args[2] instanceof double[])) {
+                context.getResultSender().lastResult("ERROR|Expected arguments: modelId, fieldNames, double[] features");
+                return;
+            }
+
+            String modelId = (String) args[0];
+            String[] fieldNames = (String[]) args[1];
+            double[] features = (double[]) args[2];
+
+            Region<String, String> pmmlRegion = context.getCache().getRegion("PmmlModels");
+            if (pmmlRegion == null) {
+                context.getResultSender().lastResult("ERROR|PmmlModels region not found in server cache");
+                return;
+            }
+
+            String engine = args.length > 3 && args[3] instanceof String name ? name : "auto";
+
+            ModelEvaluators.LoadedModel model = ModelEvaluators.load(modelId, pmmlRegion);
+            if (model == null) {
+                context.getResultSender().lastResult("ERROR|Model '" + modelId + "' not found in PmmlModels region");
+                return;
+            }
+
+            LogisticRegressionScorer scorer = null;
+            if (!"jpmml".equals(engine) && model.compiled() != null) {
+                try {
+                    scorer = fieldNames != null ? model.compiled().bind(fieldNames) : model.compiled();
+                } catch (IllegalArgumentException e) {
+                    // A model field has no column; JPMML handles it as a missing value
+                    log.fine("Compiled scorer not applicable: " + e.getMessage());
+                }
+            }
+            if (scorer != null) {
+                if (features.length % scorer.width() != 0) {
+                    context.getResultSender().lastResult("ERROR|Feature array length " + features.length
+                        + " is not a multiple of " + scorer.width() + " fields");
+                    return;
+                }
+                double[] probabilities = new double[features.length / scorer.width()];
+                scorer.scoreAll(features, probabilities);
+                for (int r = 0; r < probabilities.length; r++) {
+                    probabilities[r] = Math.max(0.0, Math.min(1.0, probabilities[r]));
+                }
+                context.getResultSender().lastResult(probabilities);
+                return;
+            }
+            if ("compiled".equals(engine)) {
+                context.getResultSender().lastResult("ERROR|Model '" + modelId + "' has no compiled scorer");
+                return;
+            }
+            Evaluator evaluator = model.evaluator();
+
+            // Map each model input field to its column in the caller's rows
+            List<? extends InputField> inputFields = evaluator.getInputFields();
+            int width = fieldNames != null ? fieldNames.length : inputFields.size();
+            if (width == 0 || features.length % width != 0) {
+                context.getResultSender().lastResult("ERROR|Feature array length " + features.length
+                    + " is not a multiple of " + width + " fields");
+                return;
+            }
+            String[] names = new String[inputFields.size()];
+            int[] columns = new int[inputFields.size()];
+            for (int f = 0; f < inputFields.size(); f++) {
+                names[f] = inputFields.get(f).getName();
+                columns[f] = fieldNames != null ? indexOf(fieldNames, names[f]) : f;
+            }
+
+            int rows = features.length / width;
+            double[] probabilities = new double[rows];
+            Map<String, Object> inputMap = new HashMap<>();
+            for (int r = 0; r < rows; r++) {
+                inputMap.clear();
+                int base = r * width;
+                for (int f = 0; f < names.length; f++) {
+                    if (columns[f] >= 0) {
+                        inputMap.put(names[f], features[base + columns[f]]);
+                    }
+                }
+                try {
+                    probabilities[r] = ModelEvaluators.probability(evaluator.evaluate(inputMap));
+                } catch (RuntimeException e) {
+                    probabilities[r] = Double.NaN;
+                    log.log(Level.FINE, "PMML batch scoring failed for row " + r, e);
+                }
+            }
+
+            context.getResultSender().lastResult(probabilities);
+
+        } catch (Throwable e) {
+            log.log(Level.SEVERE, "PMML batch scoring error", e);
+            context.getResultSender().lastResult("ERROR|" + ModelEvaluators.describe(e));
+        }
+    }
+
+    private static int indexOf(String[] values, String name) {
+        for (int i = 0; i < values.length; i++) {
+            if (name.equals(values[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
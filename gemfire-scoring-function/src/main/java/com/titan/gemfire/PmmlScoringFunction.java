@@ -5,8 +5,6 @@ import org.apache.geode.cache.execute.Function;
 import org.apache.geode.cache.execute.FunctionContext;
 import org.jpmml.evaluator.*;
 
-import java.io.ByteArrayInputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -23,16 +21,14 @@ import java.util.logging.Logger;
  *
  * Input: String[] { modelId, equipmentId, feature1=val1, feature2=val2, ... }
  * Output: String "equipmentId|probability|riskLevel"
+ *
+ * For scoring many equipment in one round trip see {@link PmmlBatchScoringFunction}.
  */
 public class PmmlScoringFunction implements Function<String[]> {
 
     private static final long serialVersionUID = 1L;
     private static final Logger log = Logger.getLogger(PmmlScoringFunction.class.getName());
 
-    // Cached evaluator — rebuilt when model changes
-    private transient volatile Evaluator cachedEvaluator;
-    private transient volatile String cachedModelXml;
-
     @Override
     public String getId() {
         return "PmmlScoringFunction";
@@ -83,7 +79,7 @@ public class PmmlScoringFunction implements Function<String[]> {
             }
 
             // Get or build evaluator
-            Evaluator evaluator = getEvaluator(modelId, pmmlRegion);
+            Evaluator evaluator = ModelEvaluators.get(modelId, pmmlRegion);
             if (evaluator == null) {
                 context.getResultSender().lastResult("ERROR|Model '" + modelId + "' not found in PmmlModels region");
                 return;
@@ -102,61 +98,16 @@ public class PmmlScoringFunction implements Function<String[]> {
             // Evaluate the model
             Map<String, ?> results = evaluator.evaluate(inputMap);
 
-            // Extract probability from the regression output
-            double probability = 0.0;
-            for (Map.Entry<String, ?> entry : results.entrySet()) {
-                Object val = entry.getValue();
-                if (val instanceof Computable) {
-                    val = ((Computable) val).getResult();
-                }
-                if (val instanceof Number) {
-                    probability = ((Number) val).doubleValue();
-                }
-            }
-
-            // Clamp to [0, 1]
-            probability = Math.max(0.0, Math.min(1.0, probability));
-
-            // Determine risk level
-            String riskLevel;
-            if (probability >= 0.7) riskLevel = "CRITICAL";
-            else if (probability >= 0.5) riskLevel = "HIGH";
-            else if (probability >= 0.3) riskLevel = "MEDIUM";
-            else riskLevel = "LOW";
+            // Extract probability from the regression output, clamped to [0, 1]
+            double probability = ModelEvaluators.probability(results);
+            String riskLevel = ModelEvaluators.riskLevel(probability);
 
             String result = equipmentId + "|" + probability + "|" + riskLevel;
             context.getResultSender().lastResult(result);
 
         } catch (Throwable e) {
             log.log(Level.SEVERE, "PMML scoring error", e);
-            String msg = e.getClass().getName() + ": " + e.getMessage();
-            if (e.getCause() != null) {
-                msg += " caused by " + e.getCause().getClass().getName() + ": " + e.getCause().getMessage();
-            }
-            context.getResultSender().lastResult("ERROR|" + msg);
+            context.getResultSender().lastResult("ERROR|" + ModelEvaluators.describe(e));
         }
     }
-
-    private Evaluator getEvaluator(String modelId, Region<String, String> pmmlRegion) throws Exception {
-        String pmmlXml = pmmlRegion.get(modelId);
-        if (pmmlXml == null) {
-            return null;
-        }
-
-        // Return cached evaluator if model hasn't changed
-        if (cachedEvaluator != null && pmmlXml.equals(cachedModelXml)) {
-            return cachedEvaluator;
-        }
-
-        // Parse and build evaluator using LoadingModelEvaluatorBuilder (JPMML 1.6.x)
-        Evaluator evaluator = new LoadingModelEvaluatorBuilder()
-            .load(new ByteArrayInputStream(pmmlXml.getBytes(StandardCharsets.UTF_8)))
-            .build();
-
-        cachedEvaluator = evaluator;
-        cachedModelXml = pmmlXml;
-
-        log.info("PMML model loaded: " + modelId + " with " + evaluator.getInputFields().size() + " input fields");
-        return evaluator;
-    }
 }
@@ -40,7 +40,9 @@ public class GovernanceService {
         Map.entry("orders", "Customer orders with status tracking"),
         Map.entry("order_lines", "Individual line items within orders"),
         Map.entry("equipment", "Manufacturing equipment registry across all facilities"),
-        Map.entry("sensor_readings", "Time-series sensor data from equipment"),
+        Map.entry("sensor_readings", "Time-series sensor data from equipment, partitioned by day"),
+        Map.entry("sensor_readings_1m", "1-minute rollups (min/max/avg/count/last) of sensor readings"),
+        Map.entry("sensor_readings_1h", "1-hour rollups (min/max/avg/count/last) of sensor readings"),
         Map.entry("maintenance_records", "Equipment maintenance history and schedules"),
         Map.entry("anomalies", "Detected sensor anomalies for predictive maintenance"),
         Map.entry("material_batches", "Raw material batch tracking for traceability"),
@@ -58,6 +60,8 @@ public class GovernanceService {
         Map.entry("order_lines", "Sales"),
         Map.entry("equipment", "Manufacturing"),
         Map.entry("sensor_readings", "Manufacturing"),
+        Map.entry("sensor_readings_1m", "Manufacturing"),
+        Map.entry("sensor_readings_1h", "Manufacturing"),
         Map.entry("maintenance_records", "Manufacturing"),
         Map.entry("anomalies", "Manufacturing"),
         Map.entry("material_batches", "Quality"),
@@ -1,16 +1,30 @@
 package com.titan.maintenance.controller;
 
+import com.titan.maintenance.model.FleetHealthEntry;
 import com.titan.maintenance.service.GemFireScoringService;
 import com.titan.maintenance.service.GemFireService;
+import com.titan.maintenance.service.MaintenanceService;
 import com.titan.maintenance.service.ModelExportService;
+import com.titan.maintenance.service.PredictionQueryService;
+import com.titan.maintenance.service.PredictionStreamService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 /**
  * REST API for ML pipeline data — serves the ML Dashboard UI.
@@ -26,15 +40,30 @@ public class MLController {
     private final ModelExportService modelExportService;
     private final GemFireService gemFireService;
     private final GemFireScoringService scoringService;
+    private final PredictionQueryService predictionQueryService;
+    private final PredictionStreamService predictionStreamService;
+    private final MaintenanceService maintenanceService;
+
+    @Value("${training.generate.threads:4}")
+    private int trainingThreads;
+
+    @Value("${training.generate.chunk-size:1000}")
+    private int trainingChunkSize;
 
     public MLController(JdbcTemplate jdbcTemplate,
                         ModelExportService modelExportService,
                         GemFireService gemFireService,
-                        GemFireScoringService scoringService) {
+                        GemFireScoringService scoringService,
+                        PredictionQueryService predictionQueryService,
+                        PredictionStreamService predictionStreamService,
+                        MaintenanceService maintenanceService) {
         this.jdbcTemplate = jdbcTemplate;
         this.modelExportService = modelExportService;
         this.gemFireService = gemFireService;
         this.scoringService = scoringService;
+        this.predictionQueryService = predictionQueryService;
+        this.predictionStreamService = predictionStreamService;
+        this.maintenanceService = maintenanceService;
     }
 
     /**
@@ -72,6 +101,56 @@ public class MLController {
         return scoringService.getGemFirePredictions();
     }
 
+    /**
+     * Page through predictions (highest failure probability first), filtered
+     * by facility and/or risk level. Sorting and counting run in GemFire.
+     */
+    @GetMapping("/predictions/query")
+    public Map<String, Object> queryPredictions(
+            @RequestParam(required = false) String facility,
+            @RequestParam(required = false) String riskLevel,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        return predictionQueryService.queryGemFirePredictions(facility, riskLevel, limit, offset);
+    }
+
+    /**
+     * Prediction counts per risk level, optionally for one facility.
+     */
+    @GetMapping("/predictions/counts")
+    public Map<String, Object> getPredictionCounts(@RequestParam(required = false) String facility) {
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("facility", facility);
+            result.put("counts", predictionQueryService.countsByRiskLevel(facility));
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to count predictions: {}", e.getMessage());
+            return Map.of("success", false, "error", String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Push prediction changes to the dashboard as they land in GemFire
+     * ("prediction" and "prediction-removed" events), optionally filtered.
+     */
+    @GetMapping(value = "/predictions/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPredictions(@RequestParam(required = false) String facility,
+                                        @RequestParam(required = false) String riskLevel) {
+        return predictionStreamService.subscribe(facility, riskLevel);
+    }
+
+    /**
+     * Failure risk and RUL for a facility (or the whole fleet), highest risk first.
+     */
+    @GetMapping("/fleet/health")
+    public List<FleetHealthEntry> getFleetHealth(
+            @RequestParam(required = false) String facility,
+            @RequestParam(required = false) String minRiskLevel,
+            @RequestParam(required = false) Integer limit) {
+        return maintenanceService.assessFleetHealth(facility, minRiskLevel, limit);
+    }
+
     /**
      * Get GemFire deployment status.
      */
@@ -82,7 +161,11 @@ public class MLController {
 
         return Map.of(
                 "connected", connected,
-                "deployedModels", deployed
+                "deployedModels", deployed,
+                "scoring", scoringService.getScoringStats(),
+                "fallback", scoringService.getFallbackStats(),
+                "predictionsCache", gemFireService.getPredictionsCacheStats(),
+                "scoringWindows", scoringService.getWindowStats()
         );
     }
 
@@ -112,6 +195,14 @@ public class MLController {
         return gemFireService.deployModelToGemFire("failure_predictor_v1");
     }
 
+    /**
+     * Compare the compiled logistic scorer with JPMML over the training set.
+     */
+    @GetMapping("/scorer/validate")
+    public Map<String, Object> validateCompiledScorer() {
+        return modelExportService.validateCompiledScorer("failure_predictor_v1");
+    }
+
     /**
      * Get anomaly levels: default + per-equipment overrides.
      */
@@ -159,17 +250,20 @@ public class MLController {
      * Generate comprehensive training data following ML_TRAINING_DATA_MATRIX.md.
      * Creates 16 states: 1 healthy + 5 patterns × 3 severity levels (early/moderate/critical).
      * Uses proper label mixing to create probability gradients.
+     * States are generated in parallel, each from its own split of one
+     * SplittableRandom (pass seed for a reproducible set), and written in
+     * batched inserts of training.generate.chunk-size rows.
      */
     @PostMapping("/training/generate")
     public Map<String, Object> generateTrainingData(
             @RequestParam(defaultValue = "1000") int normalCount,
-            @RequestParam(defaultValue = "200") int failureCountPerPattern
+            @RequestParam(defaultValue = "200") int failureCountPerPattern,
+            @RequestParam(required = false) Long seed
     ) {
         log.info("Generating comprehensive 16-state training data: {} normal, {} per pattern",
                 normalCount, failureCountPerPattern);
 
         long start = System.currentTimeMillis();
-        int totalInserted = 0;
         Map<String, Integer> distribution = new LinkedHashMap<>();
 
         try {
@@ -185,312 +279,286 @@ public class MLController {
             int moderateCount = (int)(failureCountPerPattern * 0.3);
             int criticalCount = failureCountPerPattern - earlyCount - moderateCount;
 
+            List<TrainingState> states = new ArrayList<>();
+
             // ═══════════════════════════════════════════════════════════════════
             // NORMAL OPERATION (Healthy) — Target: 0-15% probability, Label: failed=0
             // ═══════════════════════════════════════════════════════════════════
-            for (int i = 0; i < normalCount; i++) {
-                double vib = 1.5 + Math.random() * 1.0;       // 1.5-2.5 mm/s
-                double temp = 45 + Math.random() * 10;         // 45-55°C
-                double rpm = 8000 + Math.random() * 1500;      // 8000-9500 RPM
-                double power = 20 + Math.random() * 10;        // 20-30 kW
-                double pressure = 5.5 + Math.random() * 1.0;   // 5.5-6.5 bar
-                double torque = 40 + Math.random() * 15;       // 40-55 Nm
+            states.add(new TrainingState("normal", normalCount, r -> {
+                double vib = 1.5 + r.nextDouble() * 1.0;      // 1.5-2.5 mm/s
+                double temp = 45 + r.nextDouble() * 10;        // 45-55°C
+                double rpm = 8000 + r.nextDouble() * 1500;     // 8000-9500 RPM
+                double power = 20 + r.nextDouble() * 10;       // 20-30 kW
+                double pressure = 5.5 + r.nextDouble() * 1.0;  // 5.5-6.5 bar
+                double torque = 40 + r.nextDouble() * 15;      // 40-55 Nm
 
                 // 5% noise: small chance of failed=1 even in normal (sensor noise)
-                int failed = Math.random() < 0.05 ? 1 : 0;
+                int failed = r.nextDouble() < 0.05 ? 1 : 0;
 
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        (Math.random()-0.5)*0.05, (Math.random()-0.5)*0.1,
-                        5 + Math.random() * 40, 0.5 + Math.random() * 5,
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        (r.nextDouble()-0.5)*0.05, (r.nextDouble()-0.5)*0.1,
+                        5 + r.nextDouble() * 40, 0.5 + r.nextDouble() * 5,
                         0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
-            distribution.put("normal", normalCount);
+            }));
 
             // ═══════════════════════════════════════════════════════════════════
             // BEARING DEGRADATION — HIGH vibration ↑↑, HIGH torque ↑↑
             // ═══════════════════════════════════════════════════════════════════
 
             // Early Stage (15-40% probability) — Label: 70% failed=0, 30% failed=1
-            for (int i = 0; i < earlyCount; i++) {
-                double vib = 2.5 + Math.random() * 0.8;        // 2.5-3.3 mm/s
-                double temp = 50 + Math.random() * 15;         // 50-65°C
-                double rpm = 7800 + Math.random() * 1200;      // 7800-9000 RPM
-                double power = 25 + Math.random() * 10;        // 25-35 kW
-                double pressure = 5.0 + Math.random() * 1.0;   // 5.0-6.0 bar
-                double torque = 50 + Math.random() * 12;       // 50-62 Nm
-
-                int failed = Math.random() < 0.30 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        0.02 + Math.random() * 0.08, 0.01 + Math.random() * 0.05,
-                        20 + Math.random() * 30, 2 + Math.random() * 5,
-                        Math.random() < 0.2 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            states.add(new TrainingState("bearing_early", earlyCount, r -> {
+                double vib = 2.5 + r.nextDouble() * 0.8;       // 2.5-3.3 mm/s
+                double temp = 50 + r.nextDouble() * 15;        // 50-65°C
+                double rpm = 7800 + r.nextDouble() * 1200;     // 7800-9000 RPM
+                double power = 25 + r.nextDouble() * 10;       // 25-35 kW
+                double pressure = 5.0 + r.nextDouble() * 1.0;  // 5.0-6.0 bar
+                double torque = 50 + r.nextDouble() * 12;      // 50-62 Nm
+
+                int failed = r.nextDouble() < 0.30 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        0.02 + r.nextDouble() * 0.08, 0.01 + r.nextDouble() * 0.05,
+                        20 + r.nextDouble() * 30, 2 + r.nextDouble() * 5,
+                        r.nextDouble() < 0.2 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
+            }));
 
             // Moderate Stage (40-70% probability) — Label: 20% failed=0, 80% failed=1
-            for (int i = 0; i < moderateCount; i++) {
-                double vib = 3.0 + Math.random() * 1.0;        // 3.0-4.0 mm/s
-                double temp = 60 + Math.random() * 15;         // 60-75°C
-                double rpm = 7200 + Math.random() * 1300;      // 7200-8500 RPM
-                double power = 28 + Math.random() * 12;        // 28-40 kW
-                double pressure = 4.8 + Math.random() * 1.0;   // 4.8-5.8 bar
-                double torque = 55 + Math.random() * 15;       // 55-70 Nm
-
-                int failed = Math.random() < 0.80 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        0.05 + Math.random() * 0.15, 0.03 + Math.random() * 0.10,
-                        30 + Math.random() * 40, 3 + Math.random() * 7,
-                        Math.random() < 0.4 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            states.add(new TrainingState("bearing_moderate", moderateCount, r -> {
+                double vib = 3.0 + r.nextDouble() * 1.0;       // 3.0-4.0 mm/s
+                double temp = 60 + r.nextDouble() * 15;        // 60-75°C
+                double rpm = 7200 + r.nextDouble() * 1300;     // 7200-8500 RPM
+                double power = 28 + r.nextDouble() * 12;       // 28-40 kW
+                double pressure = 4.8 + r.nextDouble() * 1.0;  // 4.8-5.8 bar
+                double torque = 55 + r.nextDouble() * 15;      // 55-70 Nm
+
+                int failed = r.nextDouble() < 0.80 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        0.05 + r.nextDouble() * 0.15, 0.03 + r.nextDouble() * 0.10,
+                        30 + r.nextDouble() * 40, 3 + r.nextDouble() * 7,
+                        r.nextDouble() < 0.4 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
+            }));
 
             // Critical Stage (70-100% probability) — Label: 100% failed=1
-            for (int i = 0; i < criticalCount; i++) {
-                double vib = 4.0 + Math.random() * 3.0;        // 4.0-7.0+ mm/s
-                double temp = 65 + Math.random() * 25;         // 65-90°C
-                double rpm = 6500 + Math.random() * 1500;      // 6500-8000 RPM
-                double power = 28 + Math.random() * 17;        // 28-45 kW
-                double pressure = 4.5 + Math.random() * 1.0;   // 4.5-5.5 bar
-                double torque = 60 + Math.random() * 25;       // 60-85 Nm
-
-                insertTrainingRow(Math.min(vib/VIB_MAX, 1.4), temp/TEMP_MAX,
-                        0.10 + Math.random() * 0.25, 0.05 + Math.random() * 0.15,
-                        40 + Math.random() * 50, 5 + Math.random() * 10,
-                        1 + (int)(Math.random() * 2), power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, Math.min(torque/TORQUE_MAX, 1.1), 1);
-                totalInserted++;
-            }
-            distribution.put("bearing_early", earlyCount);
-            distribution.put("bearing_moderate", moderateCount);
-            distribution.put("bearing_critical", criticalCount);
+            states.add(new TrainingState("bearing_critical", criticalCount, r -> {
+                double vib = 4.0 + r.nextDouble() * 3.0;       // 4.0-7.0+ mm/s
+                double temp = 65 + r.nextDouble() * 25;        // 65-90°C
+                double rpm = 6500 + r.nextDouble() * 1500;     // 6500-8000 RPM
+                double power = 28 + r.nextDouble() * 17;       // 28-45 kW
+                double pressure = 4.5 + r.nextDouble() * 1.0;  // 4.5-5.5 bar
+                double torque = 60 + r.nextDouble() * 25;      // 60-85 Nm
+
+                return trainingRow(Math.min(vib/VIB_MAX, 1.4), temp/TEMP_MAX,
+                        0.10 + r.nextDouble() * 0.25, 0.05 + r.nextDouble() * 0.15,
+                        40 + r.nextDouble() * 50, 5 + r.nextDouble() * 10,
+                        1 + (int)(r.nextDouble() * 2), power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, Math.min(torque/TORQUE_MAX, 1.1), 1);
+            }));
 
             // ═══════════════════════════════════════════════════════════════════
             // MOTOR BURNOUT — HIGH temperature ↑↑, HIGH power ↑↑, LOW RPM ↓↓
             // ═══════════════════════════════════════════════════════════════════
 
             // Early Stage
-            for (int i = 0; i < earlyCount; i++) {
-                double vib = 2.0 + Math.random() * 0.8;        // 2.0-2.8 mm/s
-                double temp = 60 + Math.random() * 12;         // 60-72°C
-                double rpm = 7000 + Math.random() * 1500;      // 7000-8500 RPM
-                double power = 30 + Math.random() * 10;        // 30-40 kW
-                double pressure = 5.0 + Math.random() * 1.0;   // 5.0-6.0 bar
-                double torque = 45 + Math.random() * 13;       // 45-58 Nm
-
-                int failed = Math.random() < 0.30 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        (Math.random()-0.3)*0.1, 0.05 + Math.random() * 0.10,
-                        15 + Math.random() * 30, 2 + Math.random() * 6,
-                        Math.random() < 0.2 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            states.add(new TrainingState("motor_early", earlyCount, r -> {
+                double vib = 2.0 + r.nextDouble() * 0.8;       // 2.0-2.8 mm/s
+                double temp = 60 + r.nextDouble() * 12;        // 60-72°C
+                double rpm = 7000 + r.nextDouble() * 1500;     // 7000-8500 RPM
+                double power = 30 + r.nextDouble() * 10;       // 30-40 kW
+                double pressure = 5.0 + r.nextDouble() * 1.0;  // 5.0-6.0 bar
+                double torque = 45 + r.nextDouble() * 13;      // 45-58 Nm
+
+                int failed = r.nextDouble() < 0.30 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        (r.nextDouble()-0.3)*0.1, 0.05 + r.nextDouble() * 0.10,
+                        15 + r.nextDouble() * 30, 2 + r.nextDouble() * 6,
+                        r.nextDouble() < 0.2 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
+            }));
 
             // Moderate Stage
-            for (int i = 0; i < moderateCount; i++) {
-                double vib = 2.2 + Math.random() * 1.0;        // 2.2-3.2 mm/s
-                double temp = 72 + Math.random() * 10;         // 72-82°C
-                double rpm = 6200 + Math.random() * 1300;      // 6200-7500 RPM
-                double power = 38 + Math.random() * 10;        // 38-48 kW
-                double pressure = 4.8 + Math.random() * 1.0;   // 4.8-5.8 bar
-                double torque = 48 + Math.random() * 14;       // 48-62 Nm
-
-                int failed = Math.random() < 0.80 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        0.02 + Math.random() * 0.08, 0.10 + Math.random() * 0.20,
-                        25 + Math.random() * 35, 3 + Math.random() * 7,
-                        Math.random() < 0.5 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            states.add(new TrainingState("motor_moderate", moderateCount, r -> {
+                double vib = 2.2 + r.nextDouble() * 1.0;       // 2.2-3.2 mm/s
+                double temp = 72 + r.nextDouble() * 10;        // 72-82°C
+                double rpm = 6200 + r.nextDouble() * 1300;     // 6200-7500 RPM
+                double power = 38 + r.nextDouble() * 10;       // 38-48 kW
+                double pressure = 4.8 + r.nextDouble() * 1.0;  // 4.8-5.8 bar
+                double torque = 48 + r.nextDouble() * 14;      // 48-62 Nm
+
+                int failed = r.nextDouble() < 0.80 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        0.02 + r.nextDouble() * 0.08, 0.10 + r.nextDouble() * 0.20,
+                        25 + r.nextDouble() * 35, 3 + r.nextDouble() * 7,
+                        r.nextDouble() < 0.5 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
+            }));
 
             // Critical Stage
-            for (int i = 0; i < criticalCount; i++) {
-                double vib = 2.5 + Math.random() * 1.5;        // 2.5-4.0 mm/s
-                double temp = 85 + Math.random() * 25;         // 85-110+°C
-                double rpm = 5000 + Math.random() * 2000;      // 5000-7000 RPM
-                double power = 42 + Math.random() * 23;        // 42-65 kW
-                double pressure = 4.5 + Math.random() * 1.0;   // 4.5-5.5 bar
-                double torque = 50 + Math.random() * 15;       // 50-65 Nm
-
-                insertTrainingRow(vib/VIB_MAX, Math.min(temp/TEMP_MAX, 1.3),
-                        0.03 + Math.random() * 0.10, 0.20 + Math.random() * 0.35,
-                        30 + Math.random() * 50, 4 + Math.random() * 10,
-                        1 + (int)(Math.random() * 2), Math.min(power/POWER_MAX, 1.3), rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, 1);
-                totalInserted++;
-            }
-            distribution.put("motor_early", earlyCount);
-            distribution.put("motor_moderate", moderateCount);
-            distribution.put("motor_critical", criticalCount);
+            states.add(new TrainingState("motor_critical", criticalCount, r -> {
+                double vib = 2.5 + r.nextDouble() * 1.5;       // 2.5-4.0 mm/s
+                double temp = 85 + r.nextDouble() * 25;        // 85-110+°C
+                double rpm = 5000 + r.nextDouble() * 2000;     // 5000-7000 RPM
+                double power = 42 + r.nextDouble() * 23;       // 42-65 kW
+                double pressure = 4.5 + r.nextDouble() * 1.0;  // 4.5-5.5 bar
+                double torque = 50 + r.nextDouble() * 15;      // 50-65 Nm
+
+                return trainingRow(vib/VIB_MAX, Math.min(temp/TEMP_MAX, 1.3),
+                        0.03 + r.nextDouble() * 0.10, 0.20 + r.nextDouble() * 0.35,
+                        30 + r.nextDouble() * 50, 4 + r.nextDouble() * 10,
+                        1 + (int)(r.nextDouble() * 2), Math.min(power/POWER_MAX, 1.3), rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, 1);
+            }));
 
             // ═══════════════════════════════════════════════════════════════════
             // ELECTRICAL FAULT — Power SPIKES ↑↑↑, RPM erratic/dropping ↓↓
             // ═══════════════════════════════════════════════════════════════════
 
             // Early Stage
-            for (int i = 0; i < earlyCount; i++) {
-                double vib = 2.3 + Math.random() * 0.9;        // 2.3-3.2 mm/s
-                double temp = 52 + Math.random() * 16;         // 52-68°C
-                double rpm = 7000 + Math.random() * 1500;      // 7000-8500 RPM (erratic start)
-                double power = 32 + Math.random() * 10;        // 32-42 kW (occasional spikes)
-                double pressure = 4.8 + Math.random() * 1.0;   // 4.8-5.8 bar
-                double torque = 45 + Math.random() * 13;       // 45-58 Nm
-
-                int failed = Math.random() < 0.30 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        0.02 + Math.random() * 0.06, 0.02 + Math.random() * 0.08,
-                        20 + Math.random() * 30, 1 + Math.random() * 5,
-                        Math.random() < 0.3 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            states.add(new TrainingState("electrical_early", earlyCount, r -> {
+                double vib = 2.3 + r.nextDouble() * 0.9;       // 2.3-3.2 mm/s
+                double temp = 52 + r.nextDouble() * 16;        // 52-68°C
+                double rpm = 7000 + r.nextDouble() * 1500;     // 7000-8500 RPM (erratic start)
+                double power = 32 + r.nextDouble() * 10;       // 32-42 kW (occasional spikes)
+                double pressure = 4.8 + r.nextDouble() * 1.0;  // 4.8-5.8 bar
+                double torque = 45 + r.nextDouble() * 13;      // 45-58 Nm
+
+                int failed = r.nextDouble() < 0.30 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        0.02 + r.nextDouble() * 0.06, 0.02 + r.nextDouble() * 0.08,
+                        20 + r.nextDouble() * 30, 1 + r.nextDouble() * 5,
+                        r.nextDouble() < 0.3 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
+            }));
 
             // Moderate Stage
-            for (int i = 0; i < moderateCount; i++) {
-                double vib = 2.8 + Math.random() * 1.2;        // 2.8-4.0 mm/s
-                double temp = 58 + Math.random() * 20;         // 58-78°C
-                double rpm = 5800 + Math.random() * 2000;      // 5800-7800 RPM (dropping/erratic)
-                double power = 40 + Math.random() * 12;        // 40-52 kW (spikes)
-                double pressure = 4.5 + Math.random() * 1.0;   // 4.5-5.5 bar
-                double torque = 48 + Math.random() * 14;       // 48-62 Nm
-
-                int failed = Math.random() < 0.80 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        0.04 + Math.random() * 0.10, 0.05 + Math.random() * 0.12,
-                        25 + Math.random() * 35, 2 + Math.random() * 6,
+            states.add(new TrainingState("electrical_moderate", moderateCount, r -> {
+                double vib = 2.8 + r.nextDouble() * 1.2;       // 2.8-4.0 mm/s
+                double temp = 58 + r.nextDouble() * 20;        // 58-78°C
+                double rpm = 5800 + r.nextDouble() * 2000;     // 5800-7800 RPM (dropping/erratic)
+                double power = 40 + r.nextDouble() * 12;       // 40-52 kW (spikes)
+                double pressure = 4.5 + r.nextDouble() * 1.0;  // 4.5-5.5 bar
+                double torque = 48 + r.nextDouble() * 14;      // 48-62 Nm
+
+                int failed = r.nextDouble() < 0.80 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        0.04 + r.nextDouble() * 0.10, 0.05 + r.nextDouble() * 0.12,
+                        25 + r.nextDouble() * 35, 2 + r.nextDouble() * 6,
                         1, Math.min(power/POWER_MAX, 1.05), rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            }));
 
             // Critical Stage
-            for (int i = 0; i < criticalCount; i++) {
-                double vib = 3.5 + Math.random() * 3.0;        // 3.5-6.5 mm/s
-                double temp = 60 + Math.random() * 30;         // 60-90°C
-                double rpm = 4500 + Math.random() * 3000;      // 4500-7500 RPM (erratic/low)
-                double power = 48 + Math.random() * 27;        // 48-75 kW (severe spikes)
-                double pressure = 4.2 + Math.random() * 1.0;   // 4.2-5.2 bar
-                double torque = 48 + Math.random() * 17;       // 48-65 Nm
-
-                insertTrainingRow(Math.min(vib/VIB_MAX, 1.3), temp/TEMP_MAX,
-                        0.05 + Math.random() * 0.15, 0.08 + Math.random() * 0.18,
-                        30 + Math.random() * 45, 3 + Math.random() * 8,
-                        2 + (int)(Math.random() * 2), Math.min(power/POWER_MAX, 1.5), rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, 1);
-                totalInserted++;
-            }
-            distribution.put("electrical_early", earlyCount);
-            distribution.put("electrical_moderate", moderateCount);
-            distribution.put("electrical_critical", criticalCount);
+            states.add(new TrainingState("electrical_critical", criticalCount, r -> {
+                double vib = 3.5 + r.nextDouble() * 3.0;       // 3.5-6.5 mm/s
+                double temp = 60 + r.nextDouble() * 30;        // 60-90°C
+                double rpm = 4500 + r.nextDouble() * 3000;     // 4500-7500 RPM (erratic/low)
+                double power = 48 + r.nextDouble() * 27;       // 48-75 kW (severe spikes)
+                double pressure = 4.2 + r.nextDouble() * 1.0;  // 4.2-5.2 bar
+                double torque = 48 + r.nextDouble() * 17;      // 48-65 Nm
+
+                return trainingRow(Math.min(vib/VIB_MAX, 1.3), temp/TEMP_MAX,
+                        0.05 + r.nextDouble() * 0.15, 0.08 + r.nextDouble() * 0.18,
+                        30 + r.nextDouble() * 45, 3 + r.nextDouble() * 8,
+                        2 + (int)(r.nextDouble() * 2), Math.min(power/POWER_MAX, 1.5), rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, 1);
+            }));
 
             // ═══════════════════════════════════════════════════════════════════
             // COOLANT FAILURE — HIGH temperature ↑↑, LOW pressure ↓↓
             // ═══════════════════════════════════════════════════════════════════
 
             // Early Stage
-            for (int i = 0; i < earlyCount; i++) {
-                double vib = 2.0 + Math.random() * 0.8;        // 2.0-2.8 mm/s
-                double temp = 60 + Math.random() * 12;         // 60-72°C
-                double rpm = 7500 + Math.random() * 1300;      // 7500-8800 RPM
-                double power = 22 + Math.random() * 10;        // 22-32 kW
-                double pressure = 4.5 + Math.random() * 1.0;   // 4.5-5.5 bar (starting to drop)
-                double torque = 42 + Math.random() * 13;       // 42-55 Nm
-
-                int failed = Math.random() < 0.30 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        (Math.random()-0.2)*0.05, 0.05 + Math.random() * 0.10,
-                        20 + Math.random() * 30, 2 + Math.random() * 5,
+            states.add(new TrainingState("coolant_early", earlyCount, r -> {
+                double vib = 2.0 + r.nextDouble() * 0.8;       // 2.0-2.8 mm/s
+                double temp = 60 + r.nextDouble() * 12;        // 60-72°C
+                double rpm = 7500 + r.nextDouble() * 1300;     // 7500-8800 RPM
+                double power = 22 + r.nextDouble() * 10;       // 22-32 kW
+                double pressure = 4.5 + r.nextDouble() * 1.0;  // 4.5-5.5 bar (starting to drop)
+                double torque = 42 + r.nextDouble() * 13;      // 42-55 Nm
+
+                int failed = r.nextDouble() < 0.30 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        (r.nextDouble()-0.2)*0.05, 0.05 + r.nextDouble() * 0.10,
+                        20 + r.nextDouble() * 30, 2 + r.nextDouble() * 5,
                         0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            }));
 
             // Moderate Stage
-            for (int i = 0; i < moderateCount; i++) {
-                double vib = 2.2 + Math.random() * 1.0;        // 2.2-3.2 mm/s
-                double temp = 72 + Math.random() * 13;         // 72-85°C
-                double rpm = 7200 + Math.random() * 1300;      // 7200-8500 RPM
-                double power = 24 + Math.random() * 11;        // 24-35 kW
-                double pressure = 3.5 + Math.random() * 1.3;   // 3.5-4.8 bar (LOW)
-                double torque = 44 + Math.random() * 14;       // 44-58 Nm
-
-                int failed = Math.random() < 0.80 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        0.01 + Math.random() * 0.05, 0.10 + Math.random() * 0.18,
-                        28 + Math.random() * 35, 3 + Math.random() * 6,
-                        Math.random() < 0.3 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            states.add(new TrainingState("coolant_moderate", moderateCount, r -> {
+                double vib = 2.2 + r.nextDouble() * 1.0;       // 2.2-3.2 mm/s
+                double temp = 72 + r.nextDouble() * 13;        // 72-85°C
+                double rpm = 7200 + r.nextDouble() * 1300;     // 7200-8500 RPM
+                double power = 24 + r.nextDouble() * 11;       // 24-35 kW
+                double pressure = 3.5 + r.nextDouble() * 1.3;  // 3.5-4.8 bar (LOW)
+                double torque = 44 + r.nextDouble() * 14;      // 44-58 Nm
+
+                int failed = r.nextDouble() < 0.80 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        0.01 + r.nextDouble() * 0.05, 0.10 + r.nextDouble() * 0.18,
+                        28 + r.nextDouble() * 35, 3 + r.nextDouble() * 6,
+                        r.nextDouble() < 0.3 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
+            }));
 
             // Critical Stage
-            for (int i = 0; i < criticalCount; i++) {
-                double vib = 2.5 + Math.random() * 1.3;        // 2.5-3.8 mm/s
-                double temp = 80 + Math.random() * 30;         // 80-110+°C
-                double rpm = 7000 + Math.random() * 1200;      // 7000-8200 RPM
-                double power = 25 + Math.random() * 13;        // 25-38 kW
-                double pressure = 2.0 + Math.random() * 2.0;   // 2.0-4.0 bar (VERY LOW!)
-                double torque = 42 + Math.random() * 16;       // 42-58 Nm
-
-                insertTrainingRow(vib/VIB_MAX, Math.min(temp/TEMP_MAX, 1.3),
-                        0.02 + Math.random() * 0.06, 0.15 + Math.random() * 0.30,
-                        35 + Math.random() * 45, 4 + Math.random() * 8,
-                        1 + (int)(Math.random() * 2), power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, 1);
-                totalInserted++;
-            }
-            distribution.put("coolant_early", earlyCount);
-            distribution.put("coolant_moderate", moderateCount);
-            distribution.put("coolant_critical", criticalCount);
+            states.add(new TrainingState("coolant_critical", criticalCount, r -> {
+                double vib = 2.5 + r.nextDouble() * 1.3;       // 2.5-3.8 mm/s
+                double temp = 80 + r.nextDouble() * 30;        // 80-110+°C
+                double rpm = 7000 + r.nextDouble() * 1200;     // 7000-8200 RPM
+                double power = 25 + r.nextDouble() * 13;       // 25-38 kW
+                double pressure = 2.0 + r.nextDouble() * 2.0;  // 2.0-4.0 bar (VERY LOW!)
+                double torque = 42 + r.nextDouble() * 16;      // 42-58 Nm
+
+                return trainingRow(vib/VIB_MAX, Math.min(temp/TEMP_MAX, 1.3),
+                        0.02 + r.nextDouble() * 0.06, 0.15 + r.nextDouble() * 0.30,
+                        35 + r.nextDouble() * 45, 4 + r.nextDouble() * 8,
+                        1 + (int)(r.nextDouble() * 2), power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, 1);
+            }));
 
             // ═══════════════════════════════════════════════════════════════════
             // SPINDLE WEAR — HIGH vibration ↑↑, HIGH torque ↑↑, LOW RPM ↓↓
             // ═══════════════════════════════════════════════════════════════════
 
             // Early Stage
-            for (int i = 0; i < earlyCount; i++) {
-                double vib = 2.5 + Math.random() * 1.0;        // 2.5-3.5 mm/s
-                double temp = 52 + Math.random() * 13;         // 52-65°C
-                double rpm = 7200 + Math.random() * 1300;      // 7200-8500 RPM (starting to drop)
-                double power = 28 + Math.random() * 10;        // 28-38 kW
-                double pressure = 5.0 + Math.random() * 1.0;   // 5.0-6.0 bar
-                double torque = 55 + Math.random() * 13;       // 55-68 Nm (rising)
-
-                int failed = Math.random() < 0.30 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        0.03 + Math.random() * 0.08, 0.02 + Math.random() * 0.06,
-                        25 + Math.random() * 30, 3 + Math.random() * 6,
-                        Math.random() < 0.2 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            states.add(new TrainingState("spindle_early", earlyCount, r -> {
+                double vib = 2.5 + r.nextDouble() * 1.0;       // 2.5-3.5 mm/s
+                double temp = 52 + r.nextDouble() * 13;        // 52-65°C
+                double rpm = 7200 + r.nextDouble() * 1300;     // 7200-8500 RPM (starting to drop)
+                double power = 28 + r.nextDouble() * 10;       // 28-38 kW
+                double pressure = 5.0 + r.nextDouble() * 1.0;  // 5.0-6.0 bar
+                double torque = 55 + r.nextDouble() * 13;      // 55-68 Nm (rising)
+
+                int failed = r.nextDouble() < 0.30 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        0.03 + r.nextDouble() * 0.08, 0.02 + r.nextDouble() * 0.06,
+                        25 + r.nextDouble() * 30, 3 + r.nextDouble() * 6,
+                        r.nextDouble() < 0.2 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
+            }));
 
             // Moderate Stage
-            for (int i = 0; i < moderateCount; i++) {
-                double vib = 3.2 + Math.random() * 1.3;        // 3.2-4.5 mm/s
-                double temp = 55 + Math.random() * 17;         // 55-72°C
-                double rpm = 6200 + Math.random() * 1600;      // 6200-7800 RPM (dropping)
-                double power = 30 + Math.random() * 12;        // 30-42 kW
-                double pressure = 4.8 + Math.random() * 1.0;   // 4.8-5.8 bar
-                double torque = 62 + Math.random() * 13;       // 62-75 Nm (HIGH)
-
-                int failed = Math.random() < 0.80 ? 1 : 0;
-                insertTrainingRow(vib/VIB_MAX, temp/TEMP_MAX,
-                        0.05 + Math.random() * 0.12, 0.03 + Math.random() * 0.08,
-                        35 + Math.random() * 35, 4 + Math.random() * 7,
-                        Math.random() < 0.4 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
-                totalInserted++;
-            }
+            states.add(new TrainingState("spindle_moderate", moderateCount, r -> {
+                double vib = 3.2 + r.nextDouble() * 1.3;       // 3.2-4.5 mm/s
+                double temp = 55 + r.nextDouble() * 17;        // 55-72°C
+                double rpm = 6200 + r.nextDouble() * 1600;     // 6200-7800 RPM (dropping)
+                double power = 30 + r.nextDouble() * 12;       // 30-42 kW
+                double pressure = 4.8 + r.nextDouble() * 1.0;  // 4.8-5.8 bar
+                double torque = 62 + r.nextDouble() * 13;      // 62-75 Nm (HIGH)
+
+                int failed = r.nextDouble() < 0.80 ? 1 : 0;
+                return trainingRow(vib/VIB_MAX, temp/TEMP_MAX,
+                        0.05 + r.nextDouble() * 0.12, 0.03 + r.nextDouble() * 0.08,
+                        35 + r.nextDouble() * 35, 4 + r.nextDouble() * 7,
+                        r.nextDouble() < 0.4 ? 1 : 0, power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, torque/TORQUE_MAX, failed);
+            }));
 
             // Critical Stage
-            for (int i = 0; i < criticalCount; i++) {
-                double vib = 3.8 + Math.random() * 2.7;        // 3.8-6.5 mm/s
-                double temp = 58 + Math.random() * 20;         // 58-78°C
-                double rpm = 5500 + Math.random() * 1700;      // 5500-7200 RPM (VERY LOW)
-                double power = 32 + Math.random() * 13;        // 32-45 kW
-                double pressure = 4.5 + Math.random() * 1.0;   // 4.5-5.5 bar
-                double torque = 68 + Math.random() * 22;       // 68-90 Nm (VERY HIGH!)
-
-                insertTrainingRow(Math.min(vib/VIB_MAX, 1.3), temp/TEMP_MAX,
-                        0.08 + Math.random() * 0.18, 0.04 + Math.random() * 0.10,
-                        45 + Math.random() * 45, 5 + Math.random() * 10,
-                        1 + (int)(Math.random() * 2), power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, Math.min(torque/TORQUE_MAX, 1.15), 1);
-                totalInserted++;
-            }
-            distribution.put("spindle_early", earlyCount);
-            distribution.put("spindle_moderate", moderateCount);
-            distribution.put("spindle_critical", criticalCount);
+            states.add(new TrainingState("spindle_critical", criticalCount, r -> {
+                double vib = 3.8 + r.nextDouble() * 2.7;       // 3.8-6.5 mm/s
+                double temp = 58 + r.nextDouble() * 20;        // 58-78°C
+                double rpm = 5500 + r.nextDouble() * 1700;     // 5500-7200 RPM (VERY LOW)
+                double power = 32 + r.nextDouble() * 13;       // 32-45 kW
+                double pressure = 4.5 + r.nextDouble() * 1.0;  // 4.5-5.5 bar
+                double torque = 68 + r.nextDouble() * 22;      // 68-90 Nm (VERY HIGH!)
+
+                return trainingRow(Math.min(vib/VIB_MAX, 1.3), temp/TEMP_MAX,
+                        0.08 + r.nextDouble() * 0.18, 0.04 + r.nextDouble() * 0.10,
+                        45 + r.nextDouble() * 45, 5 + r.nextDouble() * 10,
+                        1 + (int)(r.nextDouble() * 2), power/POWER_MAX, rpm/RPM_MAX, pressure/PRESSURE_MAX, Math.min(torque/TORQUE_MAX, 1.15), 1);
+            }));
+
+            SplittableRandom root = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+            int totalInserted = writeTrainingStates(states, root);
+            states.forEach(state -> distribution.put(state.name(), state.count()));
 
             long elapsed = System.currentTimeMillis() - start;
 
@@ -499,43 +567,92 @@ public class MLController {
                     "SELECT COUNT(*) FROM ml_training_data WHERE failed = 0", Integer.class);
             Integer failureTotal = jdbcTemplate.queryForObject(
                     "SELECT COUNT(*) FROM ml_training_data WHERE failed = 1", Integer.class);
-
-            log.info("Generated {} training observations ({} normal, {} failure) in {}ms",
-                    totalInserted, normalTotal, failureTotal, elapsed);
-
-            return Map.of(
-                    "success", true,
-                    "totalObservations", totalInserted,
-                    "normalObservations", normalTotal != null ? normalTotal : 0,
-                    "failureObservations", failureTotal != null ? failureTotal : 0,
-                    "patterns", 5,
-                    "stagesPerPattern", 3,
-                    "totalStates", 16,
-                    "distribution", distribution,
-                    "elapsedMs", elapsed,
-                    "message", "Comprehensive 16-state training data generated. Call /ml/retrain to train the model."
-            );
+            long rowsPerSecond = elapsed > 0 ? totalInserted * 1000L / elapsed : totalInserted;
+
+            log.info("Generated {} training observations ({} normal, {} failure) in {}ms ({} rows/s)",
+                    totalInserted, normalTotal, failureTotal, elapsed, rowsPerSecond);
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("success", true);
+            result.put("totalObservations", totalInserted);
+            result.put("normalObservations", normalTotal != null ? normalTotal : 0);
+            result.put("failureObservations", failureTotal != null ? failureTotal : 0);
+            result.put("patterns", 5);
+            result.put("stagesPerPattern", 3);
+            result.put("totalStates", 16);
+            result.put("distribution", distribution);
+            result.put("elapsedMs", elapsed);
+            result.put("rowsPerSecond", rowsPerSecond);
+            result.put("threads", trainingThreads);
+            result.put("chunkSize", trainingChunkSize);
+            result.put("message", "Comprehensive 16-state training data generated. Call /ml/retrain to train the model.");
+            return result;
 
         } catch (Exception e) {
             log.error("Training data generation failed: {}", e.getMessage());
-            return Map.of("success", false, "error", e.getMessage());
+            return Map.of("success", false, "error", String.valueOf(e.getMessage()));
+        }
+    }
+
+    /** One of the 16 training states: how many rows, and how to draw one. */
+    private record TrainingState(String name, int count, Function<SplittableRandom, Object[]> row) {}
+
+    private static final String INSERT_TRAINING_ROW = """
+        INSERT INTO ml_training_data
+        (vibration_normalized, temperature_normalized, vibration_trend_rate, temperature_trend_rate,
+         days_since_maintenance, equipment_age_years, anomaly_count,
+         power_normalized, rpm_normalized, pressure_normalized, torque_normalized, failed)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    /**
+     * Generate and insert every state on a bounded pool. Each state draws from
+     * its own split of root (split here, since SplittableRandom isn't
+     * thread-safe) and writes chunk by chunk, so memory stays at one chunk per thread.
+     */
+    private int writeTrainingStates(List<TrainingState> states, SplittableRandom root) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, trainingThreads));
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (TrainingState state : states) {
+                SplittableRandom random = root.split();
+                results.add(pool.submit(() -> {
+                    List<Object[]> chunk = new ArrayList<>(trainingChunkSize);
+                    for (int i = 0; i < state.count(); i++) {
+                        chunk.add(state.row().apply(random));
+                        if (chunk.size() == trainingChunkSize) {
+                            jdbcTemplate.batchUpdate(INSERT_TRAINING_ROW, chunk);
+                            chunk.clear();
+                        }
+                    }
+                    if (!chunk.isEmpty()) {
+                        jdbcTemplate.batchUpdate(INSERT_TRAINING_ROW, chunk);
+                    }
+                    return state.count();
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> result : results) {
+                try {
+                    total += result.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception cause ? cause : e;
+                }
+            }
+            return total;
+        } finally {
+            pool.shutdownNow();
         }
     }
 
-    private void insertTrainingRow(double vib, double temp, double vibTrend, double tempTrend,
-                                    double daysMaint, double age, int anomalies,
-                                    double power, double rpm, double pressure, double torque, int failed) {
-        jdbcTemplate.update("""
-            INSERT INTO ml_training_data
-            (vibration_normalized, temperature_normalized, vibration_trend_rate, temperature_trend_rate,
-             days_since_maintenance, equipment_age_years, anomaly_count,
-             power_normalized, rpm_normalized, pressure_normalized, torque_normalized, failed)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-            """,
+    private static Object[] trainingRow(double vib, double temp, double vibTrend, double tempTrend,
+                                        double daysMaint, double age, int anomalies,
+                                        double power, double rpm, double pressure, double torque, int failed) {
+        return new Object[] {
             Math.min(vib, 1.5), Math.min(temp, 1.2),
             Math.max(-0.5, Math.min(vibTrend, 0.5)), Math.max(-1.0, Math.min(tempTrend, 1.0)),
             Math.min(daysMaint, 90), Math.min(age, 20), anomalies,
-            Math.min(power, 1.2), Math.min(rpm, 1.0), Math.min(pressure, 1.0), Math.min(torque, 1.2), failed);
+            Math.min(power, 1.2), Math.min(rpm, 1.0), Math.min(pressure, 1.0), Math.min(torque, 1.2), failed};
     }
 
     /**
@@ -0,0 +1,48 @@
+package com.titan.maintenance.model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+/**
+ * Failure prediction and remaining useful life for one equipment, as returned
+ * by the fleet-wide assessment.
+ */
+public record FleetHealthEntry(
+    @JsonPropertyDescription("Equipment identifier")
+    String equipmentId,
+
+    @JsonPropertyDescription("Facility identifier")
+    String facilityId,
+
+    @JsonPropertyDescription("Equipment type code")
+    String equipmentType,
+
+    @JsonPropertyDescription("Failure probability (0.0 to 1.0)")
+    Double failureProbability,
+
+    @JsonPropertyDescription("Risk level: LOW, MEDIUM, HIGH, CRITICAL")
+    String riskLevel,
+
+    @JsonPropertyDescription("Predicted time to failure in hours")
+    Integer predictedHoursToFailure,
+
+    @JsonPropertyDescription("Estimated remaining useful life in hours")
+    Integer remainingHours,
+
+    @JsonPropertyDescription("Days since last maintenance")
+    Integer daysSinceLastMaintenance,
+
+    @JsonPropertyDescription("Recommended maintenance interval in days")
+    Integer recommendedIntervalDays,
+
+    @JsonPropertyDescription("Vibration trend over the last 7 days in mm/s per hour (null without data)")
+    Double vibrationTrendPerHour,
+
+    @JsonPropertyDescription("Temperature trend over the last 7 days in celsius per hour (null without data)")
+    Double temperatureTrendPerHour,
+
+    @JsonPropertyDescription("Confidence level of the prediction (0.0 to 1.0)")
+    Double confidenceScore,
+
+    @JsonPropertyDescription("Basis of the estimate: ML_MODEL, or FALLBACK when the model was unavailable")
+    String source
+) {}
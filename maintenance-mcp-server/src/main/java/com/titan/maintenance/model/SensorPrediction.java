@@ -0,0 +1,136 @@
+package com.titan.maintenance.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.apache.geode.pdx.PdxReader;
+import org.apache.geode.pdx.PdxSerializable;
+import org.apache.geode.pdx.PdxWriter;
+
+/**
+ * Real-time failure prediction stored in the GemFire SensorPredictions region.
+ *
+ * PDX-serialized: the server keeps entries in serialized form
+ * ({@code read-serialized=true}) and never needs this class, while OQL can still
+ * filter and sort on individual fields, e.g.
+ * {@code SELECT * FROM /SensorPredictions WHERE riskLevel = 'CRITICAL'}.
+ *
+ * Immutable once constructed; the no-arg constructor exists for PDX only.
+ */
+public final class SensorPrediction implements PdxSerializable {
+
+    private String equipmentId;
+    private String facilityId;
+    private double failureProbability;
+    private String riskLevel;
+    private String probableCause;
+    private double vibrationAvg;
+    private double temperatureAvg;
+    private double powerAvg;
+    private double rpmAvg;
+    private double pressureAvg;
+    private double torqueAvg;
+    private double vibrationTrend;
+    private double temperatureTrend;
+    private int readingsInWindow;
+    private String modelId;
+    private String scoringEngine;
+    private long scoredAtMillis;
+    private String scoredAt;
+
+    /** For PDX deserialization. */
+    public SensorPrediction() {
+    }
+
+    public SensorPrediction(String equipmentId, String facilityId, double failureProbability, String riskLevel,
+                            String probableCause, double vibrationAvg, double temperatureAvg, double powerAvg,
+                            double rpmAvg, double pressureAvg, double torqueAvg, double vibrationTrend,
+                            double temperatureTrend, int readingsInWindow, String modelId, String scoringEngine,
+                            long scoredAtMillis, String scoredAt) {
+        this.equipmentId = equipmentId;
+        this.facilityId = facilityId;
+        this.failureProbability = failureProbability;
+        this.riskLevel = riskLevel;
+        this.probableCause = probableCause;
+        this.vibrationAvg = vibrationAvg;
+        this.temperatureAvg = temperatureAvg;
+        this.powerAvg = powerAvg;
+        this.rpmAvg = rpmAvg;
+        this.pressureAvg = pressureAvg;
+        this.torqueAvg = torqueAvg;
+        this.vibrationTrend = vibrationTrend;
+        this.temperatureTrend = temperatureTrend;
+        this.readingsInWindow = readingsInWindow;
+        this.modelId = modelId;
+        this.scoringEngine = scoringEngine;
+        this.scoredAtMillis = scoredAtMillis;
+        this.scoredAt = scoredAt;
+    }
+
+    @Override
+    public void toData(PdxWriter writer) {
+        writer.writeString("equipmentId", equipmentId).markIdentityField("equipmentId")
+              .writeString("facilityId", facilityId)
+              .writeDouble("failureProbability", failureProbability)
+              .writeString("riskLevel", riskLevel)
+              .writeString("probableCause", probableCause)
+              .writeDouble("vibrationAvg", vibrationAvg)
+              .writeDouble("temperatureAvg", temperatureAvg)
+              .writeDouble("powerAvg", powerAvg)
+              .writeDouble("rpmAvg", rpmAvg)
+              .writeDouble("pressureAvg", pressureAvg)
+              .writeDouble("torqueAvg", torqueAvg)
+              .writeDouble("vibrationTrend", vibrationTrend)
+              .writeDouble("temperatureTrend", temperatureTrend)
+              .writeInt("readingsInWindow", readingsInWindow)
+              .writeString("modelId", modelId)
+              .writeString("scoringEngine", scoringEngine)
+              .writeLong("scoredAtMillis", scoredAtMillis)
+              .writeString("scoredAt", scoredAt);
+    }
+
+    @Override
+    public void fromData(PdxReader reader) {
+        equipmentId = reader.readString("equipmentId");
+        facilityId = reader.readString("facilityId");
+        failureProbability = reader.readDouble("failureProbability");
+        riskLevel = reader.readString("riskLevel");
+        probableCause = reader.readString("probableCause");
+        vibrationAvg = reader.readDouble("vibrationAvg");
+        temperatureAvg = reader.readDouble("temperatureAvg");
+        powerAvg = reader.readDouble("powerAvg");
+        rpmAvg = reader.readDouble("rpmAvg");
+        pressureAvg = reader.readDouble("pressureAvg");
+        torqueAvg = reader.readDouble("torqueAvg");
+        vibrationTrend = reader.readDouble("vibrationTrend");
+        temperatureTrend = reader.readDouble("temperatureTrend");
+        readingsInWindow = reader.readInt("readingsInWindow");
+        modelId = reader.readString("modelId");
+        scoringEngine = reader.readString("scoringEngine");
+        scoredAtMillis = reader.readLong("scoredAtMillis");
+        scoredAt = reader.readString("scoredAt");
+    }
+
+    public String getEquipmentId() { return equipmentId; }
+    public String getFacilityId() { return facilityId; }
+    public double getFailureProbability() { return failureProbability; }
+    public String getRiskLevel() { return riskLevel; }
+    public String getProbableCause() { return probableCause; }
+    public double getVibrationAvg() { return vibrationAvg; }
+    public double getTemperatureAvg() { return temperatureAvg; }
+    public double getPowerAvg() { return powerAvg; }
+    public double getRpmAvg() { return rpmAvg; }
+    public double getPressureAvg() { return pressureAvg; }
+    public double getTorqueAvg() { return torqueAvg; }
+    public double getVibrationTrend() { return vibrationTrend; }
+    public double getTemperatureTrend() { return temperatureTrend; }
+    public int getReadingsInWindow() { return readingsInWindow; }
+    public String getModelId() { return modelId; }
+    public String getScoringEngine() { return scoringEngine; }
+    @JsonIgnore
+    public long getScoredAtMillis() { return scoredAtMillis; }
+    public String getScoredAt() { return scoredAt; }
+
+    @Override
+    public String toString() {
+        return "SensorPrediction[" + equipmentId + " " + riskLevel + " " + failureProbability + " @ " + scoredAt + "]";
+    }
+}
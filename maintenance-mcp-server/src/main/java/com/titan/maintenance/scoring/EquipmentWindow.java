@@ -0,0 +1,228 @@
+package com.titan.maintenance.scoring;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Sliding window of recent sensor readings for one piece of equipment.
+ *
+ * Each {@link SensorChannel} has a fixed-capacity ring of primitive
+ * {@code long} timestamps and {@code double} values. Appending writes two array
+ * slots and bumps a tail index; readings older than the window (or overwritten
+ * when the ring is full) expire by advancing the head index, so nothing is
+ * copied or allocated after construction.
+ *
+ * Alongside the ring, each channel keeps running regression sums — Σx, Σy, Σxy,
+ * Σx², Σy² with x in hours since a per-channel anchor — added on arrival and
+ * subtracted on expiry, so scoring reads them in O(1) instead of rescanning the
+ * window. Once the anchor is a few windows old it is moved to the oldest
+ * reading and the sums are recomputed exactly from the ring, which bounds both
+ * the magnitude of x and accumulated add/subtract rounding. The gap between the
+ * running and the exact sums at that point is tracked as {@link #maxRelativeDrift()}.
+ *
+ * There is a single writer — the MQTT callback thread. Readers (the scoring
+ * thread) take a consistent copy through a sequence lock: the writer makes the
+ * version odd while it mutates, and a reader retries if the version changed
+ * underneath it.
+ */
+public final class EquipmentWindow {
+
+    private static final int MAX_READ_ATTEMPTS = 16;
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+    // Re-anchor once the anchor is this many windows old: O(capacity) work every few windows
+    private static final int REANCHOR_WINDOWS = 4;
+
+    // Indexes into each channel's running sums
+    static final int SUM_X = 0, SUM_Y = 1, SUM_XY = 2, SUM_X2 = 3, SUM_Y2 = 4, SUM_COUNT = 5;
+
+    private final long windowMs;
+    private final int capacity;
+    private final int mask;
+
+    private final long[][] times;
+    private final double[][] values;
+    private final long[] heads = new long[SensorChannel.COUNT];
+    private final long[] tails = new long[SensorChannel.COUNT];
+    private final long[] anchors = new long[SensorChannel.COUNT];
+    private final double[][] sums = new double[SensorChannel.COUNT][SUM_COUNT];
+    private final double[] exactScratch = new double[SUM_COUNT];
+
+    // Sequence lock: odd while the writer is mid-update
+    private volatile long version;
+
+    private volatile long reanchors;
+    private volatile double maxRelativeDrift;
+
+    public EquipmentWindow(int requestedCapacity, long windowMs) {
+        int cap = ringSize(requestedCapacity);
+        this.capacity = cap;
+        this.mask = cap - 1;
+        this.windowMs = windowMs;
+        this.times = new long[SensorChannel.COUNT][cap];
+        this.values = new double[SensorChannel.COUNT][cap];
+    }
+
+    /** Per-channel ring size for a requested capacity (rounded up to a power of two). */
+    public static int ringSize(int requestedCapacity) {
+        return Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** Number of times running sums were recomputed from the ring. */
+    public long reanchors() {
+        return reanchors;
+    }
+
+    /** Largest relative gap between running and exact sums observed at a re-anchor. */
+    public double maxRelativeDrift() {
+        return maxRelativeDrift;
+    }
+
+    /** Append a reading. Writer thread only. */
+    public void append(SensorChannel channel, long timestamp, double value) {
+        int c = channel.ordinal();
+        long v = version;
+        version = v + 1;
+        VarHandle.storeStoreFence();
+
+        long[] ts = times[c];
+        double[] vs = values[c];
+        double[] s = sums[c];
+        long anchor = anchors[c];
+        long h = heads[c];
+        long t = tails[c];
+
+        if (t - h == capacity) {
+            // Full: the slot we are about to write holds the oldest reading
+            int oldest = (int) (h & mask);
+            accumulate(s, (ts[oldest] - anchor) / MILLIS_PER_HOUR, vs[oldest], -1);
+            h++;
+        }
+        int i = (int) (t & mask);
+        ts[i] = timestamp;
+        vs[i] = value;
+        accumulate(s, (timestamp - anchor) / MILLIS_PER_HOUR, value, 1);
+        t++;
+
+        long cutoff = timestamp - windowMs;
+        while (h < t && ts[(int) (h & mask)] < cutoff) {
+            int e = (int) (h & mask);
+            accumulate(s, (ts[e] - anchor) / MILLIS_PER_HOUR, vs[e], -1);
+            h++;
+        }
+        heads[c] = h;
+        tails[c] = t;
+
+        if (timestamp - anchor > REANCHOR_WINDOWS * windowMs) {
+            reanchor(c, h, t);
+        }
+
+        version = v + 2;
+    }
+
+    static void accumulate(double[] s, double x, double y, int sign) {
+        s[SUM_X] += sign * x;
+        s[SUM_Y] += sign * y;
+        s[SUM_XY] += sign * x * y;
+        s[SUM_X2] += sign * x * x;
+        s[SUM_Y2] += sign * y * y;
+    }
+
+    /** Move the anchor to the oldest reading and recompute the sums exactly from the ring. */
+    private void reanchor(int c, long h, long t) {
+        long[] ts = times[c];
+        double[] vs = values[c];
+        double[] s = sums[c];
+        long oldAnchor = anchors[c];
+
+        // Batch recomputation against the old anchor: how far did the running sums drift?
+        if (oldAnchor != 0) {
+            double[] exact = exactScratch;
+            Arrays.fill(exact, 0.0);
+            for (long q = h; q < t; q++) {
+                int i = (int) (q & mask);
+                accumulate(exact, (ts[i] - oldAnchor) / MILLIS_PER_HOUR, vs[i], 1);
+            }
+            double drift = 0;
+            for (int k = 0; k < SUM_COUNT; k++) {
+                drift = Math.max(drift, Math.abs(s[k] - exact[k]) / Math.max(1.0, Math.abs(exact[k])));
+            }
+            if (drift > maxRelativeDrift) {
+                maxRelativeDrift = drift;
+            }
+        }
+
+        long anchor = ts[(int) (h & mask)];
+        Arrays.fill(s, 0.0);
+        for (long q = h; q < t; q++) {
+            int i = (int) (q & mask);
+            accumulate(s, (ts[i] - anchor) / MILLIS_PER_HOUR, vs[i], 1);
+        }
+        anchors[c] = anchor;
+        reanchors++;
+    }
+
+    /**
+     * Copy the running statistics of every channel into {@code out}, excluding
+     * readings before {@code cutoff}. Channels that have gone quiet still hold
+     * their last readings; that stale prefix is subtracted from the copy here
+     * rather than waiting for the writer's next append to expire it.
+     *
+     * @return false if a consistent copy couldn't be taken (writer kept racing)
+     */
+    public boolean read(long cutoff, WindowSnapshot out) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long v = version;
+            if ((v & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (!copy(cutoff, out)) {
+                continue;
+            }
+            VarHandle.loadLoadFence();
+            if (version == v) {
+                return true;
+            }
+        }
+        out.clear();
+        return false;
+    }
+
+    private boolean copy(long cutoff, WindowSnapshot out) {
+        for (int c = 0; c < SensorChannel.COUNT; c++) {
+            long h = heads[c];
+            long t = tails[c];
+            if (t - h < 0 || t - h > capacity) {
+                return false; // torn read of head/tail, retry
+            }
+            long[] ts = times[c];
+            double[] vs = values[c];
+            long anchor = anchors[c];
+            double[] dst = out.sums[c];
+            System.arraycopy(sums[c], 0, dst, 0, SUM_COUNT);
+
+            while (h < t && ts[(int) (h & mask)] < cutoff) {
+                int e = (int) (h & mask);
+                accumulate(dst, (ts[e] - anchor) / MILLIS_PER_HOUR, vs[e], -1);
+                h++;
+            }
+
+            int n = (int) (t - h);
+            out.counts[c] = n;
+            out.anchors[c] = anchor;
+            if (n == 0) {
+                Arrays.fill(dst, 0.0);
+                out.firstTimes[c] = 0;
+                out.lastTimes[c] = 0;
+            } else {
+                out.firstTimes[c] = ts[(int) (h & mask)];
+                out.lastTimes[c] = ts[(int) ((t - 1) & mask)];
+            }
+        }
+        return true;
+    }
+}
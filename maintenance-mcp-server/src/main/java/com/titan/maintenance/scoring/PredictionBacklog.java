@@ -0,0 +1,77 @@
+package com.titan.maintenance.scoring;
+
+import com.titan.maintenance.model.SensorPrediction;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Predictions scored locally while GemFire was unreachable, waiting to be
+ * written back to the SensorPredictions region.
+ *
+ * Keyed by equipment ID, so a newer prediction replaces the queued one and the
+ * backlog never holds more than one entry per equipment. The capacity bound
+ * only matters if the fleet is larger than it; then the oldest entries are
+ * dropped and counted.
+ */
+public final class PredictionBacklog {
+
+    private final int capacity;
+    private final LinkedHashMap<String, SensorPrediction> pending = new LinkedHashMap<>();
+    private long dropped;
+
+    public PredictionBacklog(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public synchronized void add(String equipmentId, SensorPrediction prediction) {
+        // Re-insert so the entry moves to the young end
+        pending.remove(equipmentId);
+        pending.put(equipmentId, prediction);
+        if (pending.size() > capacity) {
+            Iterator<String> oldest = pending.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+            dropped++;
+        }
+    }
+
+    /** Remove and return up to {@code max} of the oldest entries. */
+    public synchronized Map<String, SensorPrediction> take(int max) {
+        Map<String, SensorPrediction> chunk = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, SensorPrediction>> it = pending.entrySet().iterator();
+        while (it.hasNext() && chunk.size() < max) {
+            Map.Entry<String, SensorPrediction> entry = it.next();
+            chunk.put(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+        return chunk;
+    }
+
+    /** Put back a chunk that couldn't be written, unless a newer prediction arrived meanwhile. */
+    public synchronized void restore(Map<String, SensorPrediction> chunk) {
+        for (Map.Entry<String, SensorPrediction> entry : chunk.entrySet()) {
+            if (pending.containsKey(entry.getKey())) {
+                continue;
+            }
+            if (pending.size() < capacity) {
+                pending.put(entry.getKey(), entry.getValue());
+            } else {
+                dropped++;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized long dropped() {
+        return dropped;
+    }
+
+    public synchronized void clear() {
+        pending.clear();
+    }
+}
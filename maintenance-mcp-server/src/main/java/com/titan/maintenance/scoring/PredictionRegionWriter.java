@@ -0,0 +1,112 @@
+package com.titan.maintenance.scoring;
+
+import com.titan.common.metrics.LatencyRecorder;
+import com.titan.maintenance.model.SensorPrediction;
+import org.apache.geode.cache.Region;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes predictions to the SensorPredictions region with {@code putAll} in
+ * fixed-size chunks, so a sweep costs one round trip per chunk instead of one
+ * per equipment.
+ *
+ * A chunk that fails is retried one key at a time, so a single bad entry only
+ * loses itself. If the individual retries keep failing the server is most
+ * likely gone; the rest of the chunk is then given up without further round
+ * trips and reported back to the caller.
+ */
+public final class PredictionRegionWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionRegionWriter.class);
+
+    // Consecutive single-key failures after which a chunk's remaining keys are given up
+    private static final int MAX_CONSECUTIVE_KEY_FAILURES = 3;
+
+    private final int chunkSize;
+    private final LatencyRecorder chunkLatency = new LatencyRecorder(1024);
+    private final AtomicLong chunksWritten = new AtomicLong(0);
+    private final AtomicLong chunksFailed = new AtomicLong(0);
+    private final AtomicLong entriesWritten = new AtomicLong(0);
+    private final AtomicLong keysRetried = new AtomicLong(0);
+    private final AtomicLong keysFailed = new AtomicLong(0);
+
+    public PredictionRegionWriter(int chunkSize) {
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Write all predictions.
+     *
+     * @return the entries that could not be written (empty if all succeeded)
+     */
+    public Map<String, SensorPrediction> write(Region<String, SensorPrediction> region, Map<String, SensorPrediction> predictions) {
+        Map<String, SensorPrediction> failed = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, SensorPrediction>> it = predictions.entrySet().iterator();
+        Map<String, SensorPrediction> chunk = new LinkedHashMap<>();
+        while (it.hasNext()) {
+            chunk.clear();
+            while (it.hasNext() && chunk.size() < chunkSize) {
+                Map.Entry<String, SensorPrediction> entry = it.next();
+                chunk.put(entry.getKey(), entry.getValue());
+            }
+            writeChunk(region, chunk, failed);
+        }
+        return failed;
+    }
+
+    private void writeChunk(Region<String, SensorPrediction> region, Map<String, SensorPrediction> chunk, Map<String, SensorPrediction> failed) {
+        long start = System.nanoTime();
+        try {
+            region.putAll(chunk);
+            chunkLatency.record((System.nanoTime() - start) / 1_000_000);
+            chunksWritten.incrementAndGet();
+            entriesWritten.addAndGet(chunk.size());
+            return;
+        } catch (RuntimeException e) {
+            chunksFailed.incrementAndGet();
+            log.debug("putAll of {} predictions failed, retrying individually: {}", chunk.size(), e.getMessage());
+        }
+
+        int consecutiveFailures = 0;
+        List<String> keys = new ArrayList<>(chunk.keySet());
+        for (String key : keys) {
+            if (consecutiveFailures >= MAX_CONSECUTIVE_KEY_FAILURES) {
+                failed.put(key, chunk.get(key));
+                keysFailed.incrementAndGet();
+                continue;
+            }
+            keysRetried.incrementAndGet();
+            try {
+                region.put(key, chunk.get(key));
+                entriesWritten.incrementAndGet();
+                consecutiveFailures = 0;
+            } catch (RuntimeException e) {
+                consecutiveFailures++;
+                failed.put(key, chunk.get(key));
+                keysFailed.incrementAndGet();
+                log.debug("Prediction write failed for {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    /** Chunk size, counters and putAll latency percentiles (ms). */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("chunkSize", chunkSize);
+        stats.put("chunksWritten", chunksWritten.get());
+        stats.put("chunksFailed", chunksFailed.get());
+        stats.put("entriesWritten", entriesWritten.get());
+        stats.put("keysRetried", keysRetried.get());
+        stats.put("keysFailed", keysFailed.get());
+        stats.put("chunkLatencyMs", chunkLatency.summary());
+        return stats;
+    }
+}
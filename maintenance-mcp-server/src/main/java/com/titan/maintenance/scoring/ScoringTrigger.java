@@ -0,0 +1,105 @@
+package com.titan.maintenance.scoring;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-equipment bookkeeping for event-driven scoring.
+ *
+ * The MQTT callback thread reports each reading through {@link #onReading}, which
+ * says whether the window changed enough to rescore now: enough new readings, or
+ * a sensor's quality flag changed severity. Readings not yet covered by a score
+ * are tracked so the scorer can measure reading-to-publish latency and the
+ * staleness check can catch equipment that never reaches a trigger.
+ *
+ * {@link #tryStart()} / {@link #finish()} coalesce requests so an equipment never
+ * has more than one score in flight: a request that arrives while a score is
+ * running just marks it for one more pass.
+ */
+public final class ScoringTrigger {
+
+    private final AtomicBoolean inFlight = new AtomicBoolean(false);
+    private volatile boolean rescoreRequested;
+
+    private final AtomicInteger pendingReadings = new AtomicInteger(0);
+    private volatile long oldestPendingMillis;
+
+    // MQTT thread only: last quality severity per channel (0 GOOD, 1 WARNING, 2 CRITICAL/BAD)
+    private final byte[] lastSeverity = new byte[SensorChannel.COUNT];
+
+    /**
+     * Record a reading. MQTT callback thread only.
+     *
+     * @return true if the reading should trigger a rescore
+     */
+    public boolean onReading(SensorChannel channel, long readingMillis, String qualityFlag, int readingsTrigger) {
+        if (pendingReadings.getAndIncrement() == 0) {
+            oldestPendingMillis = readingMillis;
+        }
+        byte severity = severity(qualityFlag);
+        boolean crossed = severity != lastSeverity[channel.ordinal()];
+        lastSeverity[channel.ordinal()] = severity;
+        return crossed || pendingReadings.get() >= readingsTrigger;
+    }
+
+    /**
+     * Take ownership of the pending readings before scoring.
+     *
+     * @return timestamp of the oldest reading not yet covered by a score, or
+     *         {@link Long#MIN_VALUE} if there were none
+     */
+    public long claimPending() {
+        long oldest = oldestPendingMillis;
+        return pendingReadings.getAndSet(0) > 0 ? oldest : Long.MIN_VALUE;
+    }
+
+    /** True if readings have been waiting longer than {@code maxStalenessMs}. */
+    public boolean isStale(long now, long maxStalenessMs) {
+        return pendingReadings.get() > 0 && now - oldestPendingMillis >= maxStalenessMs;
+    }
+
+    /**
+     * Claim the in-flight slot. If a score is already running, mark it to go round
+     * once more instead.
+     *
+     * @return true if the caller should start scoring
+     */
+    public boolean tryStart() {
+        // Raise the flag before the CAS: if the running score finishes in between,
+        // its finish() sees the flag (or our CAS succeeds), so the request isn't lost
+        rescoreRequested = true;
+        if (inFlight.compareAndSet(false, true)) {
+            rescoreRequested = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Release the in-flight slot after a score.
+     *
+     * @return true if another request arrived meanwhile and the caller should score again
+     */
+    public boolean finish() {
+        inFlight.set(false);
+        if (rescoreRequested && inFlight.compareAndSet(false, true)) {
+            rescoreRequested = false;
+            return true;
+        }
+        return false;
+    }
+
+    /** Release the in-flight slot without scoring (e.g. the executor rejected the task). */
+    public void abort() {
+        inFlight.set(false);
+    }
+
+    private static byte severity(String qualityFlag) {
+        if (qualityFlag == null) return 0;
+        return switch (qualityFlag) {
+            case "WARNING" -> 1;
+            case "CRITICAL", "BAD" -> 2;
+            default -> 0;
+        };
+    }
+}
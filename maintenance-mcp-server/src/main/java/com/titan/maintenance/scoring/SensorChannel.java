@@ -0,0 +1,29 @@
+package com.titan.maintenance.scoring;
+
+/**
+ * Sensor types tracked by the scoring windows. The ordinal indexes the
+ * per-channel ring buffers in {@link EquipmentWindow}.
+ */
+public enum SensorChannel {
+    VIBRATION,
+    TEMPERATURE,
+    POWER,
+    SPINDLE_SPEED,
+    PRESSURE,
+    TORQUE;
+
+    public static final int COUNT = values().length;
+
+    /** Map an MQTT {@code sensorType} to its channel, or null if it isn't scored. */
+    public static SensorChannel of(String sensorType) {
+        return switch (sensorType) {
+            case "vibration" -> VIBRATION;
+            case "temperature" -> TEMPERATURE;
+            case "power", "power_draw" -> POWER;
+            case "spindle_speed" -> SPINDLE_SPEED;
+            case "pressure" -> PRESSURE;
+            case "torque" -> TORQUE;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.titan.maintenance.scoring;
+
+import java.util.Arrays;
+
+import static com.titan.maintenance.scoring.EquipmentWindow.*;
+
+/**
+ * Reusable, per-scoring-thread copy of an {@link EquipmentWindow}'s running
+ * statistics, filled by {@link EquipmentWindow#read}. Averages, trend slope and
+ * R² are derived from the copied sums in O(1).
+ */
+public final class WindowSnapshot {
+
+    final int[] counts = new int[SensorChannel.COUNT];
+    final double[][] sums = new double[SensorChannel.COUNT][SUM_COUNT];
+    final long[] firstTimes = new long[SensorChannel.COUNT];
+    final long[] lastTimes = new long[SensorChannel.COUNT];
+    // Time origin of each channel's sums (x = hours since anchor)
+    final long[] anchors = new long[SensorChannel.COUNT];
+
+    public int count(SensorChannel channel) {
+        return counts[channel.ordinal()];
+    }
+
+    /** Readings across all channels. */
+    public int total() {
+        int n = 0;
+        for (int c : counts) {
+            n += c;
+        }
+        return n;
+    }
+
+    /** Mean value of the channel, or {@code defaultValue} if it has no readings. */
+    public double mean(SensorChannel channel, double defaultValue) {
+        int c = channel.ordinal();
+        return counts[c] > 0 ? sums[c][SUM_Y] / counts[c] : defaultValue;
+    }
+
+    /** Time between the oldest and newest reading of the channel, in hours. */
+    public double spanHours(SensorChannel channel) {
+        int c = channel.ordinal();
+        return (lastTimes[c] - firstTimes[c]) / 3_600_000.0;
+    }
+
+    /**
+     * Least-squares linear regression slope (per hour) and R² of the channel.
+     * Returns [slope_per_hour, r_squared]. R² indicates how much variance is explained
+     * by the trend — low R² means the slope is just noise.
+     */
+    public double[] leastSquaresFit(SensorChannel channel) {
+        int c = channel.ordinal();
+        int n = counts[c];
+        if (n < 2) return new double[]{0.0, 0.0};
+
+        double[] s = sums[c];
+        double denomX = n * s[SUM_X2] - s[SUM_X] * s[SUM_X];
+        if (Math.abs(denomX) < 1e-12) return new double[]{0.0, 0.0};
+
+        double covariance = n * s[SUM_XY] - s[SUM_X] * s[SUM_Y];
+        double slope = covariance / denomX;
+
+        // R² = (correlation coefficient)²
+        double denomY = n * s[SUM_Y2] - s[SUM_Y] * s[SUM_Y];
+        double r2 = 0.0;
+        if (Math.abs(denomY) > 1e-12) {
+            double r = covariance / Math.sqrt(denomX * denomY);
+            r2 = r * r;
+        }
+        return new double[]{slope, r2};
+    }
+
+    /**
+     * Value of the channel's regression line at {@code timestamp}, or NaN if it
+     * has fewer than two readings. Lets tests check the intercept the sums imply.
+     */
+    double fittedValue(SensorChannel channel, long timestamp) {
+        int c = channel.ordinal();
+        int n = counts[c];
+        if (n < 2) return Double.NaN;
+        double[] s = sums[c];
+        double slope = leastSquaresFit(channel)[0];
+        double intercept = (s[SUM_Y] - slope * s[SUM_X]) / n;
+        return intercept + slope * (timestamp - anchors[c]) / 3_600_000.0;
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+    }
+}
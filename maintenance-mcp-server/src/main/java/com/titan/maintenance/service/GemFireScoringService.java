@@ -15,20 +15,49 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import com.titan.common.codec.ByteStringInterner;
+import com.titan.common.codec.MutableSensorFrame;
+import com.titan.common.codec.MutableSensorReading;
+import com.titan.common.codec.SensorPayloadDecoder;
+import com.titan.common.metrics.LatencyRecorder;
+import com.titan.common.scoring.LogisticRegressionScorer;
 import com.titan.maintenance.model.AnomalyEvent;
+import com.titan.maintenance.model.SensorPrediction;
+import com.titan.maintenance.scoring.EquipmentWindow;
+import com.titan.maintenance.scoring.PredictionBacklog;
+import com.titan.maintenance.scoring.PredictionRegionWriter;
+import com.titan.maintenance.scoring.SensorChannel;
+import com.titan.maintenance.scoring.ScoringTrigger;
+import com.titan.maintenance.scoring.WindowSnapshot;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
  * Real-time PMML scoring service.
  * Subscribes to MQTT sensor data, scores with the logistic regression model,
  * and writes predictions to GemFire SensorPredictions region.
+ *
+ * Two scoring modes ({@code scoring.mode}):
+ *   sweep — score every equipment on a fixed 30 s schedule (default)
+ *   event — rescore an equipment as soon as its window changes materially
+ *           (N new readings, a quality-flag severity change, or max staleness),
+ *           on a bounded executor with at most one score in flight per equipment
  */
 @Service
 public class GemFireScoringService implements MqttCallback {
@@ -45,10 +74,18 @@ public class GemFireScoringService implements MqttCallback {
 
     private static final String MODEL_ID = "failure_predictor_v1";
 
+    // Feature vector layout sent to PmmlBatchScoringFunction; the server maps names to the model's inputs
+    private static final String[] FEATURE_NAMES = {
+        "vibration_normalized", "temperature_normalized", "vibration_trend_rate", "temperature_trend_rate",
+        "days_since_maintenance", "equipment_age_years", "anomaly_count",
+        "power_normalized", "rpm_normalized", "pressure_normalized", "torque_normalized"
+    };
+
     // Sliding window: 3 minutes of readings
     private static final long WINDOW_MS = 3 * 60 * 1000;
 
     private final GemFireService gemFireService;
+    private final PredictionQueryService predictionQueryService;
     private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
     private final RabbitTemplate rabbitTemplate;
@@ -56,8 +93,8 @@ public class GemFireScoringService implements MqttCallback {
     // Track published alerts to avoid duplicates (cleared when equipment recovers)
     private final Set<String> publishedAlerts = ConcurrentHashMap.newKeySet();
 
-    // Consecutive scoring cycle failures — triggers GemFire reconnect after threshold
-    private int consecutiveScoringFailures = 0;
+    // Consecutive scoring cycle failures, counted by the scheduled sweep — triggers GemFire reconnect after threshold
+    private final AtomicInteger consecutiveScoringFailures = new AtomicInteger(0);
     private static final int RECONNECT_THRESHOLD = 3;
 
     // Per-equipment max anomaly level: "CRITICAL" (all), "HIGH" (HIGH only), "NONE" (disabled)
@@ -81,6 +118,16 @@ public class GemFireScoringService implements MqttCallback {
     @Value("${mqtt.topic:titan/sensors/#}")
     private String mqttTopic;
 
+    @Value("${mqtt.frame-topic:titan/frames/#}")
+    private String mqttFrameTopic;
+
+    @Value("${mqtt.dictionary-topic:titan/codec/dictionary/#}")
+    private String mqttDictionaryTopic;
+
+    // Topic filters minus their trailing '#'
+    private String mqttFramePrefix;
+    private String mqttDictionaryPrefix;
+
     @Value("${generator.url:http://sensor-data-generator:8090}")
     private String generatorUrl;
 
@@ -90,16 +137,83 @@ public class GemFireScoringService implements MqttCallback {
     @Value("${anomaly.high-routing-key:anomaly.high}")
     private String highRoutingKey;
 
+    @Value("${scoring.window-capacity:256}")
+    private int windowCapacity;
+
+    @Value("${scoring.batch-size:500}")
+    private int scoringBatchSize;
+
+    @Value("${scoring.write-chunk-size:100}")
+    private int writeChunkSize;
+
+    @Value("${scoring.mode:sweep}")
+    private String scoringMode;
+
+    @Value("${scoring.event.readings-trigger:12}")
+    private int readingsTrigger;
+
+    @Value("${scoring.event.max-staleness-ms:10000}")
+    private long maxStalenessMs;
+
+    @Value("${scoring.event.threads:4}")
+    private int eventThreads;
+
+    @Value("${scoring.event.queue-capacity:1024}")
+    private int eventQueueCapacity;
+
+    @Value("${scoring.fallback.enabled:true}")
+    private boolean fallbackEnabled;
+
+    @Value("${scoring.fallback.backlog-capacity:10000}")
+    private int backlogCapacity;
+
     private MqttClient mqttClient;
 
-    // equipmentId → list of timestamped readings
-    private final ConcurrentHashMap<String, CopyOnWriteArrayList<SensorSnapshot>> sensorWindows = new ConcurrentHashMap<>();
+    // Streaming payload decoding: IDs resolve to shared strings, one reading object reused per message
+    private final ByteStringInterner interner = new ByteStringInterner(4096);
+    private final SensorPayloadDecoder payloadDecoder = new SensorPayloadDecoder(interner);
+    private final MutableSensorReading reading = new MutableSensorReading();
+    private final MutableSensorFrame frame = new MutableSensorFrame();
+
+    // equipmentId → per-sensor primitive ring buffers (written only by the MQTT callback thread)
+    private final ConcurrentHashMap<String, EquipmentWindow> sensorWindows = new ConcurrentHashMap<>();
+
+    // equipmentId → event-scoring trigger state (pending readings, in-flight flag)
+    private final ConcurrentHashMap<String, ScoringTrigger> scoringTriggers = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor eventExecutor;
+    private volatile boolean eventMode;
+    private final AtomicLong eventsTriggered = new AtomicLong(0);
+    private final AtomicLong eventsRejected = new AtomicLong(0);
+    private final AtomicLong eventFailures = new AtomicLong(0);
+
+    // Oldest unscored reading timestamp → prediction written / anomaly event published
+    private final LatencyRecorder scoreLatency = new LatencyRecorder(4096);
+    private final LatencyRecorder detectionLatency = new LatencyRecorder(1024);
+
+    // Local fallback: while GemFire is unreachable, score in-process from the PMML
+    // cached on disk at deploy time and hold predictions until they can be written back
+    private PredictionBacklog predictionBacklog;
+    private PredictionRegionWriter predictionWriter;
+    private volatile LogisticRegressionScorer localScorer;
+    private volatile long localModelModified;
+    private final AtomicBoolean localMode = new AtomicBoolean(false);
+    private volatile Instant lastModeSwitch;
+    private final AtomicLong modeSwitches = new AtomicLong(0);
+    private final AtomicLong locallyScored = new AtomicLong(0);
+    private final AtomicLong backlogWrittenBack = new AtomicLong(0);
+
+    // Reusable copy of a window per scoring thread
+    private final ThreadLocal<WindowSnapshot> scratchSnapshot =
+        ThreadLocal.withInitial(WindowSnapshot::new);
 
     // Cached equipment metadata from Greenplum (loaded once)
     private final Map<String, EquipmentMeta> equipmentMeta = new ConcurrentHashMap<>();
 
-    public GemFireScoringService(GemFireService gemFireService, JdbcTemplate jdbcTemplate, RabbitTemplate rabbitTemplate) {
+    public GemFireScoringService(GemFireService gemFireService, PredictionQueryService predictionQueryService,
+                                 JdbcTemplate jdbcTemplate, RabbitTemplate rabbitTemplate) {
         this.gemFireService = gemFireService;
+        this.predictionQueryService = predictionQueryService;
         this.jdbcTemplate = jdbcTemplate;
         this.rabbitTemplate = rabbitTemplate;
         this.objectMapper = new ObjectMapper();
@@ -135,11 +249,34 @@ public class GemFireScoringService implements MqttCallback {
     @PostConstruct
     public void start() {
         loadEquipmentMetadata();
+        predictionBacklog = new PredictionBacklog(backlogCapacity);
+        predictionWriter = new PredictionRegionWriter(writeChunkSize);
+        eventMode = "event".equalsIgnoreCase(scoringMode);
+        mqttFramePrefix = mqttFrameTopic.endsWith("#")
+            ? mqttFrameTopic.substring(0, mqttFrameTopic.length() - 1) : mqttFrameTopic;
+        mqttDictionaryPrefix = mqttDictionaryTopic.endsWith("#")
+            ? mqttDictionaryTopic.substring(0, mqttDictionaryTopic.length() - 1) : mqttDictionaryTopic;
+        if (eventMode) {
+            AtomicInteger threadCount = new AtomicInteger();
+            eventExecutor = new ThreadPoolExecutor(eventThreads, eventThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(eventQueueCapacity), r -> {
+                    Thread t = new Thread(r, "event-scorer-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+            log.info("Event-driven scoring enabled ({} readings, {} ms max staleness, {} threads)",
+                     readingsTrigger, maxStalenessMs, eventThreads);
+        } else {
+            log.info("Sweep scoring enabled (every 30 s)");
+        }
         connectMqtt();
     }
 
     @PreDestroy
     public void stop() {
+        if (eventExecutor != null) {
+            eventExecutor.shutdownNow();
+        }
         if (mqttClient != null && mqttClient.isConnected()) {
             try {
                 mqttClient.disconnect();
@@ -164,6 +301,8 @@ public class GemFireScoringService implements MqttCallback {
                 double age = ((Number) row.get("equipment_age_years")).doubleValue();
                 equipmentMeta.put(id, new EquipmentMeta(Math.min(days, 90), Math.min(age, 20)));
             }
+            interner.addAll(equipmentMeta.keySet());
+            interner.addAll(List.of("vibration", "temperature", "spindle_speed", "torque", "pressure", "power"));
             log.info("Loaded metadata for {} equipment from Greenplum", equipmentMeta.size());
         } catch (Exception e) {
             log.warn("Failed to load equipment metadata: {}. Using defaults.", e.getMessage());
@@ -180,8 +319,10 @@ public class GemFireScoringService implements MqttCallback {
             options.setCleanSession(true);
             mqttClient.setCallback(this);
             mqttClient.connect(options);
-            mqttClient.subscribe(mqttTopic, 0);
-            log.info("MQTT connected to {} — subscribing to {}", mqttBroker, mqttTopic);
+            // Dictionary first (QoS 1), so its retained messages arrive before binary readings
+            mqttClient.subscribe(new String[] { mqttDictionaryTopic, mqttTopic, mqttFrameTopic }, new int[] { 1, 0, 0 });
+            log.info("MQTT connected to {} — subscribing to {}, {}, {}", mqttBroker,
+                     mqttDictionaryTopic, mqttTopic, mqttFrameTopic);
         } catch (MqttException e) {
             log.warn("MQTT connection failed ({}). Scoring will retry.", e.getMessage());
         }
@@ -197,18 +338,66 @@ public class GemFireScoringService implements MqttCallback {
     @Override
     public void messageArrived(String topic, MqttMessage message) {
         try {
-            JsonNode json = objectMapper.readTree(message.getPayload());
-            String equipmentId = json.get("equipmentId").asText();
-            String sensorType = json.get("sensorType").asText();
-            double value = json.get("value").asDouble();
+            if (topic.startsWith(mqttDictionaryPrefix)) {
+                int entries = payloadDecoder.loadDictionary(message.getPayload());
+                log.info("Binary dictionary on {}: {}", topic, entries < 0 ? "malformed" : entries + " equipment");
+                return;
+            }
+            if (topic.startsWith(mqttFramePrefix)) {
+                onFrame(message.getPayload());
+                return;
+            }
+            MutableSensorReading r = reading;
+            if (!payloadDecoder.decode(message.getPayload(), r)) {
+                return; // malformed
+            }
 
-            SensorSnapshot snap = new SensorSnapshot(sensorType, value, System.currentTimeMillis());
-            sensorWindows.computeIfAbsent(equipmentId, k -> new CopyOnWriteArrayList<>()).add(snap);
+            SensorChannel channel = SensorChannel.of(r.sensorType);
+            if (channel == null) {
+                return; // not a scored sensor type
+            }
+            long now = System.currentTimeMillis();
+            sensorWindows.computeIfAbsent(r.equipmentId, k -> new EquipmentWindow(windowCapacity, WINDOW_MS))
+                .append(channel, now, r.value);
+
+            ScoringTrigger trigger = scoringTriggers.computeIfAbsent(r.equipmentId, k -> new ScoringTrigger());
+            long readingMillis = r.hasTimestamp() ? r.epochMillis : now;
+            if (trigger.onReading(channel, readingMillis, r.qualityFlag, readingsTrigger) && eventMode) {
+                requestScore(r.equipmentId, trigger);
+            }
         } catch (Exception e) {
             // silently drop malformed messages
         }
     }
 
+    /** All sensors of one equipment: one window and trigger lookup, at most one score request. */
+    private void onFrame(byte[] payload) {
+        MutableSensorFrame f = frame;
+        if (!payloadDecoder.decodeFrame(payload, f)) {
+            return; // malformed
+        }
+        long now = System.currentTimeMillis();
+        long readingMillis = f.epochMillis != Long.MIN_VALUE ? f.epochMillis : now;
+        EquipmentWindow window = sensorWindows.computeIfAbsent(f.equipmentId,
+            k -> new EquipmentWindow(windowCapacity, WINDOW_MS));
+        ScoringTrigger trigger = scoringTriggers.computeIfAbsent(f.equipmentId, k -> new ScoringTrigger());
+
+        MutableSensorReading r = reading;
+        boolean rescore = false;
+        for (int i = 0; i < f.size(); i++) {
+            f.readingAt(i, r);
+            SensorChannel channel = SensorChannel.of(r.sensorType);
+            if (channel == null) {
+                continue; // not a scored sensor type
+            }
+            window.append(channel, now, r.value);
+            rescore |= trigger.onReading(channel, readingMillis, r.qualityFlag, readingsTrigger);
+        }
+        if (rescore && eventMode) {
+            requestScore(f.equipmentId, trigger);
+        }
+    }
+
     @Override
     public void deliveryComplete(IMqttDeliveryToken token) {
         // not used for subscriber
@@ -241,85 +430,355 @@ public class GemFireScoringService implements MqttCallback {
     public void scoreAllEquipment() {
         syncDegradationCaps();
 
+        // A null region means GemFire is unreachable: score locally if the fallback is enabled
+        Region<String, SensorPrediction> predictionsRegion = null;
         if (!gemFireService.isConnected()) {
-            log.debug("GemFire not connected, skipping scoring cycle");
+            log.debug("GemFire not connected, {}", fallbackEnabled ? "scoring locally" : "skipping scoring cycle");
             handleScoringFailure();
+        } else {
+            try {
+                predictionsRegion = gemFireService.getSensorPredictionsRegion();
+                flushBacklog(predictionsRegion);
+                ensureLocalModelCached();
+            } catch (Exception e) {
+                log.warn("Cannot get GemFire predictions region: {}", e.getMessage());
+                handleScoringFailure();
+            }
+        }
+        if (predictionsRegion == null && !fallbackEnabled) {
+            return;
+        }
+
+        if (eventMode) {
+            // Event scorers run continuously, so there is nothing to sweep; but as in sweep
+            // mode, a reachable region with scoring still local counts toward a reconnect
+            if (predictionsRegion != null) {
+                if (localMode.get()) {
+                    handleScoringFailure();
+                } else {
+                    consecutiveScoringFailures.set(0);
+                }
+            }
             return;
         }
 
         long now = System.currentTimeMillis();
-        long cutoff = now - WINDOW_MS;
         int scored = 0;
         int failed = 0;
 
-        Region<String, String> predictionsRegion;
-        try {
-            predictionsRegion = gemFireService.getSensorPredictionsRegion();
-        } catch (Exception e) {
-            log.warn("Cannot get GemFire predictions region: {}", e.getMessage());
+        // Extract features for every equipment, then score them in a few bulk function calls
+        WindowSnapshot snapshot = scratchSnapshot.get();
+        List<ScoringInput> inputs = new ArrayList<>(sensorWindows.size());
+        for (String equipmentId : sensorWindows.keySet()) {
+            ScoringInput input = prepareScoringInput(equipmentId, snapshot, now);
+            if (input != null) {
+                inputs.add(input);
+            }
+        }
+
+        for (int from = 0; from < inputs.size(); from += scoringBatchSize) {
+            List<ScoringInput> batch = inputs.subList(from, Math.min(inputs.size(), from + scoringBatchSize));
+            try {
+                int batchScored = scoreAndPublish(batch, predictionsRegion, now);
+                scored += batchScored;
+                failed += batch.size() - batchScored;
+            } catch (Exception e) {
+                failed += batch.size();
+                log.debug("Batch scoring failed for {} equipment: {}", batch.size(), e.getMessage());
+            }
+        }
+
+        if (localMode.get()) {
+            log.info("Local fallback scoring cycle: scored {} equipment, {} predictions awaiting GemFire",
+                     scored, predictionBacklog.size());
+            if (predictionsRegion != null) {
+                handleScoringFailure(); // region was reachable but scoring wasn't
+            }
+        } else if (scored > 0) {
+            consecutiveScoringFailures.set(0); // Reset on any success
+            log.info("GemFire scoring cycle: scored {} equipment", scored);
+        } else if (failed > 0) {
             handleScoringFailure();
+        }
+    }
+
+    /**
+     * Score a batch of equipment in one GemFire function call, then write each
+     * prediction and publish anomaly events as needed. Shared by the sweep and
+     * event paths.
+     *
+     * If GemFire can't be reached (null region, or the function or a write
+     * fails) the batch is scored with the local model instead and the
+     * predictions go to the backlog.
+     *
+     * @return number of equipment scored (rows the model couldn't score are skipped)
+     */
+    private int scoreAndPublish(List<ScoringInput> inputs, Region<String, SensorPrediction> predictionsRegion,
+                                long now) throws Exception {
+        double[] probabilities = null;
+        boolean local = predictionsRegion == null;
+        if (!local) {
+            try {
+                probabilities = scoreBatch(inputs);
+            } catch (Exception e) {
+                if (!fallbackEnabled) {
+                    throw e;
+                }
+                log.debug("GemFire scoring failed, falling back to local model: {}", e.getMessage());
+                local = true;
+            }
+        }
+        if (local) {
+            probabilities = scoreLocally(inputs);
+        }
+        setLocalMode(local);
+
+        Map<String, SensorPrediction> predictions = new LinkedHashMap<>();
+        List<ScoringInput> scoredInputs = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            ScoringInput input = inputs.get(i);
+            if (Double.isNaN(probabilities[i])) {
+                log.debug("Scoring failed for {}: model returned no probability", input.equipmentId());
+                continue;
+            }
+            predictions.put(input.equipmentId(), buildPrediction(input, probabilities[i], now, local));
+            scoredInputs.add(input);
+        }
+
+        // Chunked putAll; entries that still couldn't be written are buffered (or dropped without the fallback)
+        Map<String, SensorPrediction> unwritten = local ? predictions : predictionWriter.write(predictionsRegion, predictions);
+        if (!unwritten.isEmpty() && fallbackEnabled) {
+            unwritten.forEach(predictionBacklog::add);
+            if (!local && unwritten.size() == predictions.size()) {
+                log.debug("GemFire writes failed, buffering {} predictions", unwritten.size());
+                setLocalMode(true);
+            }
+        }
+
+        int scored = 0;
+        for (ScoringInput input : scoredInputs) {
+            SensorPrediction prediction = predictions.get(input.equipmentId());
+            if (!fallbackEnabled && unwritten.containsKey(input.equipmentId())) {
+                continue;
+            }
+            scored++;
+            if (input.oldestPending() != Long.MIN_VALUE) {
+                scoreLatency.record(System.currentTimeMillis() - input.oldestPending());
+            }
+
+            // Check for HIGH/CRITICAL and publish anomaly event
+            if (publishAnomalyIfNeeded(prediction) && input.oldestPending() != Long.MIN_VALUE) {
+                detectionLatency.record(System.currentTimeMillis() - input.oldestPending());
+            }
+        }
+        return scored;
+    }
+
+    // ── Local Fallback ─────────────────────────────────────────────────────
+
+    /**
+     * Score with the compiled model from the PMML cached at the last deploy.
+     *
+     * @throws IllegalStateException if no cached model is available
+     */
+    private double[] scoreLocally(List<ScoringInput> inputs) {
+        LogisticRegressionScorer scorer = loadLocalScorer();
+        if (scorer == null) {
+            throw new IllegalStateException("GemFire unavailable and no cached model at "
+                    + gemFireService.getCachedModelPath(MODEL_ID));
+        }
+        double[] probabilities = new double[inputs.size()];
+        for (int i = 0; i < inputs.size(); i++) {
+            probabilities[i] = Math.max(0.0, Math.min(1.0, scorer.score(inputs.get(i).features(), 0)));
+        }
+        locallyScored.addAndGet(inputs.size());
+        return probabilities;
+    }
+
+    /** Compile the cached PMML, reloading it whenever a deploy replaced the file. */
+    private LogisticRegressionScorer loadLocalScorer() {
+        Path path = gemFireService.getCachedModelPath(MODEL_ID);
+        try {
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            if (localScorer == null || modified != localModelModified) {
+                localScorer = LogisticRegressionScorer.compile(Files.readString(path)).bind(FEATURE_NAMES);
+                localModelModified = modified;
+                log.info("Local fallback model loaded from {}", path);
+            }
+        } catch (NoSuchFileException e) {
+            // Nothing deployed from this instance yet; keep whatever we had
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Cannot load local fallback model from {}: {}", path, e.getMessage());
+        }
+        return localScorer;
+    }
+
+    /** Seed the disk cache from PmmlModels if this instance hasn't deployed the model itself. */
+    private void ensureLocalModelCached() {
+        if (!fallbackEnabled || localScorer != null) {
             return;
         }
+        Path path = gemFireService.getCachedModelPath(MODEL_ID);
+        try {
+            if (!Files.exists(path)) {
+                String pmmlXml = gemFireService.getPmmlModelsRegion().get(MODEL_ID);
+                if (pmmlXml == null) {
+                    return;
+                }
+                gemFireService.cacheModelOnDisk(MODEL_ID, pmmlXml);
+            }
+            loadLocalScorer();
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not cache model {} for local fallback: {}", MODEL_ID, e.getMessage());
+        }
+    }
+
+    private void setLocalMode(boolean local) {
+        if (localMode.compareAndSet(!local, local)) {
+            lastModeSwitch = Instant.now();
+            modeSwitches.incrementAndGet();
+            if (local) {
+                log.warn("GemFire unavailable — scoring locally and buffering predictions");
+            } else {
+                log.info("GemFire scoring restored ({} buffered predictions to write back)", predictionBacklog.size());
+            }
+        }
+    }
+
+    /** Write locally scored predictions back to GemFire in bulk. Failed chunks stay queued. */
+    private void flushBacklog(Region<String, SensorPrediction> predictionsRegion) {
+        int written = 0;
+        while (predictionBacklog.size() > 0) {
+            Map<String, SensorPrediction> chunk = predictionBacklog.take(scoringBatchSize);
+            Map<String, SensorPrediction> unwritten = predictionWriter.write(predictionsRegion, chunk);
+            written += chunk.size() - unwritten.size();
+            if (!unwritten.isEmpty()) {
+                predictionBacklog.restore(unwritten);
+                log.debug("Backlog write-back incomplete, {} predictions will be retried", unwritten.size());
+                break;
+            }
+        }
+        if (written > 0) {
+            backlogWrittenBack.addAndGet(written);
+            log.info("Wrote {} locally scored predictions back to GemFire", written);
+        }
+    }
 
-        for (Map.Entry<String, CopyOnWriteArrayList<SensorSnapshot>> entry : sensorWindows.entrySet()) {
-            String equipmentId = entry.getKey();
-            CopyOnWriteArrayList<SensorSnapshot> snapshots = entry.getValue();
+    /** Fallback mode, mode switches and the write-back backlog. */
+    public Map<String, Object> getFallbackStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", fallbackEnabled);
+        stats.put("mode", localMode.get() ? "LOCAL" : "GEMFIRE");
+        stats.put("modeSwitches", modeSwitches.get());
+        stats.put("lastModeSwitch", lastModeSwitch != null ? lastModeSwitch.toString() : null);
+        stats.put("localModel", gemFireService.getCachedModelPath(MODEL_ID).toString());
+        stats.put("localModelLoaded", localScorer != null);
+        stats.put("locallyScored", locallyScored.get());
+        stats.put("backlog", predictionBacklog.size());
+        stats.put("backlogCapacity", backlogCapacity);
+        stats.put("backlogDropped", predictionBacklog.dropped());
+        stats.put("backlogWrittenBack", backlogWrittenBack.get());
+        return stats;
+    }
 
-            // Evict old readings
-            snapshots.removeIf(s -> s.timestamp < cutoff);
+    // ── Event-driven Scoring ───────────────────────────────────────────────
 
-            if (snapshots.size() < 4) continue; // need at least a few readings
+    /** Queue a rescore unless one is already in flight for this equipment (then it just reruns once). */
+    private void requestScore(String equipmentId, ScoringTrigger trigger) {
+        if (!trigger.tryStart()) {
+            return;
+        }
+        eventsTriggered.incrementAndGet();
+        try {
+            eventExecutor.execute(() -> runEventScoring(equipmentId, trigger));
+        } catch (RejectedExecutionException e) {
+            // Executor saturated; readings stay pending and the staleness check retries
+            trigger.abort();
+            eventsRejected.incrementAndGet();
+        }
+    }
 
+    private void runEventScoring(String equipmentId, ScoringTrigger trigger) {
+        do {
             try {
-                String predictionJson = scoreEquipment(equipmentId, snapshots, now);
-                predictionsRegion.put(equipmentId, predictionJson);
-                scored++;
-
-                // Check for HIGH/CRITICAL and publish anomaly event
-                publishAnomalyIfNeeded(equipmentId, predictionJson);
+                boolean connected = gemFireService.isConnected();
+                if (connected || fallbackEnabled) {
+                    long now = System.currentTimeMillis();
+                    ScoringInput input = prepareScoringInput(equipmentId, scratchSnapshot.get(), now);
+                    if (input != null) {
+                        scoreAndPublish(List.of(input),
+                                connected ? gemFireService.getSensorPredictionsRegion() : null, now);
+                    }
+                }
             } catch (Exception e) {
-                failed++;
-                log.debug("Scoring failed for {}: {}", equipmentId, e.getMessage());
+                eventFailures.incrementAndGet();
+                log.debug("Event scoring failed for {}: {}", equipmentId, e.getMessage());
+            }
+        } while (trigger.finish());
+    }
+
+    /** Event mode: rescore equipment whose readings have waited longer than the max staleness. */
+    @Scheduled(fixedDelayString = "${scoring.event.staleness-check-ms:1000}", initialDelay = 15000)
+    public void rescoreStaleEquipment() {
+        if (!eventMode || (!fallbackEnabled && !gemFireService.isConnected())) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ScoringTrigger> entry : scoringTriggers.entrySet()) {
+            if (entry.getValue().isStale(now, maxStalenessMs)) {
+                requestScore(entry.getKey(), entry.getValue());
             }
         }
+    }
 
-        if (scored > 0) {
-            consecutiveScoringFailures = 0; // Reset on any success
-            log.info("GemFire scoring cycle: scored {} equipment", scored);
-        } else if (failed > 0) {
-            handleScoringFailure();
+    /** Scoring mode, event counters and reading → publish latency percentiles (ms). */
+    public Map<String, Object> getScoringStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", eventMode ? "event" : "sweep");
+        if (eventMode) {
+            stats.put("readingsTrigger", readingsTrigger);
+            stats.put("maxStalenessMs", maxStalenessMs);
+            stats.put("eventsTriggered", eventsTriggered.get());
+            stats.put("eventsRejected", eventsRejected.get());
+            stats.put("eventFailures", eventFailures.get());
+            stats.put("executorQueueDepth", eventExecutor.getQueue().size());
         }
+        stats.put("scoreLatencyMs", scoreLatency.summary());
+        stats.put("detectionLatencyMs", detectionLatency.summary());
+        stats.put("regionWrites", predictionWriter.stats());
+        return stats;
     }
 
     private void handleScoringFailure() {
-        consecutiveScoringFailures++;
-        if (consecutiveScoringFailures >= RECONNECT_THRESHOLD) {
-            log.warn("GemFire scoring failed {} consecutive cycles — forcing reconnect", consecutiveScoringFailures);
-            consecutiveScoringFailures = 0;
+        int failures = consecutiveScoringFailures.incrementAndGet();
+        // Only the thread that resets the count reconnects
+        if (failures >= RECONNECT_THRESHOLD && consecutiveScoringFailures.compareAndSet(failures, 0)) {
+            log.warn("GemFire scoring failed {} consecutive cycles — forcing reconnect", failures);
             gemFireService.reconnect();
-        } else {
-            log.info("GemFire scoring cycle failed ({}/{}), will retry", consecutiveScoringFailures, RECONNECT_THRESHOLD);
+        } else if (failures < RECONNECT_THRESHOLD) {
+            log.info("GemFire scoring cycle failed ({}/{}), will retry", failures, RECONNECT_THRESHOLD);
         }
     }
 
     /**
      * Publish anomaly event to RabbitMQ if risk level is HIGH or CRITICAL.
      * Uses deduplication to avoid publishing on every scoring cycle.
+     *
+     * @return true if an event was published
      */
-    private void publishAnomalyIfNeeded(String equipmentId, String predictionJson) {
+    private boolean publishAnomalyIfNeeded(SensorPrediction prediction) {
+        String equipmentId = prediction.getEquipmentId();
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> prediction = objectMapper.readValue(predictionJson, Map.class);
-            String riskLevel = (String) prediction.get("riskLevel");
-            double failureProbability = ((Number) prediction.get("failureProbability")).doubleValue();
+            String riskLevel = prediction.getRiskLevel();
+            double failureProbability = prediction.getFailureProbability();
 
             // Check if anomaly publishing is gated by per-equipment level
             String maxLevel = equipmentAnomalyLevels.getOrDefault(equipmentId, defaultAnomalyLevel);
             if ("NONE".equals(maxLevel)) {
-                return; // All anomaly publishing disabled for this equipment
+                return false; // All anomaly publishing disabled for this equipment
             }
             if ("HIGH".equals(maxLevel) && "CRITICAL".equals(riskLevel)) {
-                return; // Only HIGH allowed for this equipment, suppress CRITICAL
+                return false; // Only HIGH allowed for this equipment, suppress CRITICAL
             }
 
             // Clear alerts if equipment has recovered
@@ -329,35 +788,25 @@ public class GemFireScoringService implements MqttCallback {
                 if (hadAlert) {
                     log.info("Equipment {} recovered to {} - cleared alert flags", equipmentId, riskLevel);
                 }
-                return;
+                return false;
             }
 
             // Publish if HIGH or CRITICAL and not already published
             String alertKey = equipmentId + ":" + riskLevel;
             if (publishedAlerts.add(alertKey)) {
-                String facilityId = equipmentId.substring(0, 3); // Extract facility from equipment ID
-                String probableCause = (String) prediction.getOrDefault("probableCause", "Unknown");
-                double vibrationAvg = ((Number) prediction.getOrDefault("vibrationAvg", 0.0)).doubleValue();
-                double temperatureAvg = ((Number) prediction.getOrDefault("temperatureAvg", 0.0)).doubleValue();
-                double powerAvg = ((Number) prediction.getOrDefault("powerAvg", 0.0)).doubleValue();
-                double rpmAvg = ((Number) prediction.getOrDefault("rpmAvg", 0.0)).doubleValue();
-                double pressureAvg = ((Number) prediction.getOrDefault("pressureAvg", 0.0)).doubleValue();
-                double torqueAvg = ((Number) prediction.getOrDefault("torqueAvg", 0.0)).doubleValue();
-                String scoredAt = (String) prediction.getOrDefault("scoredAt", Instant.now().toString());
-
                 AnomalyEvent event = AnomalyEvent.create(
                     equipmentId,
-                    facilityId,
+                    prediction.getFacilityId(),
                     riskLevel,
                     failureProbability,
-                    probableCause,
-                    vibrationAvg,
-                    temperatureAvg,
-                    powerAvg,
-                    rpmAvg,
-                    pressureAvg,
-                    torqueAvg,
-                    scoredAt
+                    prediction.getProbableCause() != null ? prediction.getProbableCause() : "Unknown",
+                    prediction.getVibrationAvg(),
+                    prediction.getTemperatureAvg(),
+                    prediction.getPowerAvg(),
+                    prediction.getRpmAvg(),
+                    prediction.getPressureAvg(),
+                    prediction.getTorqueAvg(),
+                    prediction.getScoredAt()
                 );
 
                 String routingKey = "CRITICAL".equals(riskLevel) ? criticalRoutingKey : highRoutingKey;
@@ -365,42 +814,37 @@ public class GemFireScoringService implements MqttCallback {
 
                 log.info("Published {} anomaly event for {} ({}% failure probability)",
                          riskLevel, equipmentId, Math.round(failureProbability * 100));
+                return true;
             }
         } catch (Exception e) {
             log.warn("Failed to publish anomaly event for {}: {}", equipmentId, e.getMessage());
         }
+        return false;
     }
 
-    private String scoreEquipment(String equipmentId, List<SensorSnapshot> snapshots, long now) throws Exception {
-        // Compute feature averages and collect time-series for trend calculation
-        double vibrationSum = 0, vibrationCount = 0;
-        double temperatureSum = 0, temperatureCount = 0;
-        double powerSum = 0, powerCount = 0;
-        double rpmSum = 0, rpmCount = 0;
-        double pressureSum = 0, pressureCount = 0;
-        double torqueSum = 0, torqueCount = 0;
-        List<double[]> vibReadings = new ArrayList<>();  // [timeHours, value]
-        List<double[]> tempReadings = new ArrayList<>();
+    /**
+     * Read an equipment's window and derive its model features.
+     *
+     * @return null if the window had too few readings to score
+     */
+    private ScoringInput prepareScoringInput(String equipmentId, WindowSnapshot snapshot, long now) {
+        EquipmentWindow window = sensorWindows.get(equipmentId);
 
-        long baseTime = snapshots.get(0).timestamp;
-        for (SensorSnapshot s : snapshots) {
-            double timeHours = (s.timestamp - baseTime) / 3_600_000.0;
-            switch (s.sensorType) {
-                case "vibration" -> { vibrationSum += s.value; vibrationCount++; vibReadings.add(new double[]{timeHours, s.value}); }
-                case "temperature" -> { temperatureSum += s.value; temperatureCount++; tempReadings.add(new double[]{timeHours, s.value}); }
-                case "power", "power_draw" -> { powerSum += s.value; powerCount++; }
-                case "spindle_speed" -> { rpmSum += s.value; rpmCount++; }
-                case "pressure" -> { pressureSum += s.value; pressureCount++; }
-                case "torque" -> { torqueSum += s.value; torqueCount++; }
-            }
-        }
+        // Readings older than the cutoff are skipped; the writer expires them on its next append
+        if (window == null || !window.read(now - WINDOW_MS, snapshot)) return null;
+
+        if (snapshot.total() < 4) return null; // need at least a few readings
+
+        ScoringTrigger trigger = scoringTriggers.get(equipmentId);
+        long oldestPending = trigger != null ? trigger.claimPending() : Long.MIN_VALUE;
 
-        double vibrationAvg = vibrationCount > 0 ? vibrationSum / vibrationCount : 2.0;
-        double temperatureAvg = temperatureCount > 0 ? temperatureSum / temperatureCount : 50.0;
-        double powerAvg = powerCount > 0 ? powerSum / powerCount : 15.0;
-        double rpmAvg = rpmCount > 0 ? rpmSum / rpmCount : 8500.0;
-        double pressureAvg = pressureCount > 0 ? pressureSum / pressureCount : 6.0;
-        double torqueAvg = torqueCount > 0 ? torqueSum / torqueCount : 45.0;
+        // Feature averages come straight from the window's running sums
+        double vibrationAvg = snapshot.mean(SensorChannel.VIBRATION, 2.0);
+        double temperatureAvg = snapshot.mean(SensorChannel.TEMPERATURE, 50.0);
+        double powerAvg = snapshot.mean(SensorChannel.POWER, 15.0);
+        double rpmAvg = snapshot.mean(SensorChannel.SPINDLE_SPEED, 8500.0);
+        double pressureAvg = snapshot.mean(SensorChannel.PRESSURE, 6.0);
+        double torqueAvg = snapshot.mean(SensorChannel.TORQUE, 45.0);
 
         // Normalized features
         double vibrationNormalized = Math.min(vibrationAvg / VIBRATION_CRITICAL, 1.0);
@@ -415,20 +859,18 @@ public class GemFireScoringService implements MqttCallback {
         // to suppress startup noise and random jitter.
         double vibrationTrendRate = 0;
         double temperatureTrendRate = 0;
-        if (vibReadings.size() >= 20) {
-            double timeSpan = vibReadings.get(vibReadings.size() - 1)[0] - vibReadings.get(0)[0];
-            if (timeSpan > 1.0 / 60.0) { // > 1 minute in hours
-                double[] vibResult = leastSquaresFit(vibReadings);
+        if (snapshot.count(SensorChannel.VIBRATION) >= 20) {
+            if (snapshot.spanHours(SensorChannel.VIBRATION) > 1.0 / 60.0) { // > 1 minute in hours
+                double[] vibResult = snapshot.leastSquaresFit(SensorChannel.VIBRATION);
                 if (vibResult[1] > 0.5) {
                     double normalizedSlope = vibResult[0] / VIBRATION_CRITICAL;
                     vibrationTrendRate = Math.max(-0.5, Math.min(0.5, normalizedSlope));
                 }
             }
         }
-        if (tempReadings.size() >= 20) {
-            double timeSpan = tempReadings.get(tempReadings.size() - 1)[0] - tempReadings.get(0)[0];
-            if (timeSpan > 1.0 / 60.0) { // > 1 minute in hours
-                double[] tempResult = leastSquaresFit(tempReadings);
+        if (snapshot.count(SensorChannel.TEMPERATURE) >= 20) {
+            if (snapshot.spanHours(SensorChannel.TEMPERATURE) > 1.0 / 60.0) { // > 1 minute in hours
+                double[] tempResult = snapshot.leastSquaresFit(SensorChannel.TEMPERATURE);
                 if (tempResult[1] > 0.5) {
                     double normalizedSlope = tempResult[0] / TEMPERATURE_CRITICAL;
                     temperatureTrendRate = Math.max(-0.5, Math.min(0.5, normalizedSlope));
@@ -450,46 +892,83 @@ public class GemFireScoringService implements MqttCallback {
         EquipmentMeta meta = equipmentMeta.getOrDefault(equipmentId, new EquipmentMeta(30, 2));
         int anomalyCount = 0; // default — could query periodically
 
-        // ── Score via GemFire PMML Function ──────────────────────────────
-        // Send normalized features to GemFire server-side PmmlScoringFunction.
-        // GemFire evaluates the PMML model (trained in Greenplum, exported as PMML,
-        // deployed to GemFire PmmlModels region) and returns probability + risk level.
-        String[] functionArgs = new String[] {
-            MODEL_ID,
-            equipmentId,
-            "vibration_normalized=" + vibrationNormalized,
-            "temperature_normalized=" + temperatureNormalized,
-            "vibration_trend_rate=" + vibrationTrendRate,
-            "temperature_trend_rate=" + temperatureTrendRate,
-            "days_since_maintenance=" + meta.daysSinceMaintenance,
-            "equipment_age_years=" + meta.equipmentAgeYears,
-            "anomaly_count=" + anomalyCount,
-            "power_normalized=" + (powerAvg / POWER_MAX),
-            "rpm_normalized=" + (rpmAvg / RPM_MAX),
-            "pressure_normalized=" + (pressureAvg / PRESSURE_MAX),
-            "torque_normalized=" + (torqueAvg / TORQUE_MAX)
+        // Positional in FEATURE_NAMES order
+        double[] features = {
+            vibrationNormalized,
+            temperatureNormalized,
+            vibrationTrendRate,
+            temperatureTrendRate,
+            meta.daysSinceMaintenance,
+            meta.equipmentAgeYears,
+            anomalyCount,
+            powerAvg / POWER_MAX,
+            rpmAvg / RPM_MAX,
+            pressureAvg / PRESSURE_MAX,
+            torqueAvg / TORQUE_MAX
         };
 
+        return new ScoringInput(equipmentId, maxLevel, vibrationAvg, temperatureAvg, powerAvg, rpmAvg,
+                pressureAvg, torqueAvg, vibrationTrendRate, temperatureTrendRate, snapshot.total(),
+                features, oldestPending);
+    }
+
+    /**
+     * Score many equipment via the GemFire server-side PmmlBatchScoringFunction.
+     * GemFire evaluates the PMML model (trained in Greenplum, exported as PMML,
+     * deployed to GemFire PmmlModels region) for every feature vector in one round trip.
+     *
+     * @return one probability per input, NaN where the model couldn't score the row
+     */
+    private double[] scoreBatch(List<ScoringInput> inputs) {
+        int width = FEATURE_NAMES.length;
+        double[] flat = new double[inputs.size() * width];
+        for (int i = 0; i < inputs.size(); i++) {
+            System.arraycopy(inputs.get(i).features(), 0, flat, i * width, width);
+        }
+
         @SuppressWarnings("unchecked")
-        ResultCollector<String, List<String>> rc = (ResultCollector<String, List<String>>)
+        ResultCollector<Object, List<Object>> rc = (ResultCollector<Object, List<Object>>)
             FunctionService.onRegion(gemFireService.getPmmlModelsRegion())
-                .setArguments(functionArgs)
-                .execute("PmmlScoringFunction");
+                .setArguments(new Object[] { MODEL_ID, FEATURE_NAMES, flat })
+                .execute("PmmlBatchScoringFunction");
 
-        List<String> results = rc.getResult();
+        List<Object> results = rc.getResult();
         if (results == null || results.isEmpty()) {
-            throw new RuntimeException("No result from GemFire PmmlScoringFunction");
+            throw new RuntimeException("No result from GemFire PmmlBatchScoringFunction");
         }
 
-        String result = results.get(0);
-        if (result.startsWith("ERROR|")) {
-            throw new RuntimeException("GemFire PMML scoring error: " + result.substring(6));
+        Object result = results.get(0);
+        if (result instanceof String error) {
+            throw new RuntimeException("GemFire PMML scoring error: " + error.replaceFirst("^ERROR\\|", ""));
+        }
+        double[] probabilities = (double[]) result;
+        if (probabilities.length != inputs.size()) {
+            throw new RuntimeException("GemFire PMML scoring returned " + probabilities.length
+                    + " results for " + inputs.size() + " equipment");
         }
+        return probabilities;
+    }
+
+    private static String riskLevel(double probability) {
+        if (probability >= 0.7) return "CRITICAL";
+        if (probability >= 0.5) return "HIGH";
+        if (probability >= 0.3) return "MEDIUM";
+        return "LOW";
+    }
 
-        // Parse "equipmentId|probability|riskLevel"
-        String[] parts = result.split("\\|", 3);
-        double probability = Double.parseDouble(parts[1]);
-        String riskLevel = parts[2];
+    /** Turn a model probability into the prediction stored in SensorPredictions. */
+    private SensorPrediction buildPrediction(ScoringInput input, double probability, long now, boolean local) {
+        String equipmentId = input.equipmentId();
+        String maxLevel = input.maxLevel();
+        String riskLevel = riskLevel(probability);
+        double vibrationAvg = input.vibrationAvg();
+        double temperatureAvg = input.temperatureAvg();
+        double powerAvg = input.powerAvg();
+        double rpmAvg = input.rpmAvg();
+        double pressureAvg = input.pressureAvg();
+        double torqueAvg = input.torqueAvg();
+        double vibrationTrendRate = input.vibrationTrendRate();
+        double temperatureTrendRate = input.temperatureTrendRate();
 
         // When equipment is capped at HIGH, clamp into the HIGH band (50-69%).
         // Add slight randomization so each equipment shows a distinct probability.
@@ -503,26 +982,25 @@ public class GemFireScoringService implements MqttCallback {
                 vibrationAvg, temperatureAvg, powerAvg, rpmAvg, pressureAvg, torqueAvg,
                 vibrationTrendRate, temperatureTrendRate);
 
-        // Build JSON result
-        Map<String, Object> prediction = new LinkedHashMap<>();
-        prediction.put("equipmentId", equipmentId);
-        prediction.put("failureProbability", Math.round(probability * 1000.0) / 1000.0);
-        prediction.put("riskLevel", riskLevel);
-        prediction.put("probableCause", probableCause);
-        prediction.put("vibrationAvg", Math.round(vibrationAvg * 100.0) / 100.0);
-        prediction.put("temperatureAvg", Math.round(temperatureAvg * 100.0) / 100.0);
-        prediction.put("powerAvg", Math.round(powerAvg * 100.0) / 100.0);
-        prediction.put("rpmAvg", Math.round(rpmAvg * 10.0) / 10.0);
-        prediction.put("pressureAvg", Math.round(pressureAvg * 100.0) / 100.0);
-        prediction.put("torqueAvg", Math.round(torqueAvg * 100.0) / 100.0);
-        prediction.put("vibrationTrend", Math.round(vibrationTrendRate * 1000.0) / 1000.0);
-        prediction.put("temperatureTrend", Math.round(temperatureTrendRate * 1000.0) / 1000.0);
-        prediction.put("readingsInWindow", snapshots.size());
-        prediction.put("modelId", MODEL_ID);
-        prediction.put("scoringEngine", "GemFire PMML");
-        prediction.put("scoredAt", Instant.ofEpochMilli(now).toString());
-
-        return objectMapper.writeValueAsString(prediction);
+        return new SensorPrediction(
+                equipmentId,
+                equipmentId.substring(0, 3), // Facility prefix of the equipment ID
+                Math.round(probability * 1000.0) / 1000.0,
+                riskLevel,
+                probableCause,
+                Math.round(vibrationAvg * 100.0) / 100.0,
+                Math.round(temperatureAvg * 100.0) / 100.0,
+                Math.round(powerAvg * 100.0) / 100.0,
+                Math.round(rpmAvg * 10.0) / 10.0,
+                Math.round(pressureAvg * 100.0) / 100.0,
+                Math.round(torqueAvg * 100.0) / 100.0,
+                Math.round(vibrationTrendRate * 1000.0) / 1000.0,
+                Math.round(temperatureTrendRate * 1000.0) / 1000.0,
+                input.readingsInWindow(),
+                MODEL_ID,
+                local ? "Local fallback (cached PMML)" : "GemFire PMML",
+                now,
+                Instant.ofEpochMilli(now).toString());
     }
 
     /**
@@ -532,16 +1010,13 @@ public class GemFireScoringService implements MqttCallback {
     public Map<String, Object> clearAllPredictions() {
         int windowsCleared = sensorWindows.size();
         sensorWindows.clear();
+        scoringTriggers.clear();
+        predictionBacklog.clear();
 
         int predictionsCleared = 0;
         try {
             if (gemFireService.isConnected()) {
-                Region<String, String> region = gemFireService.getSensorPredictionsRegion();
-                Set<String> keys = region.keySetOnServer();
-                predictionsCleared = keys.size();
-                for (String key : keys) {
-                    region.remove(key);
-                }
+                predictionsCleared = predictionQueryService.clearAll();
             }
         } catch (Exception e) {
             log.warn("Failed to clear GemFire predictions: {}", e.getMessage());
@@ -555,6 +1030,25 @@ public class GemFireScoringService implements MqttCallback {
         );
     }
 
+    /**
+     * Sliding-window health: how often running sums were re-anchored and the
+     * largest drift between running and exactly recomputed sums.
+     */
+    public Map<String, Object> getWindowStats() {
+        long reanchors = 0;
+        double maxDrift = 0;
+        for (EquipmentWindow window : sensorWindows.values()) {
+            reanchors += window.reanchors();
+            maxDrift = Math.max(maxDrift, window.maxRelativeDrift());
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("windows", sensorWindows.size());
+        stats.put("capacityPerSensor", EquipmentWindow.ringSize(windowCapacity));
+        stats.put("reanchors", reanchors);
+        stats.put("maxRelativeDrift", maxDrift);
+        return stats;
+    }
+
     // ── MCP Tool ───────────────────────────────────────────────────────────
 
     @McpTool(description = "Get real-time ML predictions from GemFire SensorPredictions region. " +
@@ -563,36 +1057,16 @@ public class GemFireScoringService implements MqttCallback {
         log.info("Retrieving GemFire predictions");
 
         try {
-            Region<String, String> region = gemFireService.getSensorPredictionsRegion();
-            Set<String> keys = region.keySetOnServer();
-
-            List<Map<String, Object>> predictions = new ArrayList<>();
-            for (String key : keys) {
-                String json = region.get(key);
-                if (json != null) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> pred = objectMapper.readValue(json, Map.class);
-                    predictions.add(pred);
-                }
-            }
-
-            // Sort by probability descending
-            predictions.sort((a, b) -> {
-                double pa = ((Number) a.get("failureProbability")).doubleValue();
-                double pb = ((Number) b.get("failureProbability")).doubleValue();
-                return Double.compare(pb, pa);
-            });
-
-            long critical = predictions.stream()
-                    .filter(p -> "CRITICAL".equals(p.get("riskLevel")))
-                    .count();
+            // Sorted by probability (descending) and counted on the GemFire servers
+            List<SensorPrediction> predictions = predictionQueryService.query(null, null, null, 0).predictions();
+            int critical = predictionQueryService.countsByRiskLevel(null).get("CRITICAL");
 
             return Map.of(
                     "success", true,
                     "totalEquipment", predictions.size(),
                     "criticalCount", critical,
                     "predictions", predictions,
-                    "scoringSource", "GemFire PMML (server-side model evaluation via PmmlScoringFunction)"
+                    "scoringSource", "GemFire PMML (server-side model evaluation via PmmlBatchScoringFunction)"
             );
         } catch (Exception e) {
             log.error("Failed to retrieve GemFire predictions: {}", e.getMessage());
@@ -726,40 +1200,14 @@ public class GemFireScoringService implements MqttCallback {
         };
     }
 
-    /**
-     * Compute least-squares linear regression slope and R² from time-series data.
-     * Returns [slope_per_hour, r_squared]. R² indicates how much variance is explained
-     * by the trend — low R² means the slope is just noise.
-     */
-    private double[] leastSquaresFit(List<double[]> readings) {
-        int n = readings.size();
-        if (n < 2) return new double[]{0.0, 0.0};
-
-        double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0, sumY2 = 0;
-        for (double[] r : readings) {
-            sumX += r[0];
-            sumY += r[1];
-            sumXY += r[0] * r[1];
-            sumX2 += r[0] * r[0];
-            sumY2 += r[1] * r[1];
-        }
-        double denomX = n * sumX2 - sumX * sumX;
-        if (Math.abs(denomX) < 1e-12) return new double[]{0.0, 0.0};
-
-        double slope = (n * sumXY - sumX * sumY) / denomX;
-
-        // R² = (correlation coefficient)²
-        double denomY = n * sumY2 - sumY * sumY;
-        double r2 = 0.0;
-        if (Math.abs(denomY) > 1e-12) {
-            double r = (n * sumXY - sumX * sumY) / Math.sqrt(denomX * denomY);
-            r2 = r * r;
-        }
-        return new double[]{slope, r2};
-    }
-
     // ── Inner types ────────────────────────────────────────────────────────
 
-    private record SensorSnapshot(String sensorType, double value, long timestamp) {}
     private record EquipmentMeta(double daysSinceMaintenance, double equipmentAgeYears) {}
+
+    /** Model features plus the context needed to turn a probability into a prediction. */
+    private record ScoringInput(String equipmentId, String maxLevel,
+                                double vibrationAvg, double temperatureAvg, double powerAvg,
+                                double rpmAvg, double pressureAvg, double torqueAvg,
+                                double vibrationTrendRate, double temperatureTrendRate,
+                                int readingsInWindow, double[] features, long oldestPending) {}
 }
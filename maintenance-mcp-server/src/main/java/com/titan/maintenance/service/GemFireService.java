@@ -1,9 +1,13 @@
 package com.titan.maintenance.service;
 
+import com.titan.maintenance.model.SensorPrediction;
+import org.apache.geode.cache.EntryEvent;
+import org.apache.geode.cache.InterestResultPolicy;
 import org.apache.geode.cache.Region;
 import org.apache.geode.cache.client.ClientCache;
 import org.apache.geode.cache.client.ClientCacheFactory;
 import org.apache.geode.cache.client.ClientRegionShortcut;
+import org.apache.geode.cache.util.CacheListenerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springaicommunity.mcp.annotation.McpTool;
@@ -13,6 +17,11 @@ import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -26,6 +35,7 @@ public class GemFireService {
     private static final Logger log = LoggerFactory.getLogger(GemFireService.class);
 
     private final ModelExportService modelExportService;
+    private final PredictionStreamService predictionStreamService;
 
     @Value("${gemfire.locator.host:gemfire}")
     private String locatorHost;
@@ -33,20 +43,30 @@ public class GemFireService {
     @Value("${gemfire.locator.port:10334}")
     private int locatorPort;
 
+    @Value("${gemfire.model-cache-dir:/tmp/titan-models}")
+    private String modelCacheDir;
+
+    // proxy = every read goes to the server; caching-proxy = local copy kept current by server push
+    @Value("${gemfire.predictions.client-region:proxy}")
+    private String predictionsClientRegion;
+
     private ClientCache clientCache;
     private Region<String, String> pmmlModelsRegion;
-    private Region<String, String> sensorPredictionsRegion;
+    private Region<String, SensorPrediction> sensorPredictionsRegion;
 
-    public GemFireService(ModelExportService modelExportService) {
+    public GemFireService(ModelExportService modelExportService, PredictionStreamService predictionStreamService) {
         this.modelExportService = modelExportService;
+        this.predictionStreamService = predictionStreamService;
     }
 
     @PostConstruct
     public void initialize() {
         try {
             log.info("Connecting to GemFire locator at {}:{}", locatorHost, locatorPort);
+            boolean caching = isPredictionsCached();
             clientCache = new ClientCacheFactory()
                     .addPoolLocator(locatorHost, locatorPort)
+                    .setPoolSubscriptionEnabled(caching)
                     .set("log-level", "warning")
                     .create();
 
@@ -54,11 +74,19 @@ public class GemFireService {
                     .<String, String>createClientRegionFactory(ClientRegionShortcut.PROXY)
                     .create("PmmlModels");
 
+            // The listener sees server-pushed changes (caching-proxy) and this client's own writes
             sensorPredictionsRegion = clientCache
-                    .<String, String>createClientRegionFactory(ClientRegionShortcut.PROXY)
+                    .<String, SensorPrediction>createClientRegionFactory(
+                            caching ? ClientRegionShortcut.CACHING_PROXY : ClientRegionShortcut.PROXY)
+                    .addCacheListener(new PredictionChangeListener())
                     .create("SensorPredictions");
+            if (caching) {
+                // Load current entries and subscribe to every later change
+                sensorPredictionsRegion.registerInterestForAllKeys(InterestResultPolicy.KEYS_VALUES);
+            }
 
-            log.info("Connected to GemFire. PmmlModels and SensorPredictions regions ready.");
+            log.info("Connected to GemFire. PmmlModels and SensorPredictions ({}) regions ready.",
+                    caching ? "caching-proxy" : "proxy");
         } catch (Exception e) {
             log.warn("GemFire not available ({}). Deploy tools will retry on use.", e.getMessage());
         }
@@ -80,7 +108,7 @@ public class GemFireService {
         }
     }
 
-    public Region<String, String> getSensorPredictionsRegion() {
+    public Region<String, SensorPrediction> getSensorPredictionsRegion() {
         ensureConnected();
         return sensorPredictionsRegion;
     }
@@ -90,6 +118,23 @@ public class GemFireService {
         return pmmlModelsRegion;
     }
 
+    /** True if SensorPredictions reads are served from the local caching-proxy copy. */
+    public boolean isPredictionsCached() {
+        return "caching-proxy".equalsIgnoreCase(predictionsClientRegion);
+    }
+
+    /** Client region mode and, when caching, the size of the local copy. */
+    public Map<String, Object> getPredictionsCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clientRegion", isPredictionsCached() ? "caching-proxy" : "proxy");
+        Region<String, SensorPrediction> region = sensorPredictionsRegion;
+        if (isPredictionsCached() && region != null && !region.isDestroyed()) {
+            stats.put("localEntries", region.size());
+        }
+        stats.put("stream", predictionStreamService.getStats());
+        return stats;
+    }
+
     public boolean isConnected() {
         return clientCache != null && !clientCache.isClosed();
     }
@@ -163,6 +208,15 @@ public class GemFireService {
             pmmlModelsRegion.put(targetModelId, pmmlXml);
             steps.add(step("result", "Model deployed to PmmlModels region (" + pmmlXml.length() + " bytes)"));
 
+            // Step 5: Keep a local copy for scoring while GemFire is unreachable
+            try {
+                cacheModelOnDisk(targetModelId, pmmlXml);
+                steps.add(step("result", "PMML cached at " + getCachedModelPath(targetModelId) + " for local fallback scoring"));
+            } catch (IOException e) {
+                log.warn("Could not cache PMML for {} on disk: {}", targetModelId, e.getMessage());
+                steps.add(step("warn", "PMML not cached on disk: " + e.getMessage()));
+            }
+
             long elapsed = System.currentTimeMillis() - start;
             steps.add(step("done", "Deployment complete in " + elapsed + "ms"));
 
@@ -188,6 +242,24 @@ public class GemFireService {
         }
     }
 
+    /** Where the last deployed PMML for a model is kept on local disk. */
+    public Path getCachedModelPath(String modelId) {
+        return Path.of(modelCacheDir, modelId + ".pmml");
+    }
+
+    /** Write the PMML to the local model cache (atomically replacing any previous copy). */
+    public void cacheModelOnDisk(String modelId, String pmmlXml) throws IOException {
+        Path target = getCachedModelPath(modelId);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), modelId, ".tmp");
+        try {
+            Files.writeString(tmp, pmmlXml, StandardCharsets.UTF_8);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
     /**
      * List models currently deployed in GemFire.
      */
@@ -226,6 +298,32 @@ public class GemFireService {
         }
     }
 
+    /** Forwards SensorPredictions changes to the dashboard stream. */
+    private class PredictionChangeListener extends CacheListenerAdapter<String, SensorPrediction> {
+
+        @Override
+        public void afterCreate(EntryEvent<String, SensorPrediction> event) {
+            forward(event);
+        }
+
+        @Override
+        public void afterUpdate(EntryEvent<String, SensorPrediction> event) {
+            forward(event);
+        }
+
+        @Override
+        public void afterDestroy(EntryEvent<String, SensorPrediction> event) {
+            predictionStreamService.onRemoved(event.getKey());
+        }
+
+        private void forward(EntryEvent<String, SensorPrediction> event) {
+            Object value = event.getNewValue();
+            if (value instanceof SensorPrediction prediction) {
+                predictionStreamService.onPrediction(prediction);
+            }
+        }
+    }
+
     private Map<String, String> step(String type, String message) {
         return Map.of(
                 "type", type,
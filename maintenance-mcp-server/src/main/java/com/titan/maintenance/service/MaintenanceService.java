@@ -5,14 +5,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * MCP Tools for predictive maintenance operations at Titan Manufacturing.
@@ -32,14 +40,44 @@ public class MaintenanceService {
         "spindle_speed", new SensorThreshold(8000.0, 10000.0, 12000.0, "rpm")
     );
 
+    // Trends need at least this many points; fewer buckets means a finer table is used
+    private static final int TREND_MIN_POINTS = 48;
+
+    // Window of the per-sensor trends used for RUL, as in estimateRul
+    private static final int RUL_TREND_HOURS = 168;
+    private static final List<String> RISK_LEVELS = List.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+
     private record SensorThreshold(double normal, double warning, double critical, String unit) {}
     private record TrendAnalysis(String sensorType, double latestValue, double avgValue,
                                   double trendRate, String trend, String unit) {}
+    private record FleetEquipment(String equipmentId, String facilityId, String type,
+                                  int daysSinceMaintenance, int intervalDays) {}
+
+    // Per-equipment fallback work of assessFleetHealth runs on this pool
+    @Value("${fleet.fanout-threads:8}")
+    private int fanoutThreads;
+
+    private ExecutorService fanoutExecutor;
 
     public MaintenanceService(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        fanoutExecutor = Executors.newFixedThreadPool(fanoutThreads, r -> {
+            Thread t = new Thread(r, "fleet-fanout-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanoutExecutor.shutdownNow();
+    }
+
     /**
      * Predict equipment failure probability using ML model in Greenplum.
      * Uses a logistic regression model trained on run-to-failure data (NASA C-MAPSS style).
@@ -209,23 +247,16 @@ public class MaintenanceService {
         int recommendedInterval = getMaintenanceInterval(equipmentType);
 
         // Analyze degradation
-        TrendAnalysis vibrationTrend = analyzeSensorTrend(equipmentId, "vibration", 168);
+        TrendAnalysis vibrationTrend = analyzeSensorTrend(equipmentId, "vibration", RUL_TREND_HOURS);
 
-        int baselineHours;
         String methodology;
         double confidence;
 
-        if (vibrationTrend != null && vibrationTrend.trendRate > 0.001) {
-            // Calculate based on vibration degradation rate
-            SensorThreshold threshold = THRESHOLDS.get("vibration");
-            double hoursToThreshold = (threshold.critical - vibrationTrend.latestValue) / vibrationTrend.trendRate;
-            baselineHours = (int) Math.max(0, hoursToThreshold);
+        int baselineHours = rulHours(vibrationTrend, recommendedInterval, daysSinceMaintenance);
+        if (isDegrading(vibrationTrend)) {
             methodology = String.format("Based on vibration degradation rate of %.4f mm/s per hour", vibrationTrend.trendRate);
             confidence = 0.75;
         } else {
-            // Fall back to maintenance schedule
-            int daysUntilMaint = recommendedInterval - daysSinceMaintenance;
-            baselineHours = Math.max(24, daysUntilMaint * 24);
             methodology = "Based on maintenance schedule (no clear sensor degradation pattern)";
             confidence = 0.5;
         }
@@ -253,6 +284,186 @@ public class MaintenanceService {
         );
     }
 
+    /**
+     * Failure prediction and RUL for every equipment of a facility, or the whole fleet.
+     *
+     * Set-based: one call to {@code predict_fleet_failure()} scores all equipment,
+     * and one query over the hourly rollup computes the 7-day trends grouped by
+     * equipment and sensor. Equipment the model returns nothing for falls back to
+     * the per-equipment heuristic, fanned out over a bounded pool.
+     */
+    @McpTool(description = "Assess failure risk and remaining useful life for all equipment at a " +
+                          "facility, or the whole fleet, in one call. Returns a compact list sorted " +
+                          "by failure probability (highest first). Use this instead of calling " +
+                          "predictFailure/estimateRul for each equipment when reviewing a facility.")
+    public List<FleetHealthEntry> assessFleetHealth(
+            @McpToolParam(description = "Facility ID (e.g., PHX, MUC, SHA, ATL). Omit for the whole fleet.")
+            String facilityId,
+
+            @McpToolParam(description = "Only include equipment at or above this risk level: LOW, MEDIUM, HIGH, CRITICAL (default LOW)")
+            String minRiskLevel,
+
+            @McpToolParam(description = "Maximum entries to return (default all)")
+            Integer limit
+    ) {
+        String facility = facilityId != null && !facilityId.isBlank() ? facilityId.toUpperCase() : null;
+        int minRank = minRiskLevel != null ? Math.max(0, RISK_LEVELS.indexOf(minRiskLevel.toUpperCase())) : 0;
+        long start = System.currentTimeMillis();
+
+        Map<String, FleetEquipment> equipment = loadFleetEquipment(facility);
+        Map<String, Map<String, TrendAnalysis>> trends = analyzeFleetTrends(facility, equipment.keySet(), RUL_TREND_HOURS);
+        Map<String, Map<String, Object>> predictions = callFleetPredictionModel(facility);
+
+        List<CompletableFuture<FleetHealthEntry>> fallbacks = new ArrayList<>();
+        List<FleetHealthEntry> entries = new ArrayList<>();
+        for (FleetEquipment e : equipment.values()) {
+            Map<String, TrendAnalysis> equipmentTrends = trends.getOrDefault(e.equipmentId(), Map.of());
+            Map<String, Object> prediction = predictions.get(e.equipmentId());
+            if (prediction != null) {
+                entries.add(toFleetEntry(e, equipmentTrends,
+                    ((Number) prediction.get("failure_probability")).doubleValue(),
+                    (String) prediction.get("risk_level"),
+                    ((Number) prediction.get("hours_to_failure")).intValue(),
+                    ((Number) prediction.get("confidence")).doubleValue(),
+                    "ML_MODEL"));
+            } else {
+                fallbacks.add(CompletableFuture.supplyAsync(() -> {
+                    FailurePrediction p = createFallbackPrediction(e.equipmentId(), RUL_TREND_HOURS);
+                    return toFleetEntry(e, equipmentTrends, p.failureProbability(), p.riskLevel(),
+                                        p.predictedHoursToFailure(), p.confidenceScore(), "FALLBACK");
+                }, fanoutExecutor));
+            }
+        }
+        fallbacks.forEach(f -> entries.add(f.join()));
+
+        List<FleetHealthEntry> result = entries.stream()
+            .filter(entry -> RISK_LEVELS.indexOf(entry.riskLevel()) >= minRank)
+            .sorted(Comparator.comparing(FleetHealthEntry::failureProbability).reversed()
+                    .thenComparing(FleetHealthEntry::equipmentId))
+            .limit(limit != null && limit > 0 ? limit : Long.MAX_VALUE)
+            .collect(Collectors.toList());
+
+        log.info("Fleet assessment for {}: {} equipment ({} fallback), {} returned in {} ms",
+                 facility != null ? facility : "all facilities", equipment.size(), fallbacks.size(),
+                 result.size(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private FleetHealthEntry toFleetEntry(FleetEquipment e, Map<String, TrendAnalysis> trends,
+                                          double probability, String riskLevel, int hoursToFailure,
+                                          double confidence, String source) {
+        TrendAnalysis vibration = trends.get("vibration");
+        TrendAnalysis temperature = trends.get("temperature");
+        return new FleetHealthEntry(
+            e.equipmentId(),
+            e.facilityId(),
+            e.type(),
+            Math.round(probability * 100.0) / 100.0,
+            riskLevel,
+            hoursToFailure,
+            rulHours(vibration, e.intervalDays(), e.daysSinceMaintenance()),
+            e.daysSinceMaintenance(),
+            e.intervalDays(),
+            vibration != null ? vibration.trendRate : null,
+            temperature != null ? temperature.trendRate : null,
+            confidence,
+            source
+        );
+    }
+
+    /** Equipment with its maintenance age and interval, in one query. */
+    private Map<String, FleetEquipment> loadFleetEquipment(String facilityId) {
+        Map<String, FleetEquipment> equipment = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+            SELECT e.equipment_id, e.facility_id, e.type,
+                   COALESCE(CURRENT_DATE - e.last_maintenance, 0) AS days_since_maintenance,
+                   COALESCE(t.maintenance_interval_days, 90) AS interval_days
+            FROM equipment e
+            LEFT JOIN equipment_types t ON t.type_code = e.type
+            WHERE ?::varchar IS NULL OR e.facility_id = ?
+            ORDER BY e.equipment_id
+            """, rs -> {
+                FleetEquipment e = new FleetEquipment(
+                    rs.getString("equipment_id"),
+                    rs.getString("facility_id"),
+                    rs.getString("type"),
+                    rs.getInt("days_since_maintenance"),
+                    rs.getInt("interval_days"));
+                equipment.put(e.equipmentId(), e);
+            }, facilityId, facilityId);
+        return equipment;
+    }
+
+    /** predict_fleet_failure() rows by equipment; empty if the model can't be applied. */
+    private Map<String, Map<String, Object>> callFleetPredictionModel(String facilityId) {
+        try {
+            Map<String, Map<String, Object>> predictions = new HashMap<>();
+            for (Map<String, Object> row : jdbcTemplate.queryForList(
+                    "SELECT * FROM predict_fleet_failure(?)", facilityId)) {
+                if (row.get("failure_probability") != null) {
+                    predictions.put((String) row.get("equipment_id"), row);
+                }
+            }
+            return predictions;
+        } catch (Exception e) {
+            log.error("Error calling fleet ML prediction model: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Vibration and temperature trends of every equipment in one pass grouped by
+     * equipment and sensor. Equipment with no rollup data yet (e.g. right after
+     * startup) are recomputed from raw readings in a second grouped query.
+     */
+    private Map<String, Map<String, TrendAnalysis>> analyzeFleetTrends(String facilityId, Set<String> equipmentIds,
+                                                                      int hoursBack) {
+        Map<String, Map<String, TrendAnalysis>> trends = new HashMap<>();
+        try {
+            SensorReadingSource source = SensorReadingSource.coarsestFor(hoursBack * 3600L, TREND_MIN_POINTS);
+            queryFleetTrendStats(source, hoursBack,
+                "(?::varchar IS NULL OR equipment_id IN (SELECT equipment_id FROM equipment WHERE facility_id = ?))",
+                new Object[] {facilityId, facilityId}, trends);
+
+            List<String> missing = equipmentIds.stream().filter(id -> !trends.containsKey(id)).toList();
+            if (source != SensorReadingSource.RAW && !missing.isEmpty()) {
+                queryFleetTrendStats(SensorReadingSource.RAW, hoursBack,
+                    "equipment_id IN (" + String.join(", ", Collections.nCopies(missing.size(), "?")) + ")",
+                    missing.toArray(), trends);
+            }
+        } catch (Exception e) {
+            log.warn("Error analyzing fleet trends for {}: {}", facilityId, e.getMessage());
+        }
+        return trends;
+    }
+
+    private void queryFleetTrendStats(SensorReadingSource source, int hoursBack, String equipmentFilter,
+                                      Object[] args, Map<String, Map<String, TrendAnalysis>> into) {
+        jdbcTemplate.query("""
+            SELECT equipment_id, sensor_type,
+                   COUNT(*) AS n,
+                   AVG(%3$s) AS avg_value,
+                   REGR_SLOPE(%3$s, EXTRACT(EPOCH FROM %2$s)) * 3600 AS slope_per_hour,
+                   (ARRAY_AGG(%4$s ORDER BY %2$s DESC))[1] AS latest_value
+            FROM %1$s
+            WHERE sensor_type IN ('vibration', 'temperature')
+            AND %2$s >= NOW() - INTERVAL '%5$d hours'
+            AND %6$s
+            GROUP BY equipment_id, sensor_type
+            HAVING COUNT(*) >= 2
+            """.formatted(source.table(), source.timeColumn(), source.valueColumn(),
+                          source.lastValueColumn(), hoursBack, equipmentFilter),
+            rs -> {
+                if (rs.getObject("slope_per_hour") == null) {
+                    return;
+                }
+                String sensorType = rs.getString("sensor_type");
+                into.computeIfAbsent(rs.getString("equipment_id"), k -> new HashMap<>()).put(sensorType,
+                    toTrendAnalysis(sensorType, rs.getDouble("latest_value"), rs.getDouble("avg_value"),
+                                    rs.getDouble("slope_per_hour")));
+            }, args);
+    }
+
     /**
      * Schedule maintenance work order for equipment.
      */
@@ -432,52 +643,77 @@ public class MaintenanceService {
         }
     }
 
+    /**
+     * Least-squares trend of one sensor over the window, computed in Greenplum with
+     * REGR_SLOPE against the reading timestamps, so only one row of
+     * statistics comes back regardless of how many readings the window holds.
+     */
     private TrendAnalysis analyzeSensorTrend(String equipmentId, String sensorType, int hoursBack) {
         try {
-            List<Map<String, Object>> readings = jdbcTemplate.queryForList("""
-                SELECT EXTRACT(EPOCH FROM time) as epoch, value
-                FROM sensor_readings
-                WHERE equipment_id = ? AND sensor_type = ?
-                AND time >= NOW() - INTERVAL '%d hours'
-                ORDER BY time
-                """.formatted(hoursBack), equipmentId, sensorType);
-
-            if (readings.size() < 2) return null;
-
-            // Simple linear regression
-            double n = readings.size();
-            double sumX = 0, sumY = 0, sumXY = 0, sumX2 = 0;
-            double latestValue = 0;
-
-            for (int i = 0; i < readings.size(); i++) {
-                double x = i;
-                double y = ((Number) readings.get(i).get("value")).doubleValue();
-                sumX += x;
-                sumY += y;
-                sumXY += x * y;
-                sumX2 += x * x;
-                latestValue = y;
+            // Long windows read hourly/minute rollups instead of scanning raw readings;
+            // raw is the fallback while the rollups are empty (e.g. right after startup)
+            SensorReadingSource source = SensorReadingSource.coarsestFor(hoursBack * 3600L, TREND_MIN_POINTS);
+            Map<String, Object> stats = queryTrendStats(source, equipmentId, sensorType, hoursBack);
+            if (((Number) stats.get("n")).longValue() < 2 && source != SensorReadingSource.RAW) {
+                stats = queryTrendStats(SensorReadingSource.RAW, equipmentId, sensorType, hoursBack);
             }
 
-            double slope = (n * sumXY - sumX * sumY) / (n * sumX2 - sumX * sumX);
-            double avgValue = sumY / n;
-
-            // Convert slope to per-hour rate (assuming readings are roughly hourly)
-            double hoursPerReading = (double) hoursBack / n;
-            double trendRate = slope / hoursPerReading;
+            if (((Number) stats.get("n")).longValue() < 2 || stats.get("slope_per_hour") == null) return null;
 
-            String trend = trendRate > 0.001 ? "INCREASING" : (trendRate < -0.001 ? "DECREASING" : "STABLE");
+            double trendRate = ((Number) stats.get("slope_per_hour")).doubleValue();
+            double avgValue = ((Number) stats.get("avg_value")).doubleValue();
+            double latestValue = ((Number) stats.get("latest_value")).doubleValue();
 
-            SensorThreshold threshold = THRESHOLDS.get(sensorType);
-            String unit = threshold != null ? threshold.unit : "";
-
-            return new TrendAnalysis(sensorType, latestValue, avgValue, trendRate, trend, unit);
+            log.debug("Trend {} {} over {}h from {}: {} points, {}/h",
+                      equipmentId, sensorType, hoursBack, source.table(), stats.get("n"), trendRate);
+            return toTrendAnalysis(sensorType, latestValue, avgValue, trendRate);
         } catch (Exception e) {
             log.warn("Error analyzing trend for {} {}: {}", equipmentId, sensorType, e.getMessage());
             return null;
         }
     }
 
+    private TrendAnalysis toTrendAnalysis(String sensorType, double latestValue, double avgValue,
+                                          double trendRate) {
+        String trend = trendRate > 0.001 ? "INCREASING" : (trendRate < -0.001 ? "DECREASING" : "STABLE");
+
+        SensorThreshold threshold = THRESHOLDS.get(sensorType);
+        String unit = threshold != null ? threshold.unit : "";
+        return new TrendAnalysis(sensorType, latestValue, avgValue, trendRate, trend, unit);
+    }
+
+    private static boolean isDegrading(TrendAnalysis vibrationTrend) {
+        return vibrationTrend != null && vibrationTrend.trendRate > 0.001;
+    }
+
+    /**
+     * Hours until vibration reaches its critical threshold at the current rate,
+     * or until the next scheduled maintenance when there is no degradation trend.
+     */
+    private static int rulHours(TrendAnalysis vibrationTrend, int intervalDays, int daysSinceMaintenance) {
+        if (isDegrading(vibrationTrend)) {
+            SensorThreshold threshold = THRESHOLDS.get("vibration");
+            double hoursToThreshold = (threshold.critical - vibrationTrend.latestValue) / vibrationTrend.trendRate;
+            return (int) Math.max(0, hoursToThreshold);
+        }
+        return Math.max(24, (intervalDays - daysSinceMaintenance) * 24);
+    }
+
+    private Map<String, Object> queryTrendStats(SensorReadingSource source, String equipmentId,
+                                                String sensorType, int hoursBack) {
+        return jdbcTemplate.queryForMap("""
+            SELECT COUNT(*) AS n,
+                   AVG(%3$s) AS avg_value,
+                   REGR_SLOPE(%3$s, EXTRACT(EPOCH FROM %2$s)) * 3600 AS slope_per_hour,
+                   (ARRAY_AGG(%4$s ORDER BY %2$s DESC))[1] AS latest_value
+            FROM %1$s
+            WHERE equipment_id = ? AND sensor_type = ?
+            AND %2$s >= NOW() - INTERVAL '%5$d hours'
+            """.formatted(source.table(), source.timeColumn(), source.valueColumn(),
+                          source.lastValueColumn(), hoursBack),
+            equipmentId, sensorType);
+    }
+
     private RiskFactor createRiskFactor(TrendAnalysis trend) {
         SensorThreshold threshold = THRESHOLDS.get(trend.sensorType);
         double warningThreshold = threshold != null ? threshold.warning : 0;
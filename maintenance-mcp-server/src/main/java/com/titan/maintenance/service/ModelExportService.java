@@ -1,5 +1,8 @@
 package com.titan.maintenance.service;
 
+import com.titan.common.scoring.LogisticRegressionScorer;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.execute.ResultCollector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springaicommunity.mcp.annotation.McpTool;
@@ -20,6 +23,9 @@ public class ModelExportService {
 
     private static final Logger log = LoggerFactory.getLogger(ModelExportService.class);
 
+    // Largest |compiled - JPMML| probability accepted by validateCompiledScorer
+    private static final double COMPILED_TOLERANCE = 1e-12;
+
     private final JdbcTemplate jdbcTemplate;
     private final GemFireService gemFireService;
 
@@ -193,6 +199,98 @@ public class ModelExportService {
         }
     }
 
+    /**
+     * Check the compiled logistic scorer against JPMML on the training set.
+     * Every row of ml_training_data is scored in-process by the compiled scorer and
+     * by JPMML inside GemFire (PmmlBatchScoringFunction with engine "jpmml"), and
+     * the largest absolute difference is reported.
+     */
+    public Map<String, Object> validateCompiledScorer(String modelId) {
+        String targetModelId = modelId != null && !modelId.isBlank() ? modelId : "failure_predictor_v1";
+        log.info("Validating compiled scorer for {} against JPMML", targetModelId);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("modelId", targetModelId);
+        try {
+            Map<String, Object> export = exportModelAsPMML(targetModelId);
+            if (!Boolean.TRUE.equals(export.get("success"))) {
+                result.put("success", false);
+                result.put("error", "PMML export failed: " + export.get("error"));
+                return result;
+            }
+            LogisticRegressionScorer scorer = LogisticRegressionScorer.compile((String) export.get("pmml"));
+            String[] fields = scorer.fieldNames();
+            for (String field : fields) {
+                if (!field.matches("[a-z_][a-z0-9_]*")) {
+                    throw new IllegalArgumentException("Unexpected feature name: " + field);
+                }
+            }
+
+            // Training rows, flattened in the model's field order
+            List<double[]> rows = jdbcTemplate.query(
+                    "SELECT " + String.join(", ", fields) + " FROM ml_training_data ORDER BY observation_id",
+                    (rs, i) -> {
+                        double[] row = new double[fields.length];
+                        for (int f = 0; f < fields.length; f++) {
+                            row[f] = rs.getDouble(f + 1);
+                        }
+                        return row;
+                    });
+            double[] flat = new double[rows.size() * fields.length];
+            for (int r = 0; r < rows.size(); r++) {
+                System.arraycopy(rows.get(r), 0, flat, r * fields.length, fields.length);
+            }
+
+            long compiledStart = System.nanoTime();
+            double[] compiled = new double[rows.size()];
+            scorer.scoreAll(flat, compiled);
+            long compiledNanos = System.nanoTime() - compiledStart;
+
+            long jpmmlStart = System.nanoTime();
+            @SuppressWarnings("unchecked")
+            ResultCollector<Object, List<Object>> rc = (ResultCollector<Object, List<Object>>)
+                    FunctionService.onRegion(gemFireService.getPmmlModelsRegion())
+                            .setArguments(new Object[] { targetModelId, fields, flat, "jpmml" })
+                            .execute("PmmlBatchScoringFunction");
+            Object reply = rc.getResult().get(0);
+            long jpmmlNanos = System.nanoTime() - jpmmlStart;
+            if (!(reply instanceof double[] jpmml)) {
+                throw new IllegalStateException("GemFire JPMML scoring failed: " + reply);
+            }
+
+            double maxAbsDiff = 0;
+            int mismatches = 0;
+            int worstRow = -1;
+            for (int r = 0; r < compiled.length; r++) {
+                double diff = Math.abs(Math.max(0.0, Math.min(1.0, compiled[r])) - jpmml[r]);
+                if (!(diff <= COMPILED_TOLERANCE)) {
+                    mismatches++;
+                }
+                if (diff > maxAbsDiff || Double.isNaN(diff)) {
+                    maxAbsDiff = diff;
+                    worstRow = r;
+                }
+            }
+
+            result.put("success", mismatches == 0);
+            result.put("rows", compiled.length);
+            result.put("features", fields.length);
+            result.put("tolerance", COMPILED_TOLERANCE);
+            result.put("maxAbsDiff", maxAbsDiff);
+            result.put("mismatches", mismatches);
+            result.put("worstRow", worstRow);
+            result.put("compiledMicros", compiledNanos / 1000);
+            result.put("jpmmlRoundTripMicros", jpmmlNanos / 1000);
+            log.info("Compiled scorer validation for {}: {} rows, max |diff| {}, {} mismatches",
+                    targetModelId, compiled.length, maxAbsDiff, mismatches);
+        } catch (Exception e) {
+            log.error("Compiled scorer validation failed for {}: {}", targetModelId, e.getMessage());
+            result.put("success", false);
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
     private Map<String, String> step(String type, String message) {
         return Map.of(
                 "type", type,
@@ -0,0 +1,194 @@
+package com.titan.maintenance.service;
+
+import com.titan.maintenance.model.SensorPrediction;
+import org.apache.geode.cache.Region;
+import org.apache.geode.cache.execute.FunctionException;
+import org.apache.geode.cache.execute.FunctionService;
+import org.apache.geode.cache.execute.ResultCollector;
+import org.apache.geode.cache.query.QueryException;
+import org.apache.geode.cache.query.QueryService;
+import org.apache.geode.cache.query.SelectResults;
+import org.apache.geode.cache.query.Struct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springaicommunity.mcp.annotation.McpTool;
+import org.springaicommunity.mcp.annotation.McpToolParam;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * OQL queries over the GemFire SensorPredictions region.
+ *
+ * Filtering, sorting and aggregation run as OQL on the GemFire servers against
+ * the PDX fields of {@link SensorPrediction}; the client only receives the page
+ * it asked for. OQL has no OFFSET, so a page is fetched as the top
+ * {@code offset + limit} and the first {@code offset} rows are skipped here —
+ * fine for dashboard paging depths.
+ *
+ * When the client region is a caching proxy
+ * ({@code gemfire.predictions.client-region=caching-proxy}) the same OQL runs
+ * against the local copy instead, which the servers keep current.
+ */
+@Service
+public class PredictionQueryService {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionQueryService.class);
+
+    private static final String REGION_PATH = "/SensorPredictions";
+    private static final Set<String> RISK_LEVELS = Set.of("LOW", "MEDIUM", "HIGH", "CRITICAL");
+    private static final int MAX_PAGE_END = 10_000;
+
+    private final GemFireService gemFireService;
+
+    public PredictionQueryService(GemFireService gemFireService) {
+        this.gemFireService = gemFireService;
+    }
+
+    /** A page of predictions plus the number of rows matching the filter. */
+    public record PredictionPage(List<SensorPrediction> predictions, int totalMatching, int offset, int limit) {}
+
+    /**
+     * Predictions ordered by failure probability (highest first), optionally
+     * filtered by facility and risk level.
+     *
+     * @param limit page size, or null for everything matching
+     */
+    public PredictionPage query(String facilityId, String riskLevel, Integer limit, Integer offset) {
+        int from = offset != null ? Math.max(0, offset) : 0;
+        if (limit != null && (limit < 1 || from + limit > MAX_PAGE_END)) {
+            throw new IllegalArgumentException("limit must be 1.." + (MAX_PAGE_END - from));
+        }
+
+        List<Object> params = new ArrayList<>();
+        String where = whereClause(facilityId, riskLevel, params);
+
+        String oql = "SELECT * FROM " + REGION_PATH + " p" + where + " ORDER BY p.failureProbability DESC"
+                + (limit != null ? " LIMIT " + (from + limit) : "");
+        SelectResults<?> rows = execute(oql, params);
+
+        List<SensorPrediction> page = new ArrayList<>();
+        int index = 0;
+        for (Object row : rows) {
+            if (index++ >= from && row instanceof SensorPrediction prediction) {
+                page.add(prediction);
+            }
+        }
+
+        int total = limit == null ? index : count(where, params);
+        return new PredictionPage(page, total, from, limit != null ? limit : page.size());
+    }
+
+    /** Number of predictions per risk level (levels with no equipment report 0). */
+    public Map<String, Integer> countsByRiskLevel(String facilityId) {
+        List<Object> params = new ArrayList<>();
+        String where = whereClause(facilityId, null, params);
+        SelectResults<?> rows = execute(
+                "SELECT p.riskLevel, COUNT(*) FROM " + REGION_PATH + " p" + where + " GROUP BY p.riskLevel", params);
+
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String level : List.of("CRITICAL", "HIGH", "MEDIUM", "LOW")) {
+            counts.put(level, 0);
+        }
+        for (Object row : rows) {
+            Object[] values = ((Struct) row).getFieldValues();
+            counts.put(String.valueOf(values[0]), ((Number) values[1]).intValue());
+        }
+        return counts;
+    }
+
+    @McpTool(description = "Query real-time ML predictions in GemFire, highest failure probability first. " +
+            "Filter by facility and/or risk level, page with limit/offset, and get counts per risk level. " +
+            "Sorting and counting run on the GemFire servers.")
+    public Map<String, Object> queryGemFirePredictions(
+            @McpToolParam(description = "Facility ID filter, e.g. PHX (optional)")
+            String facilityId,
+            @McpToolParam(description = "Risk level filter: LOW, MEDIUM, HIGH or CRITICAL (optional)")
+            String riskLevel,
+            @McpToolParam(description = "Page size (default 20)")
+            Integer limit,
+            @McpToolParam(description = "Rows to skip (default 0)")
+            Integer offset
+    ) {
+        log.info("Querying GemFire predictions: facility={}, riskLevel={}, limit={}, offset={}",
+                facilityId, riskLevel, limit, offset);
+        try {
+            PredictionPage page = query(facilityId, riskLevel, limit != null ? limit : 20, offset);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("success", true);
+            result.put("totalMatching", page.totalMatching());
+            result.put("offset", page.offset());
+            result.put("limit", page.limit());
+            result.put("predictions", page.predictions());
+            result.put("countsByRiskLevel", countsByRiskLevel(facilityId));
+            return result;
+        } catch (Exception e) {
+            log.error("Failed to query GemFire predictions: {}", e.getMessage());
+            return Map.of("success", false, "error", String.valueOf(e.getMessage()));
+        }
+    }
+
+    /**
+     * Remove every prediction. Uses ClearPredictionsFunction (one local removeAll
+     * per server); if the function isn't deployed, falls back to a single
+     * client-side removeAll of all keys.
+     *
+     * @return number of entries removed
+     */
+    public int clearAll() {
+        Region<String, SensorPrediction> region = gemFireService.getSensorPredictionsRegion();
+        try {
+            @SuppressWarnings("unchecked")
+            ResultCollector<Object, List<Object>> rc = (ResultCollector<Object, List<Object>>)
+                    FunctionService.onRegion(region).execute("ClearPredictionsFunction");
+            int removed = 0;
+            for (Object result : rc.getResult()) {
+                if (result instanceof Number n) {
+                    removed += n.intValue();
+                } else {
+                    throw new FunctionException(String.valueOf(result));
+                }
+            }
+            return removed;
+        } catch (FunctionException e) {
+            log.debug("ClearPredictionsFunction unavailable ({}), removing keys from the client", e.getMessage());
+            Set<String> keys = region.keySetOnServer();
+            region.removeAll(keys);
+            return keys.size();
+        }
+    }
+
+    private int count(String where, List<Object> params) {
+        SelectResults<?> rows = execute("SELECT COUNT(*) FROM " + REGION_PATH + " p" + where, params);
+        return ((Number) rows.iterator().next()).intValue();
+    }
+
+    private static String whereClause(String facilityId, String riskLevel, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (facilityId != null && !facilityId.isBlank()) {
+            params.add(facilityId.trim().toUpperCase());
+            conditions.add("p.facilityId = $" + params.size());
+        }
+        if (riskLevel != null && !riskLevel.isBlank()) {
+            String level = riskLevel.trim().toUpperCase();
+            if (!RISK_LEVELS.contains(level)) {
+                throw new IllegalArgumentException("Unknown risk level: " + riskLevel);
+            }
+            params.add(level);
+            conditions.add("p.riskLevel = $" + params.size());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private SelectResults<?> execute(String oql, List<Object> params) {
+        try {
+            // With a caching-proxy region every entry is already local; query it without a server round trip
+            QueryService queryService = gemFireService.isPredictionsCached()
+                    ? gemFireService.getClientCache().getLocalQueryService()
+                    : gemFireService.getClientCache().getQueryService();
+            return (SelectResults<?>) queryService.newQuery(oql).execute(params.toArray());
+        } catch (QueryException e) {
+            throw new IllegalStateException("OQL query failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.titan.maintenance.service;
+
+import com.titan.maintenance.model.SensorPrediction;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans SensorPredictions change events out to dashboard SSE clients.
+ *
+ * Events arrive from the GemFire region listener (on GemFire's notification
+ * threads, or on the scorer thread for this client's own writes) and are
+ * offered to the queue of every client that wants them, which never blocks.
+ * Each client has a bounded queue drained by a shared sender pool; one that
+ * falls a full queue behind is disconnected and can reconnect for a fresh
+ * start. A send that blocks (a peer that stopped reading) longer than
+ * {@code gemfire.predictions.stream.send-timeout-ms} disconnects its client,
+ * and the pool gets an extra thread until that send returns, so stalled peers
+ * don't hold up delivery to the others.
+ */
+@Service
+public class PredictionStreamService {
+
+    private static final Logger log = LoggerFactory.getLogger(PredictionStreamService.class);
+    private static final long SSE_TIMEOUT = 300_000L; // 5 minutes
+
+    private final int clientQueueCapacity;
+    private final ThreadPoolExecutor senders;
+    // Own thread rather than @Scheduled, which shares one thread with the scoring sweep
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "prediction-stream-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
+    private final int senderThreads;
+    private final long sendTimeoutNanos;
+    // Sender threads stuck in a send to an evicted client; the pool is grown by this many
+    private final AtomicInteger stalledSenders = new AtomicInteger(0);
+    private final CopyOnWriteArrayList<Client> clients = new CopyOnWriteArrayList<>();
+    private final AtomicLong eventsPublished = new AtomicLong(0);
+    private final AtomicLong slowClientsDropped = new AtomicLong(0);
+
+    public PredictionStreamService(
+            @Value("${gemfire.predictions.stream.client-queue-capacity:256}") int clientQueueCapacity,
+            @Value("${gemfire.predictions.stream.sender-threads:2}") int senderThreads,
+            @Value("${gemfire.predictions.stream.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.clientQueueCapacity = Math.max(1, clientQueueCapacity);
+        this.senderThreads = Math.max(1, senderThreads);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.senders = (ThreadPoolExecutor) Executors.newFixedThreadPool(this.senderThreads, r -> {
+            Thread t = new Thread(r, "prediction-stream-send");
+            t.setDaemon(true);
+            return t;
+        });
+        long checkMs = Math.max(100, sendTimeoutMs / 2);
+        watchdog.scheduleWithFixedDelay(this::evictStalledClients, checkMs, checkMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Register a dashboard client, optionally filtered by facility and risk level. */
+    public SseEmitter subscribe(String facilityId, String riskLevel) {
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
+        Client client = new Client(emitter, blankToNull(facilityId), blankToNull(riskLevel));
+        emitter.onCompletion(client::unsubscribe);
+        emitter.onTimeout(client::unsubscribe);
+        emitter.onError(e -> client.unsubscribe());
+        clients.add(client);
+        log.info("New prediction stream client: facilityId={}, riskLevel={}", facilityId, riskLevel);
+        return emitter;
+    }
+
+    /** A prediction was created or updated in SensorPredictions. */
+    public void onPrediction(SensorPrediction prediction) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        StreamEvent event = new StreamEvent("prediction", prediction);
+        for (Client client : clients) {
+            if (client.wants(prediction)) {
+                client.enqueue(event);
+            }
+        }
+    }
+
+    /** A prediction was removed from SensorPredictions. */
+    public void onRemoved(String equipmentId) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        StreamEvent event = new StreamEvent("prediction-removed", Map.of("equipmentId", equipmentId));
+        for (Client client : clients) {
+            if (client.facilityId == null || equipmentId.startsWith(client.facilityId.toUpperCase())) {
+                client.enqueue(event);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clients", clients.size());
+        stats.put("eventsPublished", eventsPublished.get());
+        stats.put("slowClientsDropped", slowClientsDropped.get());
+        stats.put("stalledSenders", stalledSenders.get());
+        return stats;
+    }
+
+    /** Disconnect clients whose current send has been blocked longer than the send timeout. */
+    private void evictStalledClients() {
+        long now = System.nanoTime();
+        for (Client client : clients) {
+            client.evictIfStalled(now);
+        }
+    }
+
+    /** Grow or shrink the sender pool by the number of threads stuck on evicted clients. */
+    private synchronized void adjustSenders(int delta) {
+        int size = senderThreads + stalledSenders.addAndGet(delta);
+        if (delta > 0) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        senders.shutdownNow();
+        for (Client client : clients) {
+            try {
+                client.emitter.complete();
+            } catch (Exception ignored) {}
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private record StreamEvent(String name, Object data) {}
+
+    /** One SSE connection with its filters and its own bounded queue of pending events. */
+    private final class Client {
+
+        private final SseEmitter emitter;
+        private final String facilityId;
+        private final String riskLevel;
+        private final ArrayBlockingQueue<StreamEvent> pending = new ArrayBlockingQueue<>(clientQueueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private volatile boolean closed;
+        // System.nanoTime() when the send in progress started, 0 when not sending
+        private volatile long sendStartedNanos;
+        private boolean stalled; // guarded by this
+
+        Client(SseEmitter emitter, String facilityId, String riskLevel) {
+            this.emitter = emitter;
+            this.facilityId = facilityId;
+            this.riskLevel = riskLevel;
+        }
+
+        boolean wants(SensorPrediction prediction) {
+            return (facilityId == null || facilityId.equalsIgnoreCase(prediction.getFacilityId()))
+                && (riskLevel == null || riskLevel.equalsIgnoreCase(prediction.getRiskLevel()));
+        }
+
+        void enqueue(StreamEvent event) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(event)) {
+                slowClientsDropped.incrementAndGet();
+                log.debug("Dropping slow prediction stream client ({} events behind)", pending.size());
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                StreamEvent event;
+                while (!closed && (event = pending.poll()) != null) {
+                    try {
+                        send(event);
+                        eventsPublished.incrementAndGet();
+                    } catch (Exception e) {
+                        log.debug("Dropping prediction stream client: {}", e.getMessage());
+                        close();
+                    }
+                }
+                // Closed while we held the drain flag: completing the emitter is ours to do
+                if (closed) {
+                    complete();
+                    return;
+                }
+                draining.set(false);
+                if (closed && draining.compareAndSet(false, true)) {
+                    complete();
+                    return;
+                }
+                // An event queued between the last poll and clearing the flag would otherwise sit until the next one
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void send(StreamEvent event) throws Exception {
+            sendStartedNanos = System.nanoTime();
+            try {
+                emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+            } finally {
+                synchronized (this) {
+                    sendStartedNanos = 0;
+                    if (stalled) {
+                        stalled = false;
+                        adjustSenders(-1);
+                    }
+                }
+            }
+        }
+
+        void evictIfStalled(long now) {
+            synchronized (this) {
+                long started = sendStartedNanos;
+                if (started == 0 || stalled || now - started < sendTimeoutNanos) {
+                    return;
+                }
+                stalled = true;
+                adjustSenders(1);
+            }
+            slowClientsDropped.incrementAndGet();
+            log.debug("Dropping prediction stream client blocked in a send for over {} ms",
+                      TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+            close();
+        }
+
+        void unsubscribe() {
+            closed = true;
+            clients.remove(this);
+        }
+
+        /**
+         * Stop delivering to this client. The emitter is completed here only when no
+         * drain is running; a running one may be blocked in a send and completes it
+         * when it stops, so this never blocks the caller.
+         */
+        private void close() {
+            unsubscribe();
+            pending.clear();
+            if (draining.compareAndSet(false, true)) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {}
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.titan.maintenance.service;
+
+/**
+ * Where sensor history is read from: the raw {@code sensor_readings} table or
+ * one of its rollups maintained in Greenplum by {@code sensor_storage_maintenance()}.
+ *
+ * Rollup rows carry min/max/avg/count/last per bucket; {@link #valueColumn()} is
+ * the bucket average.
+ */
+public enum SensorReadingSource {
+
+    RAW("sensor_readings", "time", "value", "value", 0),
+    MINUTE("sensor_readings_1m", "bucket", "avg_value", "last_value", 60),
+    HOUR("sensor_readings_1h", "bucket", "avg_value", "last_value", 3_600);
+
+    private final String table;
+    private final String timeColumn;
+    private final String valueColumn;
+    private final String lastValueColumn;
+    private final long bucketSeconds;
+
+    SensorReadingSource(String table, String timeColumn, String valueColumn, String lastValueColumn,
+                        long bucketSeconds) {
+        this.table = table;
+        this.timeColumn = timeColumn;
+        this.valueColumn = valueColumn;
+        this.lastValueColumn = lastValueColumn;
+        this.bucketSeconds = bucketSeconds;
+    }
+
+    public String table() { return table; }
+    public String timeColumn() { return timeColumn; }
+    public String valueColumn() { return valueColumn; }
+    /** Most recent reading within a row: the reading itself, or a bucket's last value. */
+    public String lastValueColumn() { return lastValueColumn; }
+    public long bucketSeconds() { return bucketSeconds; }
+
+    /**
+     * The coarsest source that still yields at least {@code minPoints} buckets
+     * over the window; {@link #RAW} if no rollup is fine enough.
+     */
+    public static SensorReadingSource coarsestFor(long windowSeconds, int minPoints) {
+        if (windowSeconds / HOUR.bucketSeconds >= minPoints) {
+            return HOUR;
+        }
+        if (windowSeconds / MINUTE.bucketSeconds >= minPoints) {
+            return MINUTE;
+        }
+        return RAW;
+    }
+}
@@ -0,0 +1,142 @@
+package com.titan.maintenance.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the running regression sums of {@link EquipmentWindow} against a batch
+ * least-squares fit over the same readings, for random sequences of appends,
+ * window expiry, ring overwrites and read cutoffs, across re-anchors.
+ */
+class EquipmentWindowTest {
+
+    private static final long WINDOW_MS = 3_600_000L;
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+    private static final SensorChannel[] CHANNELS = { SensorChannel.VIBRATION, SensorChannel.TEMPERATURE };
+
+    /** Reference copy of one channel: the readings the window should hold. */
+    private static final class Model {
+        final Deque<Long> times = new ArrayDeque<>();
+        final Deque<Double> values = new ArrayDeque<>();
+    }
+
+    @Test
+    void runningSumsMatchBatchFitAcrossReanchors() {
+        for (long seed = 1; seed <= 20; seed++) {
+            checkRandomSequence(seed);
+        }
+    }
+
+    private void checkRandomSequence(long seed) {
+        Random random = new Random(seed);
+        EquipmentWindow window = new EquipmentWindow(64, WINDOW_MS);
+        WindowSnapshot snapshot = new WindowSnapshot();
+        Model[] models = { new Model(), new Model() };
+
+        long now = 1_760_000_000_000L + random.nextInt(1_000_000);
+        double[] trend = { random.nextGaussian() * 0.5, random.nextGaussian() * 2 };
+        int checks = 0;
+
+        for (int step = 0; step < 5_000; step++) {
+            // Mostly regular readings; occasionally a long gap that expires most of the window
+            now += random.nextInt(100) < 2 ? 20 * 60_000L + random.nextInt(60 * 60_000)
+                                           : 5_000 + random.nextInt(115_000);
+            int k = random.nextInt(CHANNELS.length);
+            double hours = (now % (6 * WINDOW_MS)) / MILLIS_PER_HOUR;
+            double value = (k == 0 ? 2.5 : 65.0) + trend[k] * hours + random.nextGaussian();
+
+            window.append(CHANNELS[k], now, value);
+            append(models[k], window.capacity(), now, value);
+
+            if (step % 7 == 0) {
+                // Scoring may cut off later than the writer has expired, e.g. for a quiet channel
+                long cutoff = now - WINDOW_MS + (random.nextBoolean() ? 0 : random.nextInt((int) (WINDOW_MS / 2)));
+                assertTrue(window.read(cutoff, snapshot));
+                for (int c = 0; c < CHANNELS.length; c++) {
+                    checks += assertMatchesBatchFit(seed, snapshot, CHANNELS[c], models[c], cutoff) ? 1 : 0;
+                }
+            }
+        }
+
+        assertTrue(window.reanchors() > 0, "sequence " + seed + " never re-anchored");
+        assertTrue(window.maxRelativeDrift() < 1e-9, "drift " + window.maxRelativeDrift());
+        assertTrue(checks > 100, "only " + checks + " fits compared for sequence " + seed);
+    }
+
+    private static void append(Model model, int capacity, long timestamp, double value) {
+        if (model.times.size() == capacity) {
+            model.times.removeFirst();
+            model.values.removeFirst();
+        }
+        model.times.addLast(timestamp);
+        model.values.addLast(value);
+        while (model.times.peekFirst() < timestamp - WINDOW_MS) {
+            model.times.removeFirst();
+            model.values.removeFirst();
+        }
+    }
+
+    /** @return true if a fit was compared (enough readings over a long enough span) */
+    private static boolean assertMatchesBatchFit(long seed, WindowSnapshot snapshot, SensorChannel channel,
+                                                 Model model, long cutoff) {
+        int n = 0;
+        long first = 0;
+        long last = 0;
+        double sumX = 0;
+        double sumY = 0;
+        Iterator<Double> vs = model.values.iterator();
+        for (long t : model.times) {
+            double y = vs.next();
+            if (t < cutoff) continue;
+            if (n == 0) first = t;
+            last = t;
+            sumX += (t - first) / MILLIS_PER_HOUR;
+            sumY += y;
+            n++;
+        }
+        String where = "sequence " + seed + ", " + channel;
+        assertEquals(n, snapshot.count(channel), where + ": count");
+        if (n == 0) {
+            return false;
+        }
+        assertEquals(first, snapshot.firstTimes[channel.ordinal()], where + ": first reading");
+        assertEquals(last, snapshot.lastTimes[channel.ordinal()], where + ": last reading");
+        assertEquals(sumY / n, snapshot.mean(channel, Double.NaN), 1e-9 * Math.max(1, Math.abs(sumY / n)), where + ": mean");
+
+        // Two-pass batch fit, x in hours since the first reading
+        double meanX = sumX / n;
+        double meanY = sumY / n;
+        double sxx = 0;
+        double sxy = 0;
+        double syy = 0;
+        vs = model.values.iterator();
+        for (long t : model.times) {
+            double y = vs.next();
+            if (t < cutoff) continue;
+            double dx = (t - first) / MILLIS_PER_HOUR - meanX;
+            double dy = y - meanY;
+            sxx += dx * dx;
+            sxy += dx * dy;
+            syy += dy * dy;
+        }
+        if (n < 3 || (last - first) < 5 * 60_000L) {
+            return false; // too short for a well-conditioned slope
+        }
+        double slope = sxy / sxx;
+        double intercept = meanY - slope * meanX;
+        double r2 = sxy * sxy / (sxx * syy);
+
+        double[] fit = snapshot.leastSquaresFit(channel);
+        assertEquals(slope, fit[0], 1e-6 * Math.max(1, Math.abs(slope)), where + ": slope");
+        assertEquals(r2, fit[1], 1e-6, where + ": r2");
+        assertEquals(intercept, snapshot.fittedValue(channel, first), 1e-6 * Math.max(1, Math.abs(intercept)),
+                     where + ": intercept");
+        return true;
+    }
+}
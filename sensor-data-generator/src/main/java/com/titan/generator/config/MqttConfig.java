@@ -1,23 +1,21 @@
 package com.titan.generator.config;
 
-import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * MQTT client configuration for publishing sensor data to RabbitMQ.
+ *
+ * Each generator shard gets its own {@link MqttAsyncClient}, so shards publish
+ * over separate connections with separate inflight windows.
  */
 @Configuration
 public class MqttConfig {
 
-    private static final Logger log = LoggerFactory.getLogger(MqttConfig.class);
-
     @Value("${mqtt.broker:tcp://localhost:1883}")
     private String brokerUrl;
 
@@ -30,13 +28,16 @@ public class MqttConfig {
     @Value("${mqtt.password:titan5.0}")
     private String password;
 
-    @Bean
-    public MqttClient mqttClient() throws MqttException {
-        log.info("Connecting to MQTT broker at: {}", brokerUrl);
+    @Value("${mqtt.max-inflight:1000}")
+    private int maxInflight;
 
-        MqttClient client = new MqttClient(brokerUrl, clientId + "-" + System.currentTimeMillis(),
-                                            new MemoryPersistence());
+    /** A new, unconnected client for shard {@code shard}. */
+    public MqttAsyncClient createShardClient(int shard) throws MqttException {
+        return new MqttAsyncClient(brokerUrl, clientId + "-" + shard + "-" + System.currentTimeMillis(),
+                                   new MemoryPersistence());
+    }
 
+    public MqttConnectOptions connectOptions() {
         MqttConnectOptions options = new MqttConnectOptions();
         options.setUserName(username);
         options.setPassword(password.toCharArray());
@@ -44,15 +45,11 @@ public class MqttConfig {
         options.setAutomaticReconnect(true);
         options.setConnectionTimeout(10);
         options.setKeepAliveInterval(60);
-        options.setMaxInflight(1000); // Support high-throughput sensor publishing
-
-        try {
-            client.connect(options);
-            log.info("Connected to MQTT broker successfully");
-        } catch (MqttException e) {
-            log.warn("Failed to connect to MQTT broker: {}. Will retry on first publish.", e.getMessage());
-        }
+        options.setMaxInflight(maxInflight); // Unacknowledged QoS 1 messages per shard connection
+        return options;
+    }
 
-        return client;
+    public String getBrokerUrl() {
+        return brokerUrl;
     }
 }
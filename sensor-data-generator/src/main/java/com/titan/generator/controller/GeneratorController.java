@@ -43,7 +43,8 @@ public class GeneratorController {
             "enabled", generator.isEnabled(),
             "equipmentCount", generator.getEquipmentStates().size(),
             "patterns", DegradationPattern.values(),
-            "speedMultiplier", generator.getSpeedMultiplier()
+            "speedMultiplier", generator.getSpeedMultiplier(),
+            "engine", generator.getEngineStats()
         );
     }
 
@@ -0,0 +1,19 @@
+package com.titan.generator.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * All sensor readings of one equipment for one tick, published to MQTT as a
+ * single message in frame mode.
+ */
+public record SensorFrame(
+    String equipmentId,
+    String facilityId,
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    Instant timestamp,
+    List<Reading> readings
+) {
+    public record Reading(String sensorType, double value, String unit, String qualityFlag) {}
+}
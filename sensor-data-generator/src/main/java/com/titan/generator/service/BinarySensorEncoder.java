@@ -0,0 +1,140 @@
+package com.titan.generator.service;
+
+import com.titan.common.codec.BinarySensorFormat;
+import com.titan.generator.model.SensorFrame;
+import com.titan.generator.model.SensorReading;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Encodes readings and frames in {@link BinarySensorFormat} against a fixed
+ * equipment dictionary.
+ *
+ * The dictionary is built once from the generator's equipment, sorted by ID, and
+ * its id is a hash of the entries, so a restarted generator with the same fleet
+ * reuses the dictionary consumers already hold. Immutable and thread-safe.
+ */
+public final class BinarySensorEncoder {
+
+    private final Map<String, Integer> equipmentCodes = new HashMap<>();
+    private final int dictionaryId;
+    private final byte[] dictionaryMessage;
+
+    /** @param facilityByEquipment equipment ID to facility ID */
+    public BinarySensorEncoder(Map<String, String> facilityByEquipment) {
+        List<String> equipmentIds = new ArrayList<>(facilityByEquipment.keySet());
+        Collections.sort(equipmentIds);
+        if (equipmentIds.size() > 0xFFFF) {
+            throw new IllegalArgumentException("Binary format codes at most 65535 equipment, got "
+                                               + equipmentIds.size());
+        }
+
+        int id = 1;
+        int length = BinarySensorFormat.DICTIONARY_HEADER_BYTES;
+        for (String equipmentId : equipmentIds) {
+            String facilityId = facilityByEquipment.get(equipmentId);
+            id = 31 * id + Objects.hash(equipmentId, facilityId);
+            length += 2 + ascii(equipmentId).length + (facilityId != null ? ascii(facilityId).length : 0);
+            equipmentCodes.put(equipmentId, equipmentCodes.size());
+        }
+        dictionaryId = id;
+
+        byte[] b = new byte[length];
+        b[0] = BinarySensorFormat.MAGIC;
+        b[1] = BinarySensorFormat.versionAndKind(BinarySensorFormat.KIND_DICTIONARY);
+        BinarySensorFormat.writeInt(b, 2, dictionaryId);
+        BinarySensorFormat.writeShort(b, 6, equipmentIds.size());
+        int p = BinarySensorFormat.DICTIONARY_HEADER_BYTES;
+        for (String equipmentId : equipmentIds) {
+            p = writeString(b, p, ascii(equipmentId));
+            String facilityId = facilityByEquipment.get(equipmentId);
+            p = writeString(b, p, facilityId != null ? ascii(facilityId) : new byte[0]);
+        }
+        dictionaryMessage = b;
+    }
+
+    public int dictionaryId() {
+        return dictionaryId;
+    }
+
+    /** The dictionary message consumers need before they can decode anything else. */
+    public byte[] dictionaryMessage() {
+        return dictionaryMessage.clone();
+    }
+
+    /** @return the encoded reading, or null if it can't be coded (unknown equipment, sensor, unit or flag) */
+    public byte[] encode(SensorReading reading) {
+        byte[] b = header(BinarySensorFormat.KIND_READING, reading.equipmentId(), reading.timestamp().toEpochMilli(), 1);
+        if (b == null || !writeReading(b, BinarySensorFormat.HEADER_BYTES, reading.sensorType(), reading.value(),
+                                       reading.unit(), reading.qualityFlag())) {
+            return null;
+        }
+        return b;
+    }
+
+    /** @return the encoded frame, or null if any part of it can't be coded */
+    public byte[] encode(SensorFrame frame) {
+        List<SensorFrame.Reading> readings = frame.readings();
+        if (readings.size() > 0xFF) {
+            return null;
+        }
+        byte[] b = header(BinarySensorFormat.KIND_FRAME, frame.equipmentId(), frame.timestamp().toEpochMilli(),
+                          readings.size());
+        if (b == null) {
+            return null;
+        }
+        int p = BinarySensorFormat.HEADER_BYTES;
+        for (SensorFrame.Reading r : readings) {
+            if (!writeReading(b, p, r.sensorType(), r.value(), r.unit(), r.qualityFlag())) {
+                return null;
+            }
+            p += BinarySensorFormat.READING_BYTES;
+        }
+        return b;
+    }
+
+    private byte[] header(int kind, String equipmentId, long epochMillis, int readings) {
+        Integer code = equipmentCodes.get(equipmentId);
+        if (code == null) {
+            return null;
+        }
+        byte[] b = new byte[BinarySensorFormat.HEADER_BYTES + readings * BinarySensorFormat.READING_BYTES];
+        b[0] = BinarySensorFormat.MAGIC;
+        b[1] = BinarySensorFormat.versionAndKind(kind);
+        BinarySensorFormat.writeInt(b, 2, dictionaryId);
+        BinarySensorFormat.writeShort(b, 6, code);
+        BinarySensorFormat.writeLong(b, 8, epochMillis);
+        b[16] = (byte) readings;
+        return b;
+    }
+
+    private static boolean writeReading(byte[] b, int off, String sensorType, double value, String unit,
+                                        String qualityFlag) {
+        int sensor = BinarySensorFormat.codeOf(BinarySensorFormat.SENSOR_TYPES, sensorType);
+        int unitCode = BinarySensorFormat.codeOf(BinarySensorFormat.UNITS, unit);
+        int quality = BinarySensorFormat.codeOf(BinarySensorFormat.QUALITY_FLAGS, qualityFlag);
+        if (sensor <= 0 || unitCode < 0 || quality < 0) {
+            return false;
+        }
+        b[off] = (byte) sensor;
+        b[off + 1] = (byte) unitCode;
+        b[off + 2] = (byte) quality;
+        BinarySensorFormat.writeLong(b, off + 3, Double.doubleToRawLongBits(value));
+        return true;
+    }
+
+    private static int writeString(byte[] b, int p, byte[] s) {
+        b[p++] = (byte) s.length;
+        System.arraycopy(s, 0, b, p, s.length);
+        return p + s.length;
+    }
+
+    private static byte[] ascii(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > 0xFF) {
+            throw new IllegalArgumentException("Identifier longer than 255 bytes: " + s);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,230 @@
+package com.titan.generator.service;
+
+import com.titan.common.metrics.LatencyRecorder;
+import com.titan.generator.model.EquipmentState;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One partition of the simulated fleet: its equipment, the thread that runs
+ * their degradation math and publishing each tick, and its own MQTT connection.
+ *
+ * Publishing is asynchronous. A semaphore sized to the client's max-inflight
+ * window bounds unacknowledged messages, so a slow broker slows the shard's tick
+ * down instead of failing publishes; the time from publish to acknowledgement is
+ * recorded as publish latency. A tick that finds the previous one still running
+ * is skipped.
+ */
+public final class GeneratorShard {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneratorShard.class);
+
+    private final int index;
+    private final List<EquipmentState> equipment;
+    private final MqttAsyncClient client;
+    private final MqttConnectOptions options;
+    private final int maxInflight;
+    private final Semaphore inflight;
+    private final long publishTimeoutMs;
+    private final LatencyRecorder publishLatency;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean connecting = new AtomicBoolean();
+
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong tickOverruns = new AtomicLong();
+    private final AtomicLong ticksSkipped = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong publishFailures = new AtomicLong();
+    private final AtomicLong publishDropped = new AtomicLong();
+    private volatile long lastTickMs;
+    private volatile long maxTickMs;
+
+    // Shared by every publish; the user context carries the publish start in nanos
+    private final IMqttActionListener publishListener = new IMqttActionListener() {
+        @Override
+        public void onSuccess(IMqttToken token) {
+            inflight.release();
+            published.incrementAndGet();
+            publishLatency.record((System.nanoTime() - (Long) token.getUserContext()) / 1_000_000);
+        }
+
+        @Override
+        public void onFailure(IMqttToken token, Throwable cause) {
+            inflight.release();
+            publishFailures.incrementAndGet();
+            log.debug("Shard {} publish failed: {}", index, cause != null ? cause.getMessage() : "unknown");
+        }
+    };
+
+    public GeneratorShard(int index, List<EquipmentState> equipment, MqttAsyncClient client,
+                          MqttConnectOptions options, long publishTimeoutMs, LatencyRecorder publishLatency) {
+        this.index = index;
+        this.equipment = List.copyOf(equipment);
+        this.client = client;
+        this.options = options;
+        this.maxInflight = options.getMaxInflight();
+        this.inflight = new Semaphore(maxInflight);
+        this.publishTimeoutMs = publishTimeoutMs;
+        this.publishLatency = publishLatency;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "generator-shard-" + index);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Connect in the background if not connected; automatic reconnect takes over once connected. */
+    public void connect() {
+        if (client.isConnected() || !connecting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            client.connect(options, null, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    connecting.set(false);
+                    log.info("Shard {} connected to MQTT broker ({} equipment)", index, equipment.size());
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable cause) {
+                    connecting.set(false);
+                    log.warn("Shard {} failed to connect to MQTT broker: {}", index,
+                             cause != null ? cause.getMessage() : "unknown");
+                }
+            });
+        } catch (MqttException e) {
+            // Already connecting or reconnecting
+            connecting.set(false);
+            log.debug("Shard {} connect not started: {}", index, e.getMessage());
+        }
+    }
+
+    /**
+     * Run {@code work} for every equipment of this shard on the shard's thread.
+     *
+     * @return false if the previous tick was still running and this one was skipped
+     */
+    public boolean tick(Consumer<EquipmentState> work, long intervalMs) {
+        if (!running.compareAndSet(false, true)) {
+            ticksSkipped.incrementAndGet();
+            return false;
+        }
+        executor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                connect();
+                for (EquipmentState state : equipment) {
+                    try {
+                        work.accept(state);
+                    } catch (Exception e) {
+                        log.error("Error generating readings for {}: {}", state.getEquipmentId(), e.getMessage());
+                    }
+                }
+            } finally {
+                long ms = (System.nanoTime() - start) / 1_000_000;
+                lastTickMs = ms;
+                maxTickMs = Math.max(maxTickMs, ms);
+                if (ms > intervalMs) {
+                    tickOverruns.incrementAndGet();
+                }
+                ticks.incrementAndGet();
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Publish without waiting for the broker. Waits up to the publish timeout for
+     * room in the inflight window; a message that gets none, or finds the client
+     * disconnected, is dropped.
+     *
+     * @return true if the client took the message, false if it was dropped or refused
+     */
+    public boolean publish(String topic, byte[] payload, int qos, boolean retained) {
+        if (!client.isConnected()) {
+            publishDropped.incrementAndGet();
+            return false;
+        }
+        try {
+            if (!inflight.tryAcquire(publishTimeoutMs, TimeUnit.MILLISECONDS)) {
+                publishDropped.incrementAndGet();
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            publishDropped.incrementAndGet();
+            return false;
+        }
+        try {
+            client.publish(topic, payload, qos, retained, System.nanoTime(), publishListener);
+            return true;
+        } catch (MqttException e) {
+            inflight.release();
+            publishFailures.incrementAndGet();
+            log.debug("Shard {} failed to publish to {}: {}", index, topic, e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isConnected() {
+        return client.isConnected();
+    }
+
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+            if (client.isConnected()) {
+                client.disconnect().waitForCompletion(5_000);
+            }
+            client.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (MqttException e) {
+            log.warn("Error disconnecting shard {}: {}", index, e.getMessage());
+        }
+    }
+
+    public int getEquipmentCount() { return equipment.size(); }
+    public long getTicks() { return ticks.get(); }
+    public long getTickOverruns() { return tickOverruns.get(); }
+    public long getTicksSkipped() { return ticksSkipped.get(); }
+    public long getPublished() { return published.get(); }
+    public long getPublishFailures() { return publishFailures.get(); }
+    public long getPublishDropped() { return publishDropped.get(); }
+    public int getInflight() { return maxInflight - inflight.availablePermits(); }
+    public long getLastTickMs() { return lastTickMs; }
+    public long getMaxTickMs() { return maxTickMs; }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shard", index);
+        stats.put("equipment", equipment.size());
+        stats.put("connected", client.isConnected());
+        stats.put("lastTickMs", lastTickMs);
+        stats.put("maxTickMs", maxTickMs);
+        stats.put("tickOverruns", tickOverruns.get());
+        stats.put("ticksSkipped", ticksSkipped.get());
+        stats.put("inflight", getInflight());
+        return stats;
+    }
+}
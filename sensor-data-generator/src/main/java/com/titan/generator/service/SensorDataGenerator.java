@@ -2,12 +2,14 @@ package com.titan.generator.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.titan.common.codec.BinarySensorFormat;
+import com.titan.common.metrics.LatencyRecorder;
+import com.titan.generator.config.MqttConfig;
 import com.titan.generator.model.DegradationPattern;
 import com.titan.generator.model.EquipmentState;
+import com.titan.generator.model.SensorFrame;
 import com.titan.generator.model.SensorReading;
-import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttException;
-import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,9 +17,12 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Generates realistic sensor data for manufacturing equipment and publishes via MQTT.
@@ -27,13 +32,27 @@ import java.util.concurrent.ThreadLocalRandom;
  * - Bearing degradation (exponential vibration increase)
  * - Motor burnout (temperature spike)
  * - Spindle wear (RPM decrease)
+ *
+ * Equipment is partitioned into {@code generator.shards} {@link GeneratorShard}s,
+ * each running its degradation math and publishing on its own thread over its own
+ * async MQTT connection. The scheduled tick only hands work to the shards.
+ *
+ * Payload modes ({@code generator.payload-mode}):
+ *   sensor — one message per sensor on {topic-prefix}/{facility}/{equipment}/{sensor_type} (default)
+ *   frame  — one message per equipment per tick carrying all six sensors,
+ *            on {frame-topic-prefix}/{facility}/{equipment}
+ *
+ * Topic prefixes listed in {@code generator.binary-topic-prefixes} carry
+ * {@link BinarySensorFormat} instead of JSON; the equipment dictionary it needs
+ * is published retained on {@code generator.dictionary-topic}, and those topics
+ * stay on JSON until it has been sent once.
  */
 @Service
 public class SensorDataGenerator {
 
     private static final Logger log = LoggerFactory.getLogger(SensorDataGenerator.class);
 
-    private final MqttClient mqttClient;
+    private final MqttConfig mqttConfig;
     private final ObjectMapper objectMapper;
     private final Map<String, EquipmentState> equipmentStates = new ConcurrentHashMap<>();
 
@@ -46,9 +65,45 @@ public class SensorDataGenerator {
     @Value("${generator.topic-prefix:titan/sensors}")
     private String topicPrefix;
 
+    @Value("${generator.frame-topic-prefix:titan/frames}")
+    private String frameTopicPrefix;
+
+    @Value("${generator.payload-mode:sensor}")
+    private String payloadMode;
+
+    @Value("${generator.binary-topic-prefixes:}")
+    private Set<String> binaryTopicPrefixes;
+
+    @Value("${generator.dictionary-topic:titan/codec/dictionary}")
+    private String dictionaryTopic;
+
+    @Value("${generator.dictionary-republish-ms:60000}")
+    private long dictionaryRepublishMs;
+
+    @Value("${generator.shards:0}")
+    private int shardCount;
+
+    @Value("${generator.publish-timeout-ms:1000}")
+    private long publishTimeoutMs;
+
+    @Value("${generator.interval-ms:5000}")
+    private long intervalMs;
+
     @Value("${generator.enabled:true}")
     private boolean generatorEnabled;
 
+    private final List<GeneratorShard> shards = new ArrayList<>();
+    private final LatencyRecorder publishLatency = new LatencyRecorder(8192);
+    private final AtomicLong ticks = new AtomicLong();
+
+    private boolean frameMode;
+    private boolean binaryReadings;
+    private boolean binaryFrames;
+    private BinarySensorEncoder binaryEncoder;
+    private long dictionaryPublishedAt;
+    // Set once the dictionary has been sent; binary payloads wait for it
+    private volatile boolean dictionaryPublished;
+
     // Speed multiplier: 1x = normal (1 cycle per tick), 2x = 2 cycles per tick, etc.
     private volatile int speedMultiplier = 1;
 
@@ -58,16 +113,17 @@ public class SensorDataGenerator {
     private static final double TEMP_WARNING = 70.0;
     private static final double TEMP_CRITICAL = 85.0;
 
-    public SensorDataGenerator(MqttClient mqttClient) {
-        this.mqttClient = mqttClient;
+    public SensorDataGenerator(MqttConfig mqttConfig) {
+        this.mqttConfig = mqttConfig;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
     }
 
     @PostConstruct
     public void initialize() {
-        log.info("Initializing sensor data generator with {} equipment across {} facilities",
-                 equipmentCount, facilities.length);
+        frameMode = "frame".equalsIgnoreCase(payloadMode);
+        log.info("Initializing sensor data generator with {} equipment across {} facilities ({} payloads)",
+                 equipmentCount, facilities.length, frameMode ? "frame" : "per-sensor");
 
         // Create equipment states for each facility
         int equipmentPerFacility = equipmentCount / facilities.length;
@@ -90,31 +146,108 @@ public class SensorDataGenerator {
         // All equipment starts in NORMAL mode by default.
         // Use POST /api/generator/scenarios/phoenix-incident to trigger the Phoenix Incident demo.
         log.info("Sensor data generator initialized with {} equipment (all NORMAL)", equipmentStates.size());
+
+        binaryReadings = binaryTopicPrefixes.contains(topicPrefix);
+        binaryFrames = binaryTopicPrefixes.contains(frameTopicPrefix);
+        if (binaryReadings || binaryFrames) {
+            Map<String, String> facilityByEquipment = new HashMap<>();
+            equipmentStates.forEach((id, state) -> facilityByEquipment.put(id, state.getFacilityId()));
+            binaryEncoder = new BinarySensorEncoder(facilityByEquipment);
+            log.info("Binary payloads on {} (dictionary {})", binaryTopicPrefixes,
+                     Integer.toHexString(binaryEncoder.dictionaryId()));
+        }
+
+        startShards();
+    }
+
+    /** Partition equipment round-robin by ID into shards, each with its own client, and connect them. */
+    private void startShards() {
+        List<String> ids = new ArrayList<>(equipmentStates.keySet());
+        Collections.sort(ids);
+        int count = shardCount > 0 ? shardCount
+            : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), (ids.size() + 999) / 1000));
+        count = Math.max(1, Math.min(count, ids.size()));
+
+        List<List<EquipmentState>> partitions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            partitions.get(i % count).add(equipmentStates.get(ids.get(i)));
+        }
+
+        for (int i = 0; i < count; i++) {
+            try {
+                GeneratorShard shard = new GeneratorShard(i, partitions.get(i), mqttConfig.createShardClient(i),
+                    mqttConfig.connectOptions(), publishTimeoutMs, publishLatency);
+                shard.connect();
+                shards.add(shard);
+            } catch (MqttException e) {
+                throw new IllegalStateException("Cannot create MQTT client for shard " + i, e);
+            }
+        }
+        log.info("Connecting {} generator shard(s) to {}", shards.size(), mqttConfig.getBrokerUrl());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shards.forEach(GeneratorShard::close);
     }
 
     /**
-     * Generate and publish sensor readings at regular intervals.
+     * Generate and publish sensor readings at regular intervals. Each shard runs
+     * its tick on its own thread; a shard still busy with the previous tick skips this one.
      */
     @Scheduled(fixedRateString = "${generator.interval-ms:5000}")
     public void generateReadings() {
         if (!generatorEnabled) return;
 
-        log.info("Generating readings for {} equipment (speed={}x, mqtt={}) START", equipmentStates.size(), speedMultiplier, mqttClient.isConnected());
+        ticks.incrementAndGet();
+        log.debug("Generating readings for {} equipment on {} shard(s) (speed={}x)",
+                  equipmentStates.size(), shards.size(), speedMultiplier);
+        if (binaryEncoder != null) {
+            publishDictionaryIfDue();
+        }
         int cycles = speedMultiplier;
-        for (EquipmentState state : equipmentStates.values()) {
-            try {
+        int busy = 0;
+        for (GeneratorShard shard : shards) {
+            boolean started = shard.tick(state -> {
                 // At higher speeds, run multiple degradation cycles but only publish final values
                 for (int i = 0; i < cycles - 1; i++) {
                     applyDegradationPattern(state);
                     state.incrementCycle();
                 }
                 // Publish the final cycle's readings
-                generateAndPublish(state);
-            } catch (Exception e) {
-                log.error("Error generating readings for {}: {}", state.getEquipmentId(), e.getMessage());
+                generateAndPublish(shard, state);
+            }, intervalMs);
+            if (!started) {
+                busy++;
             }
         }
-        log.info("Generating readings DONE");
+        if (busy > 0) {
+            log.warn("{} of {} generator shard(s) still busy with the previous tick; skipped them this tick",
+                     busy, shards.size());
+        }
+    }
+
+    /** Shard layout, tick overruns and publish counters/latency (ms) across all shards. */
+    public Map<String, Object> getEngineStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shards", shards.size());
+        stats.put("connectedShards", shards.stream().filter(GeneratorShard::isConnected).count());
+        stats.put("intervalMs", intervalMs);
+        stats.put("ticks", ticks.get());
+        stats.put("tickOverruns", shards.stream().mapToLong(GeneratorShard::getTickOverruns).sum());
+        stats.put("ticksSkipped", shards.stream().mapToLong(GeneratorShard::getTicksSkipped).sum());
+        stats.put("lastTickMs", shards.stream().mapToLong(GeneratorShard::getLastTickMs).max().orElse(0));
+        stats.put("maxTickMs", shards.stream().mapToLong(GeneratorShard::getMaxTickMs).max().orElse(0));
+        stats.put("published", shards.stream().mapToLong(GeneratorShard::getPublished).sum());
+        stats.put("publishFailures", shards.stream().mapToLong(GeneratorShard::getPublishFailures).sum());
+        stats.put("publishDropped", shards.stream().mapToLong(GeneratorShard::getPublishDropped).sum());
+        stats.put("inflight", shards.stream().mapToInt(GeneratorShard::getInflight).sum());
+        stats.put("publishLatencyMs", publishLatency.summary());
+        stats.put("perShard", shards.stream().map(GeneratorShard::stats).toList());
+        return stats;
     }
 
     public int getSpeedMultiplier() { return speedMultiplier; }
@@ -123,17 +256,21 @@ public class SensorDataGenerator {
         log.info("Speed multiplier set to {}x", this.speedMultiplier);
     }
 
-    private void generateAndPublish(EquipmentState state) throws MqttException {
+    private void generateAndPublish(GeneratorShard shard, EquipmentState state) {
         // Apply degradation pattern
         applyDegradationPattern(state);
 
-        // Generate readings for each sensor type
-        publishReading(state, "vibration", state.getCurrentVibration(), "mm/s");
-        publishReading(state, "temperature", state.getCurrentTemperature(), "celsius");
-        publishReading(state, "spindle_speed", state.getCurrentRpm(), "rpm");
-        publishReading(state, "torque", state.getCurrentTorque(), "Nm");
-        publishReading(state, "pressure", state.getCurrentPressure(), "bar");
-        publishReading(state, "power", state.getCurrentPower(), "kW");
+        if (frameMode) {
+            publishFrame(shard, state);
+        } else {
+            // Generate readings for each sensor type
+            publishReading(shard, state, "vibration", state.getCurrentVibration(), "mm/s");
+            publishReading(shard, state, "temperature", state.getCurrentTemperature(), "celsius");
+            publishReading(shard, state, "spindle_speed", state.getCurrentRpm(), "rpm");
+            publishReading(shard, state, "torque", state.getCurrentTorque(), "Nm");
+            publishReading(shard, state, "pressure", state.getCurrentPressure(), "bar");
+            publishReading(shard, state, "power", state.getCurrentPower(), "kW");
+        }
 
         state.incrementCycle();
 
@@ -143,8 +280,8 @@ public class SensorDataGenerator {
         }
     }
 
-    private void publishReading(EquipmentState state, String sensorType, double value, String unit)
-            throws MqttException {
+    private void publishReading(GeneratorShard shard, EquipmentState state, String sensorType, double value,
+                                String unit) {
 
         String qualityFlag = determineQualityFlag(sensorType, value);
 
@@ -162,18 +299,65 @@ public class SensorDataGenerator {
                                       state.getEquipmentId(), sensorType);
 
         try {
-            String payload = objectMapper.writeValueAsString(reading);
-            MqttMessage message = new MqttMessage(payload.getBytes());
-            message.setQos(1);
+            byte[] binary = binaryReadings && dictionaryPublished ? binaryEncoder.encode(reading) : null;
+            shard.publish(topic, binary != null ? binary : objectMapper.writeValueAsBytes(reading), 1, false);
+        } catch (Exception e) {
+            log.warn("Failed to publish to {}: {}", topic, e.getMessage());
+        }
+    }
 
-            if (mqttClient.isConnected()) {
-                mqttClient.publish(topic, message);
-            }
+    /**
+     * Publish all six sensors of one equipment as a single frame message.
+     */
+    private void publishFrame(GeneratorShard shard, EquipmentState state) {
+        SensorFrame frame = new SensorFrame(
+            state.getEquipmentId(),
+            state.getFacilityId(),
+            Instant.now(),
+            List.of(
+                frameReading("vibration", state.getCurrentVibration(), "mm/s"),
+                frameReading("temperature", state.getCurrentTemperature(), "celsius"),
+                frameReading("spindle_speed", state.getCurrentRpm(), "rpm"),
+                frameReading("torque", state.getCurrentTorque(), "Nm"),
+                frameReading("pressure", state.getCurrentPressure(), "bar"),
+                frameReading("power", state.getCurrentPower(), "kW")
+            )
+        );
+
+        String topic = String.format("%s/%s/%s",
+                                      frameTopicPrefix, state.getFacilityId(), state.getEquipmentId());
+
+        try {
+            byte[] binary = binaryFrames && dictionaryPublished ? binaryEncoder.encode(frame) : null;
+            shard.publish(topic, binary != null ? binary : objectMapper.writeValueAsBytes(frame), 1, false);
         } catch (Exception e) {
             log.warn("Failed to publish to {}: {}", topic, e.getMessage());
         }
     }
 
+    /**
+     * Publish the binary equipment dictionary, retained so consumers that connect
+     * later get it first. Repeated periodically in case the broker lost it; a
+     * publish the shard dropped is retried on the next tick.
+     */
+    private void publishDictionaryIfDue() {
+        long now = System.currentTimeMillis();
+        GeneratorShard shard = shards.get(0);
+        if (!shard.isConnected() || now - dictionaryPublishedAt < dictionaryRepublishMs) {
+            return;
+        }
+        if (shard.publish(dictionaryTopic + "/" + Integer.toHexString(binaryEncoder.dictionaryId()),
+                          binaryEncoder.dictionaryMessage(), 1, true)) {
+            dictionaryPublishedAt = now;
+            dictionaryPublished = true;
+        }
+    }
+
+    private SensorFrame.Reading frameReading(String sensorType, double value, String unit) {
+        return new SensorFrame.Reading(sensorType, Math.round(value * 100.0) / 100.0, unit,
+                                       determineQualityFlag(sensorType, value));
+    }
+
     /**
      * Apply the equipment's degradation pattern to update sensor values.
      */
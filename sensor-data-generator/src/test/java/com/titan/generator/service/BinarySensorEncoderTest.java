@@ -0,0 +1,217 @@
+package com.titan.generator.service;
+
+import com.titan.common.codec.BinarySensorFormat;
+import com.titan.common.codec.ByteStringInterner;
+import com.titan.common.codec.MutableSensorFrame;
+import com.titan.common.codec.MutableSensorReading;
+import com.titan.common.codec.SensorPayloadDecoder;
+import com.titan.generator.model.SensorFrame;
+import com.titan.generator.model.SensorReading;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trips readings and frames through {@link BinarySensorEncoder} and the
+ * consumers' {@link SensorPayloadDecoder}, and checks that the decoder refuses
+ * payloads it can't resolve: unknown dictionaries, equipment codes and table codes.
+ */
+class BinarySensorEncoderTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-15T10:30:00.123Z");
+
+    private final BinarySensorEncoder encoder = new BinarySensorEncoder(fleet("PHX-CNC-007", "PHX", "ATL-CNC-012", "ATL",
+                                                                              "LAB-RIG-001", null));
+    private final SensorPayloadDecoder decoder = new SensorPayloadDecoder(new ByteStringInterner(4096));
+
+    @Test
+    void readingsRoundTrip() {
+        assertEquals(3, decoder.loadDictionary(encoder.dictionaryMessage()));
+
+        SensorReading[] readings = {
+            new SensorReading("PHX-CNC-007", "PHX", "vibration", 2.731, "mm/s", "GOOD", NOW),
+            new SensorReading("ATL-CNC-012", "ATL", "temperature", -17.25, "celsius", "CRITICAL", Instant.EPOCH),
+            new SensorReading("PHX-CNC-007", "PHX", "spindle_speed", 11_850, "rpm", "WARNING", Instant.ofEpochMilli(-1)),
+            new SensorReading("LAB-RIG-001", null, "power", Double.MIN_VALUE, "kW", "BAD", NOW),
+            new SensorReading("LAB-RIG-001", null, "pressure", -0.0, null, null, NOW)
+        };
+        MutableSensorReading out = new MutableSensorReading();
+        for (SensorReading reading : readings) {
+            byte[] payload = encoder.encode(reading);
+            assertNotNull(payload, reading.toString());
+            assertEquals(BinarySensorFormat.HEADER_BYTES + BinarySensorFormat.READING_BYTES, payload.length);
+            assertTrue(decoder.decode(payload, out), reading.toString());
+
+            assertEquals(reading.equipmentId(), out.equipmentId);
+            assertEquals(reading.facilityId(), out.facilityId);
+            assertEquals(reading.sensorType(), out.sensorType);
+            assertEquals(reading.value(), out.value);
+            assertEquals(reading.unit(), out.unit);
+            assertEquals(reading.qualityFlag(), out.qualityFlag);
+            assertEquals(reading.timestamp().toEpochMilli(), out.epochMillis);
+        }
+    }
+
+    @Test
+    void framesRoundTrip() {
+        decoder.loadDictionary(encoder.dictionaryMessage());
+        SensorFrame frame = new SensorFrame("ATL-CNC-012", "ATL", NOW, List.of(
+            new SensorFrame.Reading("vibration", 3.1, "mm/s", "WARNING"),
+            new SensorFrame.Reading("temperature", 71.4, "celsius", "GOOD"),
+            new SensorFrame.Reading("spindle_speed", 11_850, "rpm", "GOOD"),
+            new SensorFrame.Reading("torque", 42.0, "Nm", "GOOD"),
+            new SensorFrame.Reading("pressure", 6.2, "bar", null),
+            new SensorFrame.Reading("power", 18.75, "kW", "CRITICAL")));
+
+        byte[] payload = encoder.encode(frame);
+        assertNotNull(payload);
+        MutableSensorFrame out = new MutableSensorFrame();
+        assertTrue(decoder.decodeFrame(payload, out));
+
+        assertEquals("ATL-CNC-012", out.equipmentId);
+        assertEquals("ATL", out.facilityId);
+        assertEquals(NOW.toEpochMilli(), out.epochMillis);
+        assertEquals(frame.readings().size(), out.size());
+        MutableSensorReading reading = new MutableSensorReading();
+        for (int i = 0; i < out.size(); i++) {
+            SensorFrame.Reading expected = frame.readings().get(i);
+            out.readingAt(i, reading);
+            assertEquals(expected.sensorType(), reading.sensorType);
+            assertEquals(expected.value(), reading.value);
+            assertEquals(expected.unit(), reading.unit);
+            assertEquals(expected.qualityFlag(), reading.qualityFlag);
+        }
+    }
+
+    @Test
+    void decodesAgainstTheDictionaryEachPayloadNames() {
+        BinarySensorEncoder other = new BinarySensorEncoder(fleet("MUC-CNC-003", "MUC"));
+        assertNotEquals(encoder.dictionaryId(), other.dictionaryId());
+        decoder.loadDictionary(encoder.dictionaryMessage());
+        decoder.loadDictionary(other.dictionaryMessage());
+
+        // Both fleets code their first equipment as 0; only the dictionary id tells them apart
+        MutableSensorReading out = new MutableSensorReading();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(decoder.decode(encoder.encode(reading("ATL-CNC-012")), out));
+            assertEquals("ATL-CNC-012", out.equipmentId);
+            assertTrue(decoder.decode(other.encode(reading("MUC-CNC-003")), out));
+            assertEquals("MUC-CNC-003", out.equipmentId);
+        }
+
+        // Same fleet, same id: a restarted generator doesn't strand consumers' dictionaries
+        assertEquals(encoder.dictionaryId(), new BinarySensorEncoder(fleet("LAB-RIG-001", null, "ATL-CNC-012", "ATL",
+                                                                           "PHX-CNC-007", "PHX")).dictionaryId());
+    }
+
+    @Test
+    void encoderRefusesWhatTheFormatCannotCode() {
+        assertNull(encoder.encode(reading("DAL-CNC-001")));
+        assertNull(encoder.encode(new SensorReading("PHX-CNC-007", "PHX", "humidity", 40.0, "%", "GOOD", NOW)));
+        assertNull(encoder.encode(new SensorReading("PHX-CNC-007", "PHX", "vibration", 2.0, "in/s", "GOOD", NOW)));
+        assertNull(encoder.encode(new SensorReading("PHX-CNC-007", "PHX", "vibration", 2.0, "mm/s", "STALE", NOW)));
+        assertNull(encoder.encode(new SensorReading("PHX-CNC-007", "PHX", null, 2.0, "mm/s", "GOOD", NOW)));
+        assertNull(encoder.encode(new SensorFrame("PHX-CNC-007", "PHX", NOW, List.of(
+            new SensorFrame.Reading("vibration", 2.0, "mm/s", "GOOD"),
+            new SensorFrame.Reading("humidity", 40.0, "%", "GOOD")))));
+    }
+
+    @Test
+    void rejectsPayloadsForUnknownDictionaries() {
+        byte[] payload = encoder.encode(reading("PHX-CNC-007"));
+        MutableSensorReading out = new MutableSensorReading();
+        assertFalse(decoder.decode(payload, out), "no dictionary loaded yet");
+        assertNull(out.equipmentId);
+
+        decoder.loadDictionary(encoder.dictionaryMessage());
+        assertTrue(decoder.decode(payload, out));
+
+        BinarySensorFormat.writeInt(payload, 2, encoder.dictionaryId() + 1);
+        assertFalse(decoder.decode(payload, out), "unknown dictionary id");
+        assertNull(out.equipmentId);
+
+        byte[] frame = encoder.encode(new SensorFrame("PHX-CNC-007", "PHX", NOW,
+                                                      List.of(new SensorFrame.Reading("vibration", 2.0, "mm/s", "GOOD"))));
+        BinarySensorFormat.writeInt(frame, 2, encoder.dictionaryId() + 1);
+        assertFalse(decoder.decodeFrame(frame, new MutableSensorFrame()), "unknown dictionary id");
+    }
+
+    @Test
+    void rejectsUnknownCodes() {
+        decoder.loadDictionary(encoder.dictionaryMessage());
+        MutableSensorReading out = new MutableSensorReading();
+        int first = BinarySensorFormat.HEADER_BYTES;
+
+        assertFalse(decoder.decode(withShort(encoder.encode(reading("PHX-CNC-007")), 6, 3), out), "equipment code");
+        assertFalse(decoder.decode(withShort(encoder.encode(reading("PHX-CNC-007")), 6, 0xFFFF), out), "equipment code");
+        assertFalse(decoder.decode(withByte(encoder.encode(reading("PHX-CNC-007")), first, 0), out), "no sensor type");
+        assertFalse(decoder.decode(withByte(encoder.encode(reading("PHX-CNC-007")), first,
+                                            BinarySensorFormat.SENSOR_TYPES.length), out), "sensor type code");
+        assertFalse(decoder.decode(withByte(encoder.encode(reading("PHX-CNC-007")), first + 1, 0xFF), out), "unit code");
+        assertFalse(decoder.decode(withByte(encoder.encode(reading("PHX-CNC-007")), first + 2,
+                                            BinarySensorFormat.QUALITY_FLAGS.length), out), "quality flag code");
+        assertNull(out.equipmentId);
+
+        SensorFrame frame = new SensorFrame("PHX-CNC-007", "PHX", NOW, List.of(
+            new SensorFrame.Reading("vibration", 2.0, "mm/s", "GOOD"),
+            new SensorFrame.Reading("temperature", 70.0, "celsius", "GOOD")));
+        MutableSensorFrame frameOut = new MutableSensorFrame();
+        int second = first + BinarySensorFormat.READING_BYTES;
+        assertFalse(decoder.decodeFrame(withByte(encoder.encode(frame), second, 0x7F), frameOut), "sensor type code");
+        assertEquals(0, frameOut.size());
+        assertNull(frameOut.equipmentId);
+        assertFalse(decoder.decodeFrame(withShort(encoder.encode(frame), 6, 3), frameOut), "equipment code");
+    }
+
+    @Test
+    void rejectsMisframedPayloads() {
+        decoder.loadDictionary(encoder.dictionaryMessage());
+        byte[] reading = encoder.encode(reading("PHX-CNC-007"));
+        byte[] frame = encoder.encode(new SensorFrame("PHX-CNC-007", "PHX", NOW,
+                                                      List.of(new SensorFrame.Reading("vibration", 2.0, "mm/s", "GOOD"))));
+        MutableSensorReading out = new MutableSensorReading();
+
+        assertFalse(decoder.decode(frame, out), "frame kind as a reading");
+        assertFalse(decoder.decodeFrame(reading, new MutableSensorFrame()), "reading kind as a frame");
+        assertFalse(decoder.decode(encoder.dictionaryMessage(), out), "dictionary as a reading");
+        assertFalse(decoder.decode(Arrays.copyOf(reading, reading.length - 1), out), "truncated");
+        assertFalse(decoder.decode(Arrays.copyOf(reading, reading.length + 1), out), "trailing bytes");
+        assertFalse(decoder.decode(withByte(reading.clone(), 16, 2), out), "reading count");
+        assertFalse(decoder.decode(withByte(reading.clone(), 1, (BinarySensorFormat.VERSION + 1) << 4
+                                                                 | BinarySensorFormat.KIND_READING), out), "version");
+
+        byte[] dictionary = encoder.dictionaryMessage();
+        assertEquals(-1, decoder.loadDictionary(Arrays.copyOf(dictionary, dictionary.length - 1)));
+        assertEquals(-1, decoder.loadDictionary(Arrays.copyOf(dictionary, dictionary.length + 1)));
+        assertEquals(-1, decoder.loadDictionary(reading));
+    }
+
+    private static SensorReading reading(String equipmentId) {
+        return new SensorReading(equipmentId, null, "vibration", 2.5, "mm/s", "GOOD", NOW);
+    }
+
+    /** Equipment ID and facility ID pairs, in order. */
+    private static Map<String, String> fleet(String... pairs) {
+        Map<String, String> fleet = new LinkedHashMap<>();
+        for (int i = 0; i < pairs.length; i += 2) {
+            fleet.put(pairs[i], pairs[i + 1]);
+        }
+        return fleet;
+    }
+
+    private static byte[] withByte(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        return b;
+    }
+
+    private static byte[] withShort(byte[] b, int off, int v) {
+        BinarySensorFormat.writeShort(b, off, v);
+        return b;
+    }
+}
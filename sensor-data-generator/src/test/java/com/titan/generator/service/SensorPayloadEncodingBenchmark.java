@@ -0,0 +1,114 @@
+package com.titan.generator.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.titan.generator.model.SensorFrame;
+import com.titan.generator.model.SensorReading;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding cost of the generator's JSON payloads (as published through
+ * Jackson) against {@link BinarySensorEncoder}, per reading and per six-sensor
+ * frame. Bytes per reading for each format are printed at setup.
+ *
+ * Run with allocation profiling, e.g.:
+ * <pre>
+ * mvn -pl sensor-data-generator -am test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp "sensor-data-generator/target/test-classes:sensor-data-generator/target/classes:$(cat sensor-data-generator/cp.txt)" \
+ *     org.openjdk.jmh.Main SensorPayloadEncodingBenchmark -prof gc
+ * </pre>
+ * The decoding side is {@code SensorPayloadDecoderBenchmark} in titan-common.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensorPayloadEncodingBenchmark {
+
+    private static final String[] SENSORS = {"vibration", "temperature", "spindle_speed", "torque", "pressure", "power"};
+    private static final String[] UNITS = {"mm/s", "celsius", "rpm", "Nm", "bar", "kW"};
+
+    private SensorReading[] readings;
+    private SensorFrame[] frames;
+    private int next;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private BinarySensorEncoder encoder;
+
+    @Setup
+    public void setup() throws Exception {
+        Map<String, String> facilityByEquipment = new HashMap<>();
+        readings = new SensorReading[600];
+        frames = new SensorFrame[100];
+        for (int e = 0; e < frames.length; e++) {
+            String equipmentId = "PHX-CNC-" + String.format("%03d", e + 1);
+            facilityByEquipment.put(equipmentId, "PHX");
+            Instant timestamp = Instant.ofEpochMilli(1_760_000_000_000L + e * 5_000L);
+            List<SensorFrame.Reading> frameReadings = new ArrayList<>();
+            for (int s = 0; s < SENSORS.length; s++) {
+                double value = Math.round((2.0 + (e * 6 + s) * 0.731) * 100.0) / 100.0;
+                readings[e * SENSORS.length + s] =
+                    new SensorReading(equipmentId, "PHX", SENSORS[s], value, UNITS[s], "GOOD", timestamp);
+                frameReadings.add(new SensorFrame.Reading(SENSORS[s], value, UNITS[s], "GOOD"));
+            }
+            frames[e] = new SensorFrame(equipmentId, "PHX", timestamp, frameReadings);
+        }
+        encoder = new BinarySensorEncoder(facilityByEquipment);
+
+        long jsonReading = 0, binaryReading = 0, jsonFrame = 0, binaryFrame = 0;
+        for (SensorReading r : readings) {
+            jsonReading += objectMapper.writeValueAsBytes(r).length;
+            binaryReading += encoder.encode(r).length;
+        }
+        for (SensorFrame f : frames) {
+            jsonFrame += objectMapper.writeValueAsBytes(f).length;
+            binaryFrame += encoder.encode(f).length;
+        }
+        System.out.printf("%nBytes per reading: JSON %.1f, binary %.1f | in frames: JSON %.1f, binary %.1f"
+                          + " | dictionary %d bytes once%n",
+                          (double) jsonReading / readings.length, (double) binaryReading / readings.length,
+                          (double) jsonFrame / readings.length, (double) binaryFrame / readings.length,
+                          encoder.dictionaryMessage().length);
+    }
+
+    private SensorReading nextReading() {
+        SensorReading r = readings[next];
+        next = (next + 1) % readings.length;
+        return r;
+    }
+
+    private SensorFrame nextFrame() {
+        SensorFrame f = frames[next % frames.length];
+        next = (next + 1) % readings.length;
+        return f;
+    }
+
+    @Benchmark
+    public byte[] jsonReading() throws Exception {
+        return objectMapper.writeValueAsBytes(nextReading());
+    }
+
+    @Benchmark
+    public byte[] binaryReading() {
+        return encoder.encode(nextReading());
+    }
+
+    @Benchmark
+    public byte[] jsonFrame() throws Exception {
+        return objectMapper.writeValueAsBytes(nextFrame());
+    }
+
+    @Benchmark
+    public byte[] binaryFrame() {
+        return encoder.encode(nextFrame());
+    }
+}
@@ -0,0 +1,56 @@
+package com.titan.sensor.controller;
+
+import com.titan.sensor.mqtt.SensorDataConsumer;
+import com.titan.sensor.service.SensorStorageMaintenance;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * REST endpoint exposing MQTT ingestion pipeline metrics.
+ */
+@RestController
+@RequestMapping("/api/sensors/ingest")
+@CrossOrigin(origins = "*")
+public class IngestController {
+
+    private final SensorDataConsumer consumer;
+    private final SensorStorageMaintenance storageMaintenance;
+
+    public IngestController(SensorDataConsumer consumer, SensorStorageMaintenance storageMaintenance) {
+        this.consumer = consumer;
+        this.storageMaintenance = storageMaintenance;
+    }
+
+    /**
+     * Get ingestion throughput, backpressure, drop and inline anomaly counters.
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> getIngestStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connected", consumer.isConnected());
+        stats.put("messagesReceived", consumer.getMessagesReceived());
+        stats.put("messagesWritten", consumer.getMessagesWritten());
+        stats.put("messagesDropped", consumer.getMessagesDropped());
+        stats.put("writeFailures", consumer.getWriteFailures());
+        stats.put("parseErrors", consumer.getErrors());
+        stats.put("backpressureWaits", consumer.getBackpressureWaits());
+        stats.put("queueDepth", consumer.getQueueDepth());
+        stats.put("queueCapacity", consumer.getQueueCapacity());
+        stats.put("queueHighWatermark", consumer.getQueueHighWatermark());
+        stats.put("anomaliesRaised", consumer.getAnomaliesRaised());
+        stats.put("anomaliesResolved", consumer.getAnomaliesResolved());
+        stats.put("anomalyEventsDeferred", consumer.getAnomalyEventsDeferred());
+        stats.put("anomalyWriteFailures", consumer.getAnomalyWriteFailures());
+        return stats;
+    }
+
+    /**
+     * Get the last partition/rollup/retention maintenance run.
+     */
+    @GetMapping("/storage")
+    public Map<String, Object> getStorageStats() {
+        return storageMaintenance.getStats();
+    }
+}
@@ -0,0 +1,37 @@
+package com.titan.sensor.controller;
+
+import com.titan.sensor.model.SensorReading;
+import com.titan.sensor.service.SensorService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST endpoint for charting sensor history over long ranges.
+ */
+@RestController
+@RequestMapping("/api/sensors")
+@CrossOrigin(origins = "*")
+public class SensorHistoryController {
+
+    private final SensorService sensorService;
+
+    public SensorHistoryController(SensorService sensorService) {
+        this.sensorService = sensorService;
+    }
+
+    /**
+     * Downsampled history: about maxPoints points per sensor across the window.
+     * Example: /api/sensors/history?equipmentId=PHX-CNC-007&hours=168&mode=lttb
+     */
+    @GetMapping("/history")
+    public List<SensorReading> getHistory(
+            @RequestParam String equipmentId,
+            @RequestParam(required = false) String sensorType,
+            @RequestParam(defaultValue = "24") int hours,
+            @RequestParam(defaultValue = "lttb") String mode,
+            @RequestParam(defaultValue = "200") int maxPoints
+    ) {
+        return sensorService.getSensorReadings(equipmentId, sensorType, hours, null, mode, maxPoints);
+    }
+}
@@ -1,20 +1,36 @@
 package com.titan.sensor.controller;
 
 import com.titan.sensor.model.SensorReading;
+import com.titan.sensor.mqtt.LatestReadingTable;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Server-Sent Events (SSE) endpoint for real-time sensor data streaming.
  * Streams sensor readings to connected dashboard clients.
+ *
+ * Readings come from the in-memory {@link LatestReadingTable} fed by the MQTT
+ * consumer; no database queries are made per client. Every push interval the
+ * readings that changed are filtered once per subscriber group (all, one
+ * facility, one equipment) and the result is queued to each client in the
+ * group. Each client has a bounded queue drained by a shared sender pool; one
+ * that falls a full queue behind is disconnected. A send that blocks (a peer
+ * that stopped reading) longer than {@code stream.send-timeout-ms} disconnects
+ * its client, and the pool gets an extra thread until that send returns, so
+ * stalled peers don't hold up delivery to the others.
  */
 @RestController
 @RequestMapping("/api/sensors")
@@ -23,14 +39,42 @@ public class StreamingController {
 
     private static final Logger log = LoggerFactory.getLogger(StreamingController.class);
     private static final long SSE_TIMEOUT = 300_000L; // 5 minutes
+    private static final long INITIAL_WINDOW_MS = 30_000L;
+    private static final String ALL = "all";
 
-    private final JdbcTemplate jdbcTemplate;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
-    private final CopyOnWriteArrayList<EmitterContext> emitters = new CopyOnWriteArrayList<>();
+    private final LatestReadingTable latestReadings;
+    private final int clientQueueCapacity;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            daemon("sensor-stream-tick"));
+    private final ThreadPoolExecutor senders;
+    private final int senderThreads;
+    private final long sendTimeoutNanos;
+    // Sender threads stuck in a send to an evicted client; the pool is grown by this many
+    private final AtomicInteger stalledSenders = new AtomicInteger(0);
 
-    public StreamingController(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
-        startBroadcaster();
+    // Filter key ("all", "facility:PHX", "equipment:PHX-CNC-007") -> subscribed clients
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<StreamClient>> groups = new ConcurrentHashMap<>();
+    // Held by each broadcast tick and while a new client takes its snapshot and joins
+    private final Object tickLock = new Object();
+    private long lastSequence;
+
+    private final AtomicLong eventsSent = new AtomicLong(0);
+    private final AtomicLong slowClientsDropped = new AtomicLong(0);
+    private volatile int lastTickReadings;
+
+    public StreamingController(LatestReadingTable latestReadings,
+                               @Value("${stream.push-interval-ms:1000}") long pushIntervalMs,
+                               @Value("${stream.client-queue-capacity:16}") int clientQueueCapacity,
+                               @Value("${stream.sender-threads:4}") int senderThreads,
+                               @Value("${stream.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.latestReadings = latestReadings;
+        this.clientQueueCapacity = Math.max(1, clientQueueCapacity);
+        this.senderThreads = Math.max(1, senderThreads);
+        this.senders = (ThreadPoolExecutor) Executors.newFixedThreadPool(this.senderThreads, daemon("sensor-stream-send"));
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        startBroadcaster(pushIntervalMs);
+        long checkMs = Math.max(100, sendTimeoutMs / 2);
+        scheduler.scheduleWithFixedDelay(this::evictStalledClients, checkMs, checkMs, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -45,42 +89,42 @@ public class StreamingController {
         log.info("New SSE connection: facilityId={}, equipmentId={}", facilityId, equipmentId);
 
         SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
-        EmitterContext ctx = new EmitterContext(emitter, facilityId, equipmentId);
+        String key = groupKey(facilityId, equipmentId);
+        StreamClient client = new StreamClient(emitter, key);
 
         emitter.onCompletion(() -> {
             log.debug("SSE connection completed");
-            emitters.remove(ctx);
+            unsubscribe(client);
         });
 
         emitter.onTimeout(() -> {
             log.debug("SSE connection timed out");
-            emitters.remove(ctx);
+            unsubscribe(client);
         });
 
         emitter.onError(e -> {
             log.debug("SSE connection error: {}", e.getMessage());
-            emitters.remove(ctx);
+            unsubscribe(client);
         });
 
-        emitters.add(ctx);
-
-        // Send initial data immediately
-        try {
-            List<SensorReading> initialData = fetchLatestReadings(facilityId, equipmentId);
-            for (SensorReading reading : initialData) {
-                emitter.send(SseEmitter.event()
-                    .name("sensor-reading")
-                    .data(reading));
+        // Snapshot, join and queue the snapshot between two ticks: the snapshot holds every
+        // update so far, and later ticks queue behind it, so the client sees them in order
+        synchronized (tickLock) {
+            List<StreamEvent> initial = new ArrayList<>();
+            for (SensorReading reading : filter(key,
+                    latestReadings.snapshot(System.currentTimeMillis() - INITIAL_WINDOW_MS))) {
+                initial.add(new StreamEvent("sensor-reading", reading));
             }
-            emitter.send(SseEmitter.event()
-                .name("connected")
-                .data(Map.of("message", "Connected to sensor stream", "filters", Map.of(
-                    "facilityId", facilityId != null ? facilityId : "all",
-                    "equipmentId", equipmentId != null ? equipmentId : "all"
-                ))));
-        } catch (IOException e) {
-            log.error("Error sending initial data: {}", e.getMessage());
-            emitters.remove(ctx);
+            initial.add(new StreamEvent("connected", Map.of("message", "Connected to sensor stream", "filters", Map.of(
+                "facilityId", facilityId != null ? facilityId : ALL,
+                "equipmentId", equipmentId != null ? equipmentId : ALL
+            ))));
+            groups.compute(key, (k, clients) -> {
+                CopyOnWriteArrayList<StreamClient> list = clients != null ? clients : new CopyOnWriteArrayList<>();
+                list.add(client);
+                return list;
+            });
+            client.enqueue(initial);
         }
 
         return emitter;
@@ -91,62 +135,250 @@ public class StreamingController {
      */
     @GetMapping("/stream/stats")
     public Map<String, Object> getStreamStats() {
-        return Map.of(
-            "activeConnections", emitters.size(),
-            "serverTime", System.currentTimeMillis()
-        );
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeConnections", groups.values().stream().mapToInt(List::size).sum());
+        stats.put("subscriberGroups", groups.size());
+        stats.put("equipmentTracked", latestReadings.equipmentCount());
+        stats.put("lastTickReadings", lastTickReadings);
+        stats.put("eventsSent", eventsSent.get());
+        stats.put("slowClientsDropped", slowClientsDropped.get());
+        stats.put("stalledSenders", stalledSenders.get());
+        stats.put("serverTime", System.currentTimeMillis());
+        return stats;
     }
 
-    private void startBroadcaster() {
-        scheduler.scheduleAtFixedRate(() -> {
-            if (emitters.isEmpty()) return;
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        senders.shutdownNow();
+    }
 
-            for (EmitterContext ctx : emitters) {
-                try {
-                    List<SensorReading> readings = fetchLatestReadings(ctx.facilityId, ctx.equipmentId);
-                    for (SensorReading reading : readings) {
-                        ctx.emitter.send(SseEmitter.event()
-                            .name("sensor-reading")
-                            .data(reading));
-                    }
-                } catch (Exception e) {
-                    log.debug("Error broadcasting to client: {}", e.getMessage());
-                    emitters.remove(ctx);
-                    try {
-                        ctx.emitter.complete();
-                    } catch (Exception ignored) {}
+    private void startBroadcaster(long pushIntervalMs) {
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                synchronized (tickLock) {
+                    broadcast();
                 }
+            } catch (Exception e) {
+                log.warn("Sensor stream broadcast failed: {}", e.getMessage());
             }
-        }, 5, 5, TimeUnit.SECONDS);
+        }, pushIntervalMs, pushIntervalMs, TimeUnit.MILLISECONDS);
     }
 
-    private List<SensorReading> fetchLatestReadings(String facilityId, String equipmentId) {
-        StringBuilder sql = new StringBuilder("""
-            SELECT DISTINCT ON (equipment_id, sensor_type)
-                   equipment_id, sensor_type, value, unit, time, quality_flag
-            FROM sensor_readings
-            WHERE time >= NOW() - INTERVAL '30 seconds'
-            """);
+    /** One tick: collect changed readings once, filter once per group, queue to every client. */
+    private void broadcast() {
+        long upTo = latestReadings.sequence();
+        if (upTo == lastSequence) {
+            return;
+        }
+        List<SensorReading> changed = groups.isEmpty() ? List.of() : latestReadings.changedSince(lastSequence);
+        lastSequence = upTo;
+        lastTickReadings = changed.size();
+        if (changed.isEmpty()) {
+            return;
+        }
 
+        for (Map.Entry<String, CopyOnWriteArrayList<StreamClient>> group : groups.entrySet()) {
+            if (group.getValue().isEmpty()) {
+                continue;
+            }
+            List<StreamEvent> events = new ArrayList<>();
+            for (SensorReading reading : filter(group.getKey(), changed)) {
+                events.add(new StreamEvent("sensor-reading", reading));
+            }
+            if (events.isEmpty()) {
+                continue;
+            }
+            for (StreamClient client : group.getValue()) {
+                client.enqueue(events);
+            }
+        }
+    }
+
+    /** Disconnect clients whose current send has been blocked longer than the send timeout. */
+    private void evictStalledClients() {
+        long now = System.nanoTime();
+        for (CopyOnWriteArrayList<StreamClient> clients : groups.values()) {
+            for (StreamClient client : clients) {
+                client.evictIfStalled(now);
+            }
+        }
+    }
+
+    /** Grow or shrink the sender pool by the number of threads stuck on evicted clients. */
+    private synchronized void adjustSenders(int delta) {
+        int size = senderThreads + stalledSenders.addAndGet(delta);
+        if (delta > 0) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+
+    private void unsubscribe(StreamClient client) {
+        client.closed = true;
+        groups.computeIfPresent(client.groupKey, (k, clients) -> {
+            clients.remove(client);
+            return clients.isEmpty() ? null : clients;
+        });
+    }
+
+    private static String groupKey(String facilityId, String equipmentId) {
         if (equipmentId != null && !equipmentId.isBlank()) {
-            sql.append(" AND equipment_id = '").append(equipmentId).append("'");
-        } else if (facilityId != null && !facilityId.isBlank()) {
-            sql.append(" AND equipment_id LIKE '").append(facilityId.toUpperCase()).append("-%'");
-        }
-
-        sql.append(" ORDER BY equipment_id, sensor_type, time DESC");
-        sql.append(" LIMIT 500");
-
-        return jdbcTemplate.query(sql.toString(),
-            (rs, rowNum) -> new SensorReading(
-                rs.getString("equipment_id"),
-                rs.getString("sensor_type"),
-                rs.getDouble("value"),
-                rs.getString("unit"),
-                rs.getString("time"),
-                rs.getString("quality_flag")
-            ));
+            return "equipment:" + equipmentId.trim();
+        }
+        if (facilityId != null && !facilityId.isBlank()) {
+            return "facility:" + facilityId.trim().toUpperCase();
+        }
+        return ALL;
     }
 
-    private record EmitterContext(SseEmitter emitter, String facilityId, String equipmentId) {}
+    private static List<SensorReading> filter(String groupKey, List<SensorReading> readings) {
+        if (ALL.equals(groupKey)) {
+            return readings;
+        }
+        List<SensorReading> matching = new ArrayList<>();
+        if (groupKey.startsWith("equipment:")) {
+            String equipmentId = groupKey.substring("equipment:".length());
+            for (SensorReading reading : readings) {
+                if (reading.equipmentId().equals(equipmentId)) {
+                    matching.add(reading);
+                }
+            }
+        } else {
+            String prefix = groupKey.substring("facility:".length()) + "-";
+            for (SensorReading reading : readings) {
+                if (reading.equipmentId().startsWith(prefix)) {
+                    matching.add(reading);
+                }
+            }
+        }
+        return matching;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private record StreamEvent(String name, Object data) {}
+
+    /** One SSE connection with its own bounded queue of pending event batches. */
+    private final class StreamClient {
+
+        private final SseEmitter emitter;
+        private final String groupKey;
+        private final ArrayBlockingQueue<List<StreamEvent>> pending = new ArrayBlockingQueue<>(clientQueueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean(false);
+        private volatile boolean closed;
+        // System.nanoTime() when the send in progress started, 0 when not sending
+        private volatile long sendStartedNanos;
+        private boolean stalled; // guarded by this
+
+        StreamClient(SseEmitter emitter, String groupKey) {
+            this.emitter = emitter;
+            this.groupKey = groupKey;
+        }
+
+        void enqueue(List<StreamEvent> batch) {
+            if (closed) {
+                return;
+            }
+            if (!pending.offer(batch)) {
+                slowClientsDropped.incrementAndGet();
+                log.debug("Dropping slow SSE client ({} batches behind)", pending.size());
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                List<StreamEvent> batch;
+                while (!closed && (batch = pending.poll()) != null) {
+                    try {
+                        for (StreamEvent event : batch) {
+                            send(event);
+                        }
+                        eventsSent.addAndGet(batch.size());
+                    } catch (Exception e) {
+                        log.debug("Error broadcasting to client: {}", e.getMessage());
+                        close();
+                    }
+                }
+                // Closed while we held the drain flag: completing the emitter is ours to do
+                if (closed) {
+                    complete();
+                    return;
+                }
+                draining.set(false);
+                if (closed && draining.compareAndSet(false, true)) {
+                    complete();
+                    return;
+                }
+                // A batch queued between the last poll and clearing the flag would otherwise sit until the next enqueue
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void send(StreamEvent event) throws Exception {
+            sendStartedNanos = System.nanoTime();
+            try {
+                emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+            } finally {
+                synchronized (this) {
+                    sendStartedNanos = 0;
+                    if (stalled) {
+                        stalled = false;
+                        adjustSenders(-1);
+                    }
+                }
+            }
+        }
+
+        void evictIfStalled(long now) {
+            synchronized (this) {
+                long started = sendStartedNanos;
+                if (started == 0 || stalled || now - started < sendTimeoutNanos) {
+                    return;
+                }
+                stalled = true;
+                adjustSenders(1);
+            }
+            slowClientsDropped.incrementAndGet();
+            log.debug("Dropping SSE client blocked in a send for over {} ms", TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+            close();
+        }
+
+        /**
+         * Stop delivering to this client. The emitter is completed here only when no
+         * drain is running; a running one may be blocked in a send and completes it
+         * when it stops, so this never blocks the caller.
+         */
+        private void close() {
+            unsubscribe(this);
+            pending.clear();
+            if (draining.compareAndSet(false, true)) {
+                complete();
+            }
+        }
+
+        private void complete() {
+            try {
+                emitter.complete();
+            } catch (Exception ignored) {}
+        }
+    }
 }
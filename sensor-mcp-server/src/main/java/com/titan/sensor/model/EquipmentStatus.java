@@ -26,5 +26,8 @@ public record EquipmentStatus(
     List<Anomaly> activeAnomalies,
 
     @JsonPropertyDescription("Summary description of current status")
-    String statusSummary
+    String statusSummary,
+
+    @JsonPropertyDescription("Age in milliseconds of the cached equipment state used (0 if read from the database)")
+    long stateAgeMs
 ) {}
@@ -35,5 +35,8 @@ public record FacilityStatus(
     List<String> equipmentWithAnomalies,
 
     @JsonPropertyDescription("Summary of facility status")
-    String summary
+    String summary,
+
+    @JsonPropertyDescription("Age in milliseconds of the cached equipment state used (0 if read from the database)")
+    long stateAgeMs
 ) {}
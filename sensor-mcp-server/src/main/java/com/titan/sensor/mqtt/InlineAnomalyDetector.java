@@ -0,0 +1,281 @@
+package com.titan.sensor.mqtt;
+
+import com.titan.sensor.service.EquipmentStateCache;
+import com.titan.sensor.service.ThresholdTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Threshold anomaly detection on the ingest path.
+ *
+ * Every reading is checked by the MQTT consumer against {@link ThresholdTable}.
+ * Each equipment/sensor channel has a level (0 = normal, 1 = warning/HIGH,
+ * 2 = critical/CRITICAL). The level changes only after
+ * {@code anomaly.inline.consecutive} readings in a row at the new level
+ * (debounce). A raised level is left only once readings drop
+ * {@code anomaly.inline.hysteresis} below its threshold, so a value hovering
+ * at the threshold doesn't flap.
+ *
+ * Level changes become {@code THRESHOLD_EXCEEDED} rows in {@code anomalies}:
+ * raising inserts one, clearing resolves it, and a change between HIGH and
+ * CRITICAL does both. They are queued and written in small batches every
+ * {@code ingest.flush-interval-ms}, off the MQTT callback thread. Changes that
+ * fail to write are kept and retried before any newer ones, so a channel's
+ * level never runs ahead of its rows; while they are pending the queue fills
+ * and further changes are deferred to later readings.
+ */
+@Component
+public class InlineAnomalyDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(InlineAnomalyDetector.class);
+
+    private static final String[] SEVERITY = { null, "HIGH", "CRITICAL" };
+
+    private static final String INSERT_SQL = """
+        INSERT INTO anomalies (equipment_id, anomaly_type, sensor_type, severity,
+                               detected_at, description, confidence_score)
+        VALUES (?, 'THRESHOLD_EXCEEDED', ?, ?, ?, ?, ?)
+        """;
+
+    private static final String RESOLVE_SQL = """
+        UPDATE anomalies
+        SET resolved = true, resolved_at = ?, resolution_notes = ?
+        WHERE equipment_id = ? AND sensor_type = ?
+          AND anomaly_type = 'THRESHOLD_EXCEEDED' AND resolved = false
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ThresholdTable thresholds;
+    private final EquipmentStateCache stateCache;
+    private final TransactionTemplate transaction;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "inline-anomaly-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${anomaly.inline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${anomaly.inline.consecutive:3}")
+    private int consecutive;
+
+    @Value("${anomaly.inline.hysteresis:0.05}")
+    private double hysteresis;
+
+    @Value("${anomaly.inline.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${ingest.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    // Owned by the MQTT callback thread: equipment -> sensor type -> channel
+    private final Map<String, Map<String, Channel>> channels = new HashMap<>();
+    private BlockingQueue<Event> events;
+    // Owned by the writer thread: drained changes not yet written, oldest first
+    private final List<Event> unwritten = new ArrayList<>();
+
+    private final AtomicLong raised = new AtomicLong();
+    private final AtomicLong resolved = new AtomicLong();
+    private final AtomicLong eventsDeferred = new AtomicLong();
+    private final AtomicLong writeFailures = new AtomicLong();
+
+    private static final class Channel {
+        int level;
+        int pendingLevel;
+        int pendingCount;
+    }
+
+    /** A level change to persist; {@code level} 0 resolves, 1/2 (re)opens at that severity. */
+    private record Event(String equipmentId, String sensorType, int level, double value,
+                         double threshold, String unit, long epochMillis) {}
+
+    public InlineAnomalyDetector(JdbcTemplate jdbcTemplate, ThresholdTable thresholds,
+                                 EquipmentStateCache stateCache, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.thresholds = thresholds;
+        this.stateCache = stateCache;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        events = new ArrayBlockingQueue<>(queueCapacity);
+        if (!enabled) {
+            log.info("Inline anomaly detection is disabled");
+            return;
+        }
+        seedOpenAnomalies();
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Inline anomaly detection: {} consecutive readings, {}% hysteresis",
+                 consecutive, Math.round(hysteresis * 100));
+    }
+
+    @PreDestroy
+    public void stop() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /** Check one reading. Called on the MQTT callback thread; never blocks. */
+    public void check(String equipmentId, String sensorType, double value, String unit, long epochMillis) {
+        if (!enabled) {
+            return;
+        }
+        double warning = thresholds.warning(equipmentId, sensorType);
+        double critical = thresholds.critical(equipmentId, sensorType);
+        Channel channel = channels.computeIfAbsent(equipmentId, k -> new HashMap<>())
+                                  .computeIfAbsent(sensorType, k -> new Channel());
+
+        int observed = observedLevel(channel.level, value, warning, critical);
+        if (observed == channel.level) {
+            channel.pendingCount = 0;
+            return;
+        }
+        if (observed != channel.pendingLevel || channel.pendingCount == 0) {
+            channel.pendingLevel = observed;
+            channel.pendingCount = 0;
+        }
+        if (++channel.pendingCount < consecutive) {
+            return;
+        }
+
+        double threshold = observed == 2 ? critical : observed == 1 ? warning : Double.NaN;
+        // Only move to the new level once the change is queued; otherwise retry on the next reading
+        if (!events.offer(new Event(equipmentId, sensorType, observed, value, threshold, unit, epochMillis))) {
+            eventsDeferred.incrementAndGet();
+            return;
+        }
+        channel.level = observed;
+        channel.pendingCount = 0;
+    }
+
+    /**
+     * Level the reading indicates. A raised level holds until the value falls
+     * below its threshold by the hysteresis margin.
+     */
+    private int observedLevel(int current, double value, double warning, double critical) {
+        if (!Double.isNaN(critical)
+                && (value >= critical || (current == 2 && value >= critical * (1 - hysteresis)))) {
+            return 2;
+        }
+        if (!Double.isNaN(warning)
+                && (value >= warning || (current >= 1 && value >= warning * (1 - hysteresis)))) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Write queued level changes. Every change resolves the channel's open row
+     * and a raise then inserts the new one; a channel changing twice within one
+     * flush is written in two rounds to keep that order. Each round is one
+     * transaction. If a round fails, it and the later rounds stay in
+     * {@link #unwritten} and are retried on the next flush before the queue is
+     * drained again.
+     */
+    private void flush() {
+        if (unwritten.isEmpty()) {
+            events.drainTo(unwritten);
+        }
+        if (unwritten.isEmpty()) {
+            return;
+        }
+        List<List<Event>> rounds = new ArrayList<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (Event e : unwritten) {
+            int round = seen.merge(e.equipmentId() + '/' + e.sensorType(), 1, Integer::sum) - 1;
+            if (round == rounds.size()) {
+                rounds.add(new ArrayList<>());
+            }
+            rounds.get(round).add(e);
+        }
+        Set<String> touched = new HashSet<>();
+        int written = 0;
+        try {
+            for (List<Event> round : rounds) {
+                transaction.executeWithoutResult(status -> writeRound(round));
+                round.forEach(e -> touched.add(e.equipmentId()));
+                written++;
+            }
+            unwritten.clear();
+        } catch (Exception ex) {
+            // Later rounds keep each channel's changes in order, so they can be retried as one list
+            unwritten.clear();
+            rounds.subList(written, rounds.size()).forEach(unwritten::addAll);
+            writeFailures.incrementAndGet();
+            log.warn("Failed to write {} inline anomaly change(s), will retry: {}", unwritten.size(), ex.getMessage());
+        }
+        touched.forEach(stateCache::reloadAnomalies);
+    }
+
+    private void writeRound(List<Event> round) {
+        List<Object[]> resolves = new ArrayList<>(round.size());
+        List<Object[]> inserts = new ArrayList<>(round.size());
+        for (Event e : round) {
+            Timestamp at = new Timestamp(e.epochMillis());
+            resolves.add(new Object[] { at,
+                e.level() == 0 ? "Auto-resolved: readings back within threshold"
+                               : "Superseded: severity changed to " + SEVERITY[e.level()],
+                e.equipmentId(), e.sensorType() });
+            if (e.level() > 0) {
+                inserts.add(new Object[] { e.equipmentId(), e.sensorType(), SEVERITY[e.level()], at,
+                    String.format("%s reading of %.2f %s exceeded the %s threshold of %.2f for %d consecutive readings",
+                        e.sensorType(), e.value(), e.unit() != null ? e.unit() : "",
+                        e.level() == 2 ? "critical" : "warning", e.threshold(), consecutive),
+                    Math.min(Math.abs(e.value() - e.threshold()) / e.threshold(), 1.0) });
+            }
+        }
+        int[] counts = jdbcTemplate.batchUpdate(RESOLVE_SQL, resolves);
+        resolved.addAndGet(Arrays.stream(counts).filter(c -> c > 0).count());
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            raised.addAndGet(inserts.size());
+        }
+    }
+
+    /** Start channels with open threshold anomalies at their level, so they can clear. */
+    private void seedOpenAnomalies() {
+        try {
+            jdbcTemplate.query("""
+                SELECT DISTINCT ON (equipment_id, sensor_type) equipment_id, sensor_type, severity
+                FROM anomalies
+                WHERE anomaly_type = 'THRESHOLD_EXCEEDED' AND resolved = false
+                ORDER BY equipment_id, sensor_type, detected_at DESC
+                """, rs -> {
+                    Channel channel = new Channel();
+                    channel.level = "CRITICAL".equals(rs.getString("severity")) ? 2 : 1;
+                    channels.computeIfAbsent(rs.getString("equipment_id"), k -> new HashMap<>())
+                            .put(rs.getString("sensor_type"), channel);
+                });
+        } catch (Exception e) {
+            log.warn("Could not load open threshold anomalies: {}", e.getMessage());
+        }
+    }
+
+    public long getRaised() { return raised.get(); }
+    public long getResolved() { return resolved.get(); }
+    public long getEventsDeferred() { return eventsDeferred.get(); }
+    public long getWriteFailures() { return writeFailures.get(); }
+}
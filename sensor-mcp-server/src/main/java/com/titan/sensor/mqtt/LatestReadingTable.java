@@ -0,0 +1,117 @@
+package com.titan.sensor.mqtt;
+
+import com.titan.sensor.model.SensorReading;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latest value of every (equipment, sensor) channel, fed directly by the MQTT
+ * consumer.
+ *
+ * Each update is stamped with a global sequence number, so a reader can ask
+ * for everything that changed since its last look without the writer tracking
+ * who has seen what. Writers take a sequence number, store the entry and only
+ * then publish the number, one writer at a time, so every entry up to
+ * {@link #sequence()} is already visible to a reader. The SSE stream and the equipment status tools read from
+ * here instead of querying {@code sensor_readings}.
+ */
+@Component
+public class LatestReadingTable {
+
+    // equipmentId -> sensorType -> latest value
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Latest>> byEquipment = new ConcurrentHashMap<>();
+    // Last sequence number handed out; guarded by this
+    private long nextSequence;
+    // Last sequence number whose entry is stored
+    private volatile long publishedSequence;
+
+    private record Latest(String equipmentId, String sensorType, double value, String unit,
+                          long epochMillis, String qualityFlag, long seq) {
+        SensorReading toReading() {
+            return new SensorReading(equipmentId, sensorType, value, unit,
+                    Instant.ofEpochMilli(epochMillis).toString(), qualityFlag);
+        }
+    }
+
+    public synchronized void update(String equipmentId, String sensorType, double value, String unit,
+                                    long epochMillis, String qualityFlag) {
+        long seq = ++nextSequence;
+        byEquipment.computeIfAbsent(equipmentId, k -> new ConcurrentHashMap<>())
+                .put(sensorType, new Latest(equipmentId, sensorType, value, unit, epochMillis, qualityFlag, seq));
+        publishedSequence = seq;
+    }
+
+    /**
+     * Load a reading from the database at startup. Unlike {@link #update}, this
+     * never replaces a newer value that already arrived over MQTT.
+     */
+    public synchronized void seed(String equipmentId, String sensorType, double value, String unit,
+                                  long epochMillis, String qualityFlag) {
+        long seq = ++nextSequence;
+        byEquipment.computeIfAbsent(equipmentId, k -> new ConcurrentHashMap<>())
+                .merge(sensorType,
+                        new Latest(equipmentId, sensorType, value, unit, epochMillis, qualityFlag, seq),
+                        (current, seeded) -> current.epochMillis() >= seeded.epochMillis() ? current : seeded);
+        publishedSequence = seq;
+    }
+
+    /** Latest reading of each sensor of one equipment; empty if nothing has been seen for it. */
+    public List<SensorReading> latest(String equipmentId) {
+        Map<String, Latest> sensors = byEquipment.get(equipmentId);
+        if (sensors == null) {
+            return List.of();
+        }
+        List<SensorReading> readings = new ArrayList<>(sensors.size());
+        for (Latest latest : sensors.values()) {
+            readings.add(latest.toReading());
+        }
+        readings.sort(Comparator.comparing(SensorReading::sensorType));
+        return readings;
+    }
+
+    /** Sequence number of the most recent update; its entry and all earlier ones are visible. */
+    public long sequence() {
+        return publishedSequence;
+    }
+
+    /**
+     * Readings updated after sequence {@code after}. Take {@link #sequence()}
+     * before calling and pass it next time: updates racing with the scan may be
+     * returned twice, but never missed.
+     */
+    public List<SensorReading> changedSince(long after) {
+        List<SensorReading> changed = new ArrayList<>();
+        for (Map<String, Latest> sensors : byEquipment.values()) {
+            for (Latest latest : sensors.values()) {
+                if (latest.seq() > after) {
+                    changed.add(latest.toReading());
+                }
+            }
+        }
+        return changed;
+    }
+
+    /** All readings taken at or after {@code notBeforeMillis}. */
+    public List<SensorReading> snapshot(long notBeforeMillis) {
+        List<SensorReading> readings = new ArrayList<>();
+        for (Map<String, Latest> sensors : byEquipment.values()) {
+            for (Latest latest : sensors.values()) {
+                if (latest.epochMillis() >= notBeforeMillis) {
+                    readings.add(latest.toReading());
+                }
+            }
+        }
+        return readings;
+    }
+
+    /** Number of equipment with at least one reading. */
+    public int equipmentCount() {
+        return byEquipment.size();
+    }
+}
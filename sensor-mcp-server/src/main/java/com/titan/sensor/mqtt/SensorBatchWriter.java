@@ -0,0 +1,260 @@
+package com.titan.sensor.mqtt;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Buffered, batched writer for incoming sensor readings.
+ *
+ * The MQTT callback thread publishes readings into a bounded ring buffer and
+ * returns immediately. A dedicated writer thread drains the buffer and inserts
+ * into Greenplum with JDBC batch inserts, flushing when a batch fills up or when
+ * the flush interval elapses, whichever comes first.
+ *
+ * When the buffer is full the producer waits up to {@code ingest.offer-timeout-ms}
+ * (which holds back the MQTT callback and, with QoS 1, the broker) before
+ * dropping the reading.
+ *
+ * A batch that fails because the database is unreachable is retried once, after
+ * {@code ingest.retry-backoff-ms}. Any other failure is taken to be a bad row:
+ * the batch is split in halves and retried until the offending rows are
+ * isolated, and only those are discarded. Either way only the range that failed
+ * is sent again.
+ */
+@Component
+public class SensorBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorBatchWriter.class);
+
+    private static final String INSERT_SQL = """
+        INSERT INTO sensor_readings (time, equipment_id, sensor_type, value, unit, quality_flag)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ingest.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ingest.flush-interval-ms:250}")
+    private long flushIntervalMs;
+
+    @Value("${ingest.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${ingest.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    private SensorReadingRingBuffer ring;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final AtomicLong rowsWritten = new AtomicLong(0);
+    private final AtomicLong rowsFailed = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong backpressureWaits = new AtomicLong(0);
+    private final AtomicLong batchesFlushed = new AtomicLong(0);
+    private final AtomicLong highWatermark = new AtomicLong(0);
+    private volatile int lastBatchSize;
+    private volatile long lastFlushMicros;
+
+    public SensorBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        ring = new SensorReadingRingBuffer(bufferCapacity);
+        running = true;
+        writerThread = new Thread(this::runWriter, "sensor-batch-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Sensor batch writer started (capacity={}, batchSize={}, flushIntervalMs={})",
+                 ring.capacity(), batchSize, flushIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Sensor batch writer stopped ({} rows written, {} dropped, {} failed)",
+                 rowsWritten.get(), dropped.get(), rowsFailed.get());
+    }
+
+    /**
+     * Queue a reading for insertion. Must be called from a single producer thread
+     * (the MQTT callback thread).
+     *
+     * @return false if the reading was dropped because the buffer stayed full
+     */
+    public boolean offer(long epochMillis, String equipmentId, String sensorType,
+                         double value, String unit, String qualityFlag) {
+        if (!ring.tryPublish(epochMillis, equipmentId, sensorType, value, unit, qualityFlag)) {
+            backpressureWaits.incrementAndGet();
+            LockSupport.unpark(writerThread);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+            boolean published = false;
+            while (!published && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(100_000);
+                published = ring.tryPublish(epochMillis, equipmentId, sensorType, value, unit, qualityFlag);
+            }
+            if (!published) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        }
+
+        int depth = ring.size();
+        if (depth > highWatermark.get()) {
+            highWatermark.set(depth);
+        }
+        if (depth >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    private void runWriter() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long lastFlush = System.nanoTime();
+
+        while (running) {
+            int available = ring.size();
+            long sinceFlush = System.nanoTime() - lastFlush;
+
+            if (available >= batchSize || (available > 0 && sinceFlush >= flushIntervalNanos)) {
+                flush(Math.min(available, batchSize));
+                lastFlush = System.nanoTime();
+            } else if (available == 0) {
+                // Idle: sleep a whole interval. Readings that arrived meanwhile are flushed on the
+                // next pass (lastFlush is already an interval old); otherwise the interval restarts
+                LockSupport.parkNanos(flushIntervalNanos);
+                if (ring.size() == 0) {
+                    lastFlush = System.nanoTime();
+                }
+            } else {
+                LockSupport.parkNanos(Math.max(100_000, flushIntervalNanos - sinceFlush));
+            }
+        }
+
+        // Drain whatever is left on shutdown
+        int remaining;
+        while ((remaining = ring.size()) > 0) {
+            flush(Math.min(remaining, batchSize));
+        }
+    }
+
+    private void flush(int count) {
+        final long base = ring.headSequence();
+        long start = System.nanoTime();
+        try {
+            int failed = insertOrBisect(base, count, new int[] { 1 });
+            if (failed > 0) {
+                rowsFailed.addAndGet(failed);
+                log.error("Discarded {} of {} sensor readings that could not be inserted", failed, count);
+            }
+            rowsWritten.addAndGet(count - failed);
+            if (batchesFlushed.incrementAndGet() % 100 == 0) {
+                log.info("Flushed {} sensor readings in {} batches ({} dropped, {} failed, queue depth {})",
+                         rowsWritten.get(), batchesFlushed.get(), dropped.get(), rowsFailed.get(), ring.size());
+            }
+        } catch (Exception e) {
+            rowsFailed.addAndGet(count);
+            log.error("Failed to write batch of {} sensor readings: {}", count, e.getMessage());
+        } finally {
+            ring.release(count);
+            lastBatchSize = count;
+            lastFlushMicros = (System.nanoTime() - start) / 1_000;
+        }
+    }
+
+    /**
+     * Insert {@code count} readings from {@code base}. The driver runs a batch as
+     * one implicit transaction, so a failed call leaves none of its rows behind and
+     * only that range is sent again: after a backoff if the database was
+     * unreachable (while {@code retries} lasts), otherwise split in halves.
+     * Ranges that already went in are never resent.
+     *
+     * @param retries connection-failure retries left for the whole flush, shared by every range
+     * @return the number of rows that could not be inserted
+     */
+    private int insertOrBisect(long base, int count, int[] retries) {
+        try {
+            insert(base, count);
+            return 0;
+        } catch (DataAccessResourceFailureException e) {
+            if (retries[0] == 0) {
+                log.warn("Database unavailable, discarding {} sensor readings: {}", count, e.getMessage());
+                return count;
+            }
+            retries[0]--;
+            log.warn("Database unavailable writing {} sensor readings, retrying in {} ms: {}",
+                     count, retryBackoffMs, e.getMessage());
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(retryBackoffMs));
+            return insertOrBisect(base, count, retries);
+        } catch (Exception e) {
+            if (count == 1) {
+                log.debug("Rejected sensor reading {}/{}: {}", ring.equipmentId(base), ring.sensorType(base), e.getMessage());
+                return 1;
+            }
+            int half = count / 2;
+            return insertOrBisect(base, half, retries) + insertOrBisect(base + half, count - half, retries);
+        }
+    }
+
+    private void insert(long base, int count) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                long seq = base + i;
+                ps.setTimestamp(1, new Timestamp(ring.time(seq)));
+                ps.setString(2, ring.equipmentId(seq));
+                ps.setString(3, ring.sensorType(seq));
+                ps.setDouble(4, ring.value(seq));
+                ps.setString(5, ring.unit(seq));
+                ps.setString(6, ring.qualityFlag(seq));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return count;
+            }
+        });
+    }
+
+    // Metrics getters
+    public long getRowsWritten() { return rowsWritten.get(); }
+    public long getRowsFailed() { return rowsFailed.get(); }
+    public long getDropped() { return dropped.get(); }
+    public long getBackpressureWaits() { return backpressureWaits.get(); }
+    public long getBatchesFlushed() { return batchesFlushed.get(); }
+    public int getQueueDepth() { return ring.size(); }
+    public int getQueueCapacity() { return ring.capacity(); }
+    public long getQueueHighWatermark() { return highWatermark.get(); }
+    public int getLastBatchSize() { return lastBatchSize; }
+    public long getLastFlushMicros() { return lastFlushMicros; }
+}
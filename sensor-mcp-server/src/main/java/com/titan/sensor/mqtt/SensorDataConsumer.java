@@ -1,8 +1,10 @@
 package com.titan.sensor.mqtt;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.titan.common.codec.BinarySensorFormat;
+import com.titan.common.codec.ByteStringInterner;
+import com.titan.common.codec.MutableSensorFrame;
+import com.titan.common.codec.MutableSensorReading;
+import com.titan.common.codec.SensorPayloadDecoder;
 import org.eclipse.paho.client.mqttv3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,24 +14,47 @@ import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import java.sql.Timestamp;
-import java.time.Instant;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * MQTT consumer that receives sensor readings from the data generator
  * and writes them to Greenplum.
  *
- * Subscribes to: titan/sensors/#
- * Topic format: titan/sensors/{facility}/{equipment}/{sensor_type}
+ * Readings are handed to {@link SensorBatchWriter}, which buffers them and
+ * writes in JDBC batches off the MQTT callback thread. Payloads are decoded
+ * straight from the MQTT byte array by {@link SensorPayloadDecoder} into a
+ * single reused {@link MutableSensorReading}. Each reading also updates the
+ * {@link LatestReadingTable} that feeds the SSE stream and is checked against
+ * the anomaly thresholds by {@link InlineAnomalyDetector}.
+ *
+ * Subscribes to: titan/sensors/# and titan/frames/#
+ * Topic format: titan/sensors/{facility}/{equipment}/{sensor_type} (one reading)
+ *               titan/frames/{facility}/{equipment} (every sensor of one equipment, decoded
+ *               into a reused {@link MutableSensorFrame})
+ * Either may carry JSON or {@link BinarySensorFormat}; binary payloads are decoded
+ * against the equipment dictionaries retained on titan/codec/dictionary/#.
  */
 @Service
 public class SensorDataConsumer implements MqttCallback {
 
     private static final Logger log = LoggerFactory.getLogger(SensorDataConsumer.class);
 
+    private static final List<String> KNOWN_TOKENS = List.of(
+        "vibration", "temperature", "spindle_speed", "torque", "pressure", "power",
+        "mm/s", "celsius", "rpm", "Nm", "bar", "kW",
+        "GOOD", "WARNING", "CRITICAL", "BAD"
+    );
+
+    private final SensorBatchWriter batchWriter;
+    private final LatestReadingTable latestReadings;
+    private final InlineAnomalyDetector anomalyDetector;
     private final JdbcTemplate jdbcTemplate;
-    private final ObjectMapper objectMapper;
+    private final ByteStringInterner interner;
+    private final SensorPayloadDecoder decoder;
+    // Owned by the MQTT callback thread; overwritten for every message
+    private final MutableSensorReading reading = new MutableSensorReading();
+    private final MutableSensorFrame frame = new MutableSensorFrame();
     private MqttClient mqttClient;
 
     @Value("${mqtt.broker:tcp://localhost:1883}")
@@ -47,21 +72,40 @@ public class SensorDataConsumer implements MqttCallback {
     @Value("${mqtt.topic:titan/sensors/#}")
     private String topic;
 
+    @Value("${mqtt.frame-topic:titan/frames/#}")
+    private String frameTopic;
+
+    @Value("${mqtt.dictionary-topic:titan/codec/dictionary/#}")
+    private String dictionaryTopic;
+
+    // Topic filters minus their trailing '#'
+    private String framePrefix;
+    private String dictionaryPrefix;
+
     @Value("${mqtt.enabled:true}")
     private boolean mqttEnabled;
 
     private final AtomicLong messagesReceived = new AtomicLong(0);
-    private final AtomicLong messagesWritten = new AtomicLong(0);
     private final AtomicLong errors = new AtomicLong(0);
 
-    public SensorDataConsumer(JdbcTemplate jdbcTemplate) {
+    public SensorDataConsumer(SensorBatchWriter batchWriter, LatestReadingTable latestReadings,
+                              InlineAnomalyDetector anomalyDetector, JdbcTemplate jdbcTemplate,
+                              @Value("${ingest.intern-max-entries:4096}") int internMaxEntries) {
+        this.batchWriter = batchWriter;
+        this.latestReadings = latestReadings;
+        this.anomalyDetector = anomalyDetector;
         this.jdbcTemplate = jdbcTemplate;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.interner = new ByteStringInterner(internMaxEntries);
+        this.decoder = new SensorPayloadDecoder(interner);
     }
 
     @PostConstruct
     public void initialize() {
+        seedInterner();
+        framePrefix = frameTopic.endsWith("#") ? frameTopic.substring(0, frameTopic.length() - 1) : frameTopic;
+        dictionaryPrefix = dictionaryTopic.endsWith("#")
+            ? dictionaryTopic.substring(0, dictionaryTopic.length() - 1) : dictionaryTopic;
+
         if (!mqttEnabled) {
             log.info("MQTT consumer is disabled");
             return;
@@ -80,14 +124,27 @@ public class SensorDataConsumer implements MqttCallback {
             options.setConnectionTimeout(10);
 
             mqttClient.connect(options);
-            mqttClient.subscribe(topic, 1);
-            log.info("Subscribed to MQTT topic: {}", topic);
+            // Dictionary first, so its retained messages arrive before binary readings
+            mqttClient.subscribe(new String[] { dictionaryTopic, topic, frameTopic }, new int[] { 1, 1, 1 });
+            log.info("Subscribed to MQTT topics: {}, {}, {}", dictionaryTopic, topic, frameTopic);
 
         } catch (MqttException e) {
             log.warn("Failed to connect to MQTT broker: {}. Consumer will not receive live data.", e.getMessage());
         }
     }
 
+    /** Pre-load equipment IDs and fixed vocabularies so decoded identifiers are shared. */
+    private void seedInterner() {
+        interner.addAll(KNOWN_TOKENS);
+        try {
+            interner.addAll(jdbcTemplate.queryForList(
+                "SELECT equipment_id FROM equipment", String.class));
+        } catch (Exception e) {
+            log.warn("Could not load equipment dictionary for payload decoding: {}", e.getMessage());
+        }
+        log.info("Payload interner seeded with {} entries", interner.size());
+    }
+
     @PreDestroy
     public void cleanup() {
         if (mqttClient != null && mqttClient.isConnected()) {
@@ -111,49 +168,56 @@ public class SensorDataConsumer implements MqttCallback {
         messagesReceived.incrementAndGet();
 
         try {
-            String payload = new String(message.getPayload());
-            JsonNode json = objectMapper.readTree(payload);
-
-            String equipmentId = json.path("equipmentId").asText();
-            String sensorType = json.path("sensorType").asText();
-            double value = json.path("value").asDouble();
-            String unit = json.path("unit").asText();
-            String qualityFlag = json.path("qualityFlag").asText("GOOD");
-
-            // Parse timestamp or use current time
-            Instant timestamp;
-            if (json.has("timestamp") && !json.path("timestamp").isNull()) {
-                timestamp = Instant.parse(json.path("timestamp").asText());
-            } else {
-                timestamp = Instant.now();
+            MutableSensorReading r = reading;
+            if (topic.startsWith(dictionaryPrefix)) {
+                int entries = decoder.loadDictionary(message.getPayload());
+                if (entries < 0) {
+                    errors.incrementAndGet();
+                    log.warn("Discarding malformed binary dictionary on {}", topic);
+                } else {
+                    log.info("Loaded binary dictionary from {} ({} equipment)", topic, entries);
+                }
+                return;
             }
-
-            // Insert into Greenplum
-            jdbcTemplate.update("""
-                INSERT INTO sensor_readings (time, equipment_id, sensor_type, value, unit, quality_flag)
-                VALUES (?, ?, ?, ?, ?, ?)
-                """,
-                Timestamp.from(timestamp),
-                equipmentId,
-                sensorType,
-                value,
-                unit,
-                qualityFlag
-            );
-
-            messagesWritten.incrementAndGet();
-
-            // Log every 100 messages
-            if (messagesWritten.get() % 100 == 0) {
-                log.info("Processed {} sensor readings ({} errors)", messagesWritten.get(), errors.get());
+            if (topic.startsWith(framePrefix)) {
+                MutableSensorFrame f = frame;
+                // A frame is used whole or not at all
+                if (!decoder.decodeFrame(message.getPayload(), f)) {
+                    errors.incrementAndGet();
+                    log.warn("Discarding malformed sensor frame on {}", topic);
+                    return;
+                }
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < f.size(); i++) {
+                    f.readingAt(i, r);
+                    process(r, now);
+                }
+                return;
             }
 
+            if (!decoder.decode(message.getPayload(), r)) {
+                errors.incrementAndGet();
+                log.warn("Discarding malformed sensor payload on {}", topic);
+                return;
+            }
+            process(r, System.currentTimeMillis());
         } catch (Exception e) {
             errors.incrementAndGet();
             log.error("Error processing MQTT message: {}", e.getMessage());
         }
     }
 
+    private void process(MutableSensorReading r, long now) {
+        long timestamp = r.hasTimestamp() ? r.epochMillis : now;
+        String qualityFlag = r.qualityFlag != null ? r.qualityFlag : "GOOD";
+
+        latestReadings.update(r.equipmentId, r.sensorType, r.value, r.unit, timestamp, qualityFlag);
+        anomalyDetector.check(r.equipmentId, r.sensorType, r.value, r.unit, timestamp);
+
+        // Queue for batched insert into Greenplum
+        batchWriter.offer(timestamp, r.equipmentId, r.sensorType, r.value, r.unit, qualityFlag);
+    }
+
     @Override
     public void deliveryComplete(IMqttDeliveryToken token) {
         // Not used for consumers
@@ -161,7 +225,17 @@ public class SensorDataConsumer implements MqttCallback {
 
     // Metrics getters
     public long getMessagesReceived() { return messagesReceived.get(); }
-    public long getMessagesWritten() { return messagesWritten.get(); }
+    public long getMessagesWritten() { return batchWriter.getRowsWritten(); }
     public long getErrors() { return errors.get(); }
+    public long getMessagesDropped() { return batchWriter.getDropped(); }
+    public long getWriteFailures() { return batchWriter.getRowsFailed(); }
+    public long getBackpressureWaits() { return batchWriter.getBackpressureWaits(); }
+    public int getQueueDepth() { return batchWriter.getQueueDepth(); }
+    public int getQueueCapacity() { return batchWriter.getQueueCapacity(); }
+    public long getQueueHighWatermark() { return batchWriter.getQueueHighWatermark(); }
+    public long getAnomaliesRaised() { return anomalyDetector.getRaised(); }
+    public long getAnomaliesResolved() { return anomalyDetector.getResolved(); }
+    public long getAnomalyEventsDeferred() { return anomalyDetector.getEventsDeferred(); }
+    public long getAnomalyWriteFailures() { return anomalyDetector.getWriteFailures(); }
     public boolean isConnected() { return mqttClient != null && mqttClient.isConnected(); }
 }
@@ -0,0 +1,102 @@
+package com.titan.sensor.mqtt;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer / single-consumer ring buffer of sensor readings.
+ *
+ * Slots are pre-allocated column arrays, so publishing a reading copies a handful
+ * of primitives and references and never allocates. The producer is the MQTT
+ * callback thread; the consumer is the {@link SensorBatchWriter} flush thread.
+ *
+ * Sequence numbers grow monotonically: {@code tail} is the next slot to publish,
+ * {@code head} is the next slot to consume. A slot is only reused after the
+ * consumer has released it, which is what gives the producer backpressure.
+ */
+final class SensorReadingRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+
+    private final long[] times;
+    private final String[] equipmentIds;
+    private final String[] sensorTypes;
+    private final double[] values;
+    private final String[] units;
+    private final String[] qualityFlags;
+
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong tail = new AtomicLong(0);
+
+    SensorReadingRingBuffer(int requestedCapacity) {
+        // Round up to a power of two so slot lookup is a mask instead of a modulo
+        int cap = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.capacity = cap;
+        this.mask = cap - 1;
+        this.times = new long[cap];
+        this.equipmentIds = new String[cap];
+        this.sensorTypes = new String[cap];
+        this.values = new double[cap];
+        this.units = new String[cap];
+        this.qualityFlags = new String[cap];
+    }
+
+    /**
+     * Publish a reading. Producer thread only.
+     *
+     * @return false if the buffer is full
+     */
+    boolean tryPublish(long epochMillis, String equipmentId, String sensorType,
+                       double value, String unit, String qualityFlag) {
+        long t = tail.get();
+        if (t - head.getAcquire() >= capacity) {
+            return false;
+        }
+        int i = (int) (t & mask);
+        times[i] = epochMillis;
+        equipmentIds[i] = equipmentId;
+        sensorTypes[i] = sensorType;
+        values[i] = value;
+        units[i] = unit;
+        qualityFlags[i] = qualityFlag;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    /** Number of readings published but not yet released by the consumer. */
+    int size() {
+        return (int) (tail.getAcquire() - head.getAcquire());
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /** Sequence of the oldest unreleased slot. Consumer thread only. */
+    long headSequence() {
+        return head.get();
+    }
+
+    /**
+     * Release {@code count} slots back to the producer. Consumer thread only.
+     * References are cleared so flushed readings don't pin strings in memory.
+     */
+    void release(int count) {
+        long h = head.get();
+        for (long s = h; s < h + count; s++) {
+            int i = (int) (s & mask);
+            equipmentIds[i] = null;
+            sensorTypes[i] = null;
+            units[i] = null;
+            qualityFlags[i] = null;
+        }
+        head.setRelease(h + count);
+    }
+
+    long time(long seq) { return times[(int) (seq & mask)]; }
+    String equipmentId(long seq) { return equipmentIds[(int) (seq & mask)]; }
+    String sensorType(long seq) { return sensorTypes[(int) (seq & mask)]; }
+    double value(long seq) { return values[(int) (seq & mask)]; }
+    String unit(long seq) { return units[(int) (seq & mask)]; }
+    String qualityFlag(long seq) { return qualityFlags[(int) (seq & mask)]; }
+}
@@ -0,0 +1,218 @@
+package com.titan.sensor.service;
+
+import com.titan.sensor.model.Anomaly;
+import com.titan.sensor.model.Equipment;
+import com.titan.sensor.mqtt.LatestReadingTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory current state of every equipment, for the status tools.
+ *
+ * Latest sensor values live in {@link LatestReadingTable}, updated by the MQTT
+ * consumer on every reading and seeded from {@code sensor_readings} at startup.
+ * Equipment records, facility names and active anomalies change rarely; they
+ * are reloaded together on a fixed interval and swapped in as one immutable
+ * snapshot, and anomalies of a single equipment are reloaded right after this
+ * service writes one.
+ *
+ * {@link #current()} returns null once the snapshot is older than
+ * {@code state-cache.max-staleness-ms} (e.g. the database has been unreachable),
+ * and callers fall back to querying the database directly.
+ */
+@Component
+public class EquipmentStateCache {
+
+    private static final Logger log = LoggerFactory.getLogger(EquipmentStateCache.class);
+
+    private static final RowMapper<Anomaly> ANOMALY_MAPPER = (rs, rowNum) -> new Anomaly(
+        String.valueOf(rs.getInt("anomaly_id")),
+        rs.getString("equipment_id"),
+        rs.getString("anomaly_type"),
+        rs.getString("sensor_type"),
+        rs.getString("severity"),
+        rs.getString("detected_at"),
+        rs.getString("description"),
+        rs.getString("predicted_failure_date"),
+        rs.getDouble("confidence_score")
+    );
+
+    private static final String ACTIVE_ANOMALIES_SQL = """
+        SELECT anomaly_id, equipment_id, anomaly_type, sensor_type, severity,
+               detected_at, description, predicted_failure_date, confidence_score
+        FROM anomalies
+        WHERE resolved = false
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LatestReadingTable latestReadings;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "equipment-state-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${state-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${state-cache.refresh-interval-ms:15000}")
+    private long refreshIntervalMs;
+
+    @Value("${state-cache.max-staleness-ms:60000}")
+    private long maxStalenessMs;
+
+    @Value("${state-cache.warmup-hours:1}")
+    private int warmupHours;
+
+    private volatile Snapshot snapshot;
+
+    /** Equipment, facilities and active anomalies as of {@code loadedAtMillis}. */
+    public record Snapshot(Map<String, Equipment> equipment,
+                           Map<String, List<Equipment>> equipmentByFacility,
+                           Map<String, String> facilityNames,
+                           Map<String, List<Anomaly>> activeAnomalies,
+                           long loadedAtMillis) {
+
+        public List<Anomaly> anomaliesFor(String equipmentId) {
+            return activeAnomalies.getOrDefault(equipmentId, List.of());
+        }
+
+        public long ageMillis() {
+            return System.currentTimeMillis() - loadedAtMillis;
+        }
+    }
+
+    public EquipmentStateCache(JdbcTemplate jdbcTemplate, LatestReadingTable latestReadings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.latestReadings = latestReadings;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Equipment state cache is disabled; status tools query the database");
+            return;
+        }
+        warmLatestReadings();
+        refresh();
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /** The current snapshot, or null if disabled or older than the staleness bound. */
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        return s != null && s.ageMillis() <= maxStalenessMs ? s : null;
+    }
+
+    /** Reload equipment, facilities and active anomalies. Keeps the old snapshot on failure. */
+    public void refresh() {
+        try {
+            long loadedAt = System.currentTimeMillis();
+            Map<String, Equipment> equipment = new HashMap<>();
+            Map<String, List<Equipment>> byFacility = new HashMap<>();
+            jdbcTemplate.query("""
+                SELECT equipment_id, facility_id, name, type, manufacturer, model,
+                       install_date, last_maintenance, status
+                FROM equipment
+                """, rs -> {
+                    Equipment e = new Equipment(
+                        rs.getString("equipment_id"),
+                        rs.getString("facility_id"),
+                        rs.getString("name"),
+                        rs.getString("type"),
+                        rs.getString("manufacturer"),
+                        rs.getString("model"),
+                        rs.getString("install_date"),
+                        rs.getString("last_maintenance"),
+                        rs.getString("status")
+                    );
+                    equipment.put(e.equipmentId(), e);
+                    byFacility.computeIfAbsent(e.facilityId(), k -> new ArrayList<>()).add(e);
+                });
+
+            Map<String, String> facilityNames = new HashMap<>();
+            jdbcTemplate.query("SELECT facility_id, name FROM titan_facilities",
+                rs -> { facilityNames.put(rs.getString("facility_id"), rs.getString("name")); });
+
+            Map<String, List<Anomaly>> anomalies = new HashMap<>();
+            for (Anomaly a : jdbcTemplate.query(ACTIVE_ANOMALIES_SQL + " ORDER BY detected_at DESC", ANOMALY_MAPPER)) {
+                anomalies.computeIfAbsent(a.equipmentId(), k -> new ArrayList<>()).add(a);
+            }
+
+            synchronized (this) {
+                snapshot = new Snapshot(equipment, byFacility, facilityNames, anomalies, loadedAt);
+            }
+            log.debug("Equipment state refreshed: {} equipment, {} with active anomalies",
+                      equipment.size(), anomalies.size());
+        } catch (Exception e) {
+            log.warn("Equipment state refresh failed, keeping previous snapshot: {}", e.getMessage());
+        }
+    }
+
+    /** Reload the active anomalies of one equipment, e.g. right after inserting one. */
+    public void reloadAnomalies(String equipmentId) {
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            List<Anomaly> active = jdbcTemplate.query(
+                ACTIVE_ANOMALIES_SQL + " AND equipment_id = ? ORDER BY detected_at DESC", ANOMALY_MAPPER, equipmentId);
+            synchronized (this) {
+                Snapshot s = snapshot;
+                Map<String, List<Anomaly>> anomalies = new HashMap<>(s.activeAnomalies());
+                if (active.isEmpty()) {
+                    anomalies.remove(equipmentId);
+                } else {
+                    anomalies.put(equipmentId, active);
+                }
+                // Keeps the snapshot's load time: the other parts are no fresher than before
+                snapshot = new Snapshot(s.equipment(), s.equipmentByFacility(), s.facilityNames(),
+                                        anomalies, s.loadedAtMillis());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to reload anomalies for {}: {}", equipmentId, e.getMessage());
+        }
+    }
+
+    /** Seed the latest-reading table so status is complete before the first MQTT messages arrive. */
+    private void warmLatestReadings() {
+        try {
+            int[] seeded = {0};
+            jdbcTemplate.query("""
+                SELECT DISTINCT ON (equipment_id, sensor_type)
+                       equipment_id, sensor_type, value, unit, time, quality_flag
+                FROM sensor_readings
+                WHERE time >= NOW() - (? || ' hours')::interval
+                ORDER BY equipment_id, sensor_type, time DESC
+                """, rs -> {
+                    latestReadings.seed(
+                        rs.getString("equipment_id"),
+                        rs.getString("sensor_type"),
+                        rs.getDouble("value"),
+                        rs.getString("unit"),
+                        rs.getTimestamp("time").getTime(),
+                        rs.getString("quality_flag"));
+                    seeded[0]++;
+                }, String.valueOf(warmupHours));
+            log.info("Seeded {} latest readings from the last {} hour(s)", seeded[0], warmupHours);
+        } catch (Exception e) {
+            log.warn("Could not seed latest readings: {}", e.getMessage());
+        }
+    }
+}
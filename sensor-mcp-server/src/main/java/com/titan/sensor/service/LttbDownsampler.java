@@ -0,0 +1,120 @@
+package com.titan.sensor.service;
+
+import com.titan.sensor.model.SensorReading;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming largest-triangle-three-buckets (LTTB) downsampler for one series.
+ *
+ * Points must arrive in time order. The window is cut into {@code maxPoints - 2}
+ * equal time slices; from each slice the point forming the largest triangle with
+ * the previously kept point and the average of the next slice is kept, plus the
+ * first and last point. Only two slices are held at a time, so rows can be fed
+ * straight from a forward-only {@code ResultSet}.
+ */
+final class LttbDownsampler {
+
+    private final long startMillis;
+    private final double sliceMillis;
+    private final List<SensorReading> kept = new ArrayList<>();
+
+    private double anchorT;
+    private double anchorV;
+    private boolean started;
+    private Slice current;
+    private Slice next;
+
+    LttbDownsampler(long startMillis, long endMillis, int maxPoints) {
+        this.startMillis = startMillis;
+        this.sliceMillis = Math.max(1.0, (endMillis - startMillis) / (double) Math.max(1, maxPoints - 2));
+    }
+
+    void add(long epochMillis, double value, SensorReading reading) {
+        double t = epochMillis - startMillis;
+        if (!started) {
+            started = true;
+            keep(t, value, reading);
+            return;
+        }
+        long index = (long) Math.floor(t / sliceMillis);
+        if (next == null || index != next.index) {
+            if (next != null) {
+                if (current != null) {
+                    selectFrom(current, next.avgT(), next.avgV());
+                }
+                current = next;
+            }
+            next = new Slice(index);
+        }
+        next.add(t, value, reading);
+    }
+
+    /** The kept points, in time order. */
+    List<SensorReading> finish() {
+        if (current != null) {
+            selectFrom(current, next.avgT(), next.avgV());
+        }
+        if (next != null) {
+            int last = next.size - 1;
+            keep(next.t[last], next.v[last], next.readings[last]);
+        }
+        current = null;
+        next = null;
+        return kept;
+    }
+
+    private void selectFrom(Slice slice, double nextT, double nextV) {
+        int best = 0;
+        double bestArea = -1;
+        for (int i = 0; i < slice.size; i++) {
+            // Twice the triangle area; the factor doesn't change the argmax
+            double area = Math.abs((anchorT - nextT) * (slice.v[i] - anchorV)
+                                 - (anchorT - slice.t[i]) * (nextV - anchorV));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        keep(slice.t[best], slice.v[best], slice.readings[best]);
+    }
+
+    private void keep(double t, double v, SensorReading reading) {
+        anchorT = t;
+        anchorV = v;
+        kept.add(reading);
+    }
+
+    private static final class Slice {
+        final long index;
+        double[] t = new double[16];
+        double[] v = new double[16];
+        SensorReading[] readings = new SensorReading[16];
+        int size;
+        double sumT;
+        double sumV;
+
+        Slice(long index) {
+            this.index = index;
+        }
+
+        void add(double time, double value, SensorReading reading) {
+            if (size == t.length) {
+                t = Arrays.copyOf(t, size * 2);
+                v = Arrays.copyOf(v, size * 2);
+                readings = Arrays.copyOf(readings, size * 2);
+            }
+            t[size] = time;
+            v[size] = value;
+            readings[size] = reading;
+            size++;
+            sumT += time;
+            sumV += value;
+        }
+
+        double avgT() { return sumT / size; }
+        double avgV() { return sumV / size; }
+    }
+}
@@ -1,12 +1,15 @@
 package com.titan.sensor.service;
 
 import com.titan.sensor.model.*;
+import com.titan.sensor.mqtt.LatestReadingTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springaicommunity.mcp.annotation.McpTool;
 import org.springaicommunity.mcp.annotation.McpToolParam;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,16 +18,41 @@ import java.util.Map;
 /**
  * MCP Tools for accessing IoT sensor data from Titan Manufacturing facilities.
  * Queries Greenplum database for equipment and sensor readings.
+ *
+ * The equipment and facility status tools answer from {@link EquipmentStateCache}
+ * and {@link LatestReadingTable} while the cached state is within its staleness
+ * bound, and query Greenplum otherwise.
  */
 @Service
 public class SensorService {
 
     private static final Logger log = LoggerFactory.getLogger(SensorService.class);
 
-    private final JdbcTemplate jdbcTemplate;
+    private static final int DEFAULT_MAX_POINTS = 200;
+    private static final int MAX_POINTS_LIMIT = 2000;
+    // LTTB picks from this many candidate points per output point where the data allows
+    private static final int LTTB_OVERSAMPLING = 4;
+    private static final int STREAM_FETCH_SIZE = 2000;
 
-    public SensorService(JdbcTemplate jdbcTemplate) {
+    private final JdbcTemplate jdbcTemplate;
+    private final EquipmentStateCache stateCache;
+    private final LatestReadingTable latestReadings;
+    private final ThresholdTable thresholds;
+    // Cursor-based reads: the PostgreSQL driver only honours the fetch size inside a transaction
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public SensorService(JdbcTemplate jdbcTemplate, EquipmentStateCache stateCache,
+                         LatestReadingTable latestReadings, ThresholdTable thresholds,
+                         PlatformTransactionManager transactionManager) {
         this.jdbcTemplate = jdbcTemplate;
+        this.stateCache = stateCache;
+        this.latestReadings = latestReadings;
+        this.thresholds = thresholds;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     /**
@@ -90,6 +118,15 @@ public class SensorService {
     ) {
         log.info("Getting equipment status: {}", equipmentId);
 
+        EquipmentStateCache.Snapshot state = stateCache.current();
+        if (state != null && state.equipment().containsKey(equipmentId)) {
+            List<SensorReading> readings = latestReadings.latest(equipmentId);
+            return buildEquipmentStatus(state.equipment().get(equipmentId),
+                readings.isEmpty() ? getLatestReadings(equipmentId) : readings,
+                state.anomaliesFor(equipmentId),
+                state.ageMillis());
+        }
+
         // Get equipment info
         Equipment equipment = jdbcTemplate.queryForObject("""
             SELECT equipment_id, facility_id, name, type, manufacturer, model,
@@ -116,6 +153,11 @@ public class SensorService {
         // Get active anomalies
         List<Anomaly> anomalies = getActiveAnomalies(equipmentId);
 
+        return buildEquipmentStatus(equipment, readings, anomalies, 0);
+    }
+
+    private EquipmentStatus buildEquipmentStatus(Equipment equipment, List<SensorReading> readings,
+                                                 List<Anomaly> anomalies, long stateAgeMs) {
         // Determine overall health status
         String healthStatus = "HEALTHY";
         if (!anomalies.isEmpty()) {
@@ -128,20 +170,24 @@ public class SensorService {
         String summary = buildStatusSummary(equipment, readings, anomalies);
 
         return new EquipmentStatus(
-            equipmentId,
+            equipment.equipmentId(),
             equipment.type(),
             equipment.facilityId(),
             healthStatus,
             readings,
             anomalies,
-            summary
+            summary,
+            stateAgeMs
         );
     }
 
     /**
-     * Get historical sensor readings for equipment.
+     * Get historical sensor readings for equipment: the latest raw rows, or a
+     * fixed number of points covering the whole window (bucket or lttb mode).
      */
-    @McpTool(description = "Get historical sensor readings for equipment. Can filter by sensor type and time range.")
+    @McpTool(description = "Get historical sensor readings for equipment. Can filter by sensor type and time range. " +
+            "Mode raw (default) returns the most recent readings; bucket and lttb return about maxPoints points " +
+            "per sensor spread over the whole window, for overviews of long ranges.")
     public List<SensorReading> getSensorReadings(
             @McpToolParam(description = "Equipment ID (e.g., PHX-CNC-007)")
             String equipmentId,
@@ -152,10 +198,28 @@ public class SensorService {
             @McpToolParam(description = "Number of hours of history to retrieve (default 24)")
             Integer hoursBack,
 
-            @McpToolParam(description = "Maximum number of readings to return (default 100)")
-            Integer limit
+            @McpToolParam(description = "Maximum number of readings to return in raw mode (default 100)")
+            Integer limit,
+
+            @McpToolParam(description = "raw (latest readings, default), bucket (time-bucket averages) or lttb (shape-preserving samples; rollup averages over long windows)")
+            String mode,
+
+            @McpToolParam(description = "Points per sensor in bucket and lttb modes (default 200, max 2000)")
+            Integer maxPoints
     ) {
-        log.info("Getting sensor readings: equipment={}, sensorType={}, hours={}", equipmentId, sensorType, hoursBack);
+        log.info("Getting sensor readings: equipment={}, sensorType={}, hours={}, mode={}",
+                 equipmentId, sensorType, hoursBack, mode);
+
+        int hours = hoursBack != null && hoursBack > 0 ? hoursBack : 24;
+        String resolvedMode = mode == null || mode.isBlank() ? "raw" : mode.trim().toLowerCase();
+        if (!"raw".equals(resolvedMode)) {
+            int points = maxPoints != null && maxPoints > 2 ? Math.min(maxPoints, MAX_POINTS_LIMIT) : DEFAULT_MAX_POINTS;
+            return switch (resolvedMode) {
+                case "bucket" -> getBucketedReadings(equipmentId, sensorType, hours, points);
+                case "lttb" -> getLttbReadings(equipmentId, sensorType, hours, points);
+                default -> throw new IllegalArgumentException("Unknown mode '" + mode + "' (use raw, bucket or lttb)");
+            };
+        }
 
         StringBuilder sql = new StringBuilder("""
             SELECT equipment_id, sensor_type, value, unit, time, quality_flag
@@ -171,7 +235,6 @@ public class SensorService {
             params.add(sensorType.toLowerCase());
         }
 
-        int hours = hoursBack != null && hoursBack > 0 ? hoursBack : 24;
         sql.append(" AND time >= NOW() - INTERVAL '").append(hours).append(" hours'");
 
         sql.append(" ORDER BY time DESC");
@@ -189,6 +252,118 @@ public class SensorService {
             ));
     }
 
+    /**
+     * Average per time bucket, {@code maxPoints} buckets per sensor over the window,
+     * aggregated in Greenplum from the coarsest table fine enough for the bucket width.
+     */
+    private List<SensorReading> getBucketedReadings(String equipmentId, String sensorType, int hours, int maxPoints) {
+        long windowSeconds = hours * 3600L;
+        long bucketSeconds = Math.max(1, (windowSeconds + maxPoints - 1) / maxPoints);
+        SensorReadingSource source = SensorReadingSource.coarsestFor(windowSeconds, maxPoints);
+        String timeColumn = source.timeColumn();
+
+        String value = source == SensorReadingSource.RAW
+            ? "AVG(value)"
+            : "SUM(avg_value * sample_count) / SUM(sample_count)";
+        // Rollups keep no quality flags; raw buckets report the worst flag inside them
+        String quality = source == SensorReadingSource.RAW
+            ? """
+              CASE WHEN bool_or(quality_flag IN ('CRITICAL', 'BAD')) THEN 'CRITICAL'
+                   WHEN bool_or(quality_flag = 'WARNING') THEN 'WARNING' ELSE 'GOOD' END"""
+            : "NULL";
+
+        StringBuilder sql = new StringBuilder("""
+            SELECT equipment_id, sensor_type, MAX(unit) AS unit,
+                   to_timestamp(FLOOR(EXTRACT(EPOCH FROM %1$s) / %2$d) * %2$d) AS bucket_time,
+                   %3$s AS value,
+                   %4$s AS quality_flag
+            FROM %5$s
+            WHERE equipment_id = ?
+              AND %1$s >= NOW() - INTERVAL '%6$d hours'
+            """.formatted(timeColumn, bucketSeconds, value, quality, source.table(), hours));
+        List<Object> params = new ArrayList<>();
+        params.add(equipmentId);
+        if (sensorType != null && !sensorType.isBlank()) {
+            sql.append(" AND sensor_type = ?");
+            params.add(sensorType.toLowerCase());
+        }
+        sql.append(" GROUP BY equipment_id, sensor_type, bucket_time ORDER BY sensor_type, bucket_time");
+
+        return jdbcTemplate.query(sql.toString(),
+            (rs, rowNum) -> new SensorReading(
+                rs.getString("equipment_id"),
+                rs.getString("sensor_type"),
+                rs.getDouble("value"),
+                rs.getString("unit"),
+                rs.getString("bucket_time"),
+                rs.getString("quality_flag")
+            ),
+            params.toArray());
+    }
+
+    /**
+     * Up to {@code maxPoints} points per sensor chosen by LTTB, streamed through
+     * {@link LttbDownsampler} from a cursor so the full window is never held in
+     * memory. Points come from the coarsest source that still gives
+     * {@link #LTTB_OVERSAMPLING} candidates per output point: raw readings for
+     * short windows, otherwise rollup bucket averages with a null quality flag.
+     */
+    private List<SensorReading> getLttbReadings(String equipmentId, String sensorType, int hours, int maxPoints) {
+        long windowSeconds = hours * 3600L;
+        SensorReadingSource source = SensorReadingSource.coarsestFor(windowSeconds, maxPoints * LTTB_OVERSAMPLING);
+        String timeColumn = source.timeColumn();
+
+        StringBuilder sql = new StringBuilder("""
+            SELECT equipment_id, sensor_type, unit, %1$s AS time,
+                   EXTRACT(EPOCH FROM %1$s) * 1000 AS epoch_ms,
+                   %2$s AS value, %3$s AS quality_flag
+            FROM %4$s
+            WHERE equipment_id = ?
+              AND %1$s >= NOW() - INTERVAL '%5$d hours'
+            """.formatted(timeColumn, source.valueColumn(),
+                          source == SensorReadingSource.RAW ? "quality_flag" : "NULL",
+                          source.table(), hours));
+        List<Object> params = new ArrayList<>();
+        params.add(equipmentId);
+        if (sensorType != null && !sensorType.isBlank()) {
+            sql.append(" AND sensor_type = ?");
+            params.add(sensorType.toLowerCase());
+        }
+        sql.append(" ORDER BY sensor_type, ").append(timeColumn);
+
+        long endMillis = System.currentTimeMillis();
+        long startMillis = endMillis - windowSeconds * 1000;
+        List<SensorReading> result = new ArrayList<>();
+
+        readOnlyTransaction.executeWithoutResult(status -> {
+            LttbDownsampler[] series = {null};
+            String[] seriesType = {null};
+            streamingJdbcTemplate.query(sql.toString(), rs -> {
+                String type = rs.getString("sensor_type");
+                if (!type.equals(seriesType[0])) {
+                    if (series[0] != null) {
+                        result.addAll(series[0].finish());
+                    }
+                    series[0] = new LttbDownsampler(startMillis, endMillis, maxPoints);
+                    seriesType[0] = type;
+                }
+                double value = rs.getDouble("value");
+                series[0].add(rs.getLong("epoch_ms"), value, new SensorReading(
+                    rs.getString("equipment_id"),
+                    type,
+                    value,
+                    rs.getString("unit"),
+                    rs.getString("time"),
+                    rs.getString("quality_flag")
+                ));
+            }, params.toArray());
+            if (series[0] != null) {
+                result.addAll(series[0].finish());
+            }
+        });
+        return result;
+    }
+
     /**
      * Get facility-wide equipment health overview.
      */
@@ -199,6 +374,30 @@ public class SensorService {
     ) {
         log.info("Getting facility status: {}", facilityId);
 
+        EquipmentStateCache.Snapshot state = stateCache.current();
+        String fid = facilityId.toUpperCase();
+        if (state != null && state.facilityNames().containsKey(fid)) {
+            int operational = 0, warning = 0, critical = 0, maintenance = 0;
+            List<Equipment> equipment = state.equipmentByFacility().getOrDefault(fid, List.of());
+            for (Equipment e : equipment) {
+                switch (String.valueOf(e.status())) {
+                    case "operational" -> operational++;
+                    case "warning" -> warning++;
+                    case "critical" -> critical++;
+                    case "maintenance" -> maintenance++;
+                    default -> { }
+                }
+            }
+            List<String> equipmentWithAnomalies = new ArrayList<>();
+            for (String id : state.activeAnomalies().keySet()) {
+                if (id.startsWith(fid + "-")) {
+                    equipmentWithAnomalies.add(id);
+                }
+            }
+            return buildFacilityStatus(fid, state.facilityNames().get(fid), equipment.size(),
+                operational, warning, critical, maintenance, equipmentWithAnomalies, state.ageMillis());
+        }
+
         // Get facility info
         Map<String, Object> facility = jdbcTemplate.queryForMap("""
             SELECT facility_id, name, city, country
@@ -232,18 +431,25 @@ public class SensorService {
         int critical = ((Number) counts.get("critical")).intValue();
         int maintenance = ((Number) counts.get("maintenance")).intValue();
 
+        return buildFacilityStatus(facilityId.toUpperCase(), (String) facility.get("name"), total,
+            operational, warning, critical, maintenance, equipmentWithAnomalies, 0);
+    }
+
+    private FacilityStatus buildFacilityStatus(String facilityId, String facilityName, int total,
+                                               int operational, int warning, int critical, int maintenance,
+                                               List<String> equipmentWithAnomalies, long stateAgeMs) {
         double healthPercentage = total > 0 ? (operational * 100.0) / total : 0;
 
         String summary = String.format(
             "%s facility has %d equipment: %d operational, %d warning, %d critical, %d under maintenance. " +
             "Overall health: %.1f%%. %d equipment with active anomalies.",
-            facility.get("name"), total, operational, warning, critical, maintenance,
+            facilityName, total, operational, warning, critical, maintenance,
             healthPercentage, equipmentWithAnomalies.size()
         );
 
         return new FacilityStatus(
-            facilityId.toUpperCase(),
-            (String) facility.get("name"),
+            facilityId,
+            facilityName,
             total,
             operational,
             warning,
@@ -251,7 +457,8 @@ public class SensorService {
             maintenance,
             healthPercentage,
             equipmentWithAnomalies,
-            summary
+            summary,
+            stateAgeMs
         );
     }
 
@@ -347,6 +554,7 @@ public class SensorService {
                 updated_by = EXCLUDED.updated_by
             """,
             equipmentId, sensorType.toLowerCase(), warningThreshold, criticalThreshold, updatedBy != null ? updatedBy : "system");
+        thresholds.publishChange();
 
         // Return the updated threshold
         return jdbcTemplate.queryForObject("""
@@ -386,7 +594,7 @@ public class SensorService {
         anomalies.addAll(getActiveAnomalies(equipmentId));
 
         // Perform real-time threshold analysis on recent readings
-        List<SensorReading> recentReadings = getSensorReadings(equipmentId, sensorType, 1, 10);
+        List<SensorReading> recentReadings = getSensorReadings(equipmentId, sensorType, 1, 10, null, null);
 
         for (SensorReading reading : recentReadings) {
             Anomaly detected = analyzeReading(reading);
@@ -525,6 +733,7 @@ public class SensorService {
                     hoursToFailure != null ? hoursToFailure.toString() : "720",
                     probability);
                 log.info("Created ML-based anomaly record for {}", equipmentId);
+                stateCache.reloadAnomalies(equipmentId);
             }
         } catch (Exception e) {
             log.warn("Failed to create anomaly record: {}", e.getMessage());
@@ -581,25 +790,25 @@ public class SensorService {
     }
 
     private Anomaly analyzeReading(SensorReading reading) {
-        // Get thresholds from database (equipment-specific or global)
-        Double[] thresholds = getThresholdsFromDb(reading.equipmentId(), reading.sensorType());
-        Double warningThreshold = thresholds[0];
-        Double criticalThreshold = thresholds[1];
+        // Equipment-specific or global thresholds, from memory; NaN = not set
+        String sensorType = reading.sensorType().toLowerCase();
+        double warningThreshold = thresholds.warning(reading.equipmentId(), sensorType);
+        double criticalThreshold = thresholds.critical(reading.equipmentId(), sensorType);
 
-        if (criticalThreshold == null) return null;
+        if (Double.isNaN(criticalThreshold)) return null;
 
         String severity = null;
-        Double threshold = null;
+        double threshold = Double.NaN;
 
         if (reading.value() >= criticalThreshold) {
             severity = "CRITICAL";
             threshold = criticalThreshold;
-        } else if (warningThreshold != null && reading.value() >= warningThreshold) {
+        } else if (!Double.isNaN(warningThreshold) && reading.value() >= warningThreshold) {
             severity = "HIGH";
             threshold = warningThreshold;
         }
 
-        if (severity != null && threshold != null) {
+        if (severity != null) {
             double deviation = ((reading.value() - threshold) / threshold) * 100;
 
             return new Anomaly(
@@ -621,51 +830,6 @@ public class SensorService {
         return null;
     }
 
-    private Double[] getThresholdsFromDb(String equipmentId, String sensorType) {
-        try {
-            // First try equipment-specific threshold
-            List<Map<String, Object>> results = jdbcTemplate.queryForList("""
-                SELECT warning_threshold, critical_threshold
-                FROM sensor_thresholds
-                WHERE equipment_id = ? AND sensor_type = ?
-                """, equipmentId, sensorType.toLowerCase());
-
-            if (!results.isEmpty()) {
-                Map<String, Object> row = results.get(0);
-                return new Double[] {
-                    row.get("warning_threshold") != null ? ((Number) row.get("warning_threshold")).doubleValue() : null,
-                    row.get("critical_threshold") != null ? ((Number) row.get("critical_threshold")).doubleValue() : null
-                };
-            }
-
-            // Fall back to global defaults from sensor_types
-            results = jdbcTemplate.queryForList("""
-                SELECT warning_threshold, critical_threshold
-                FROM sensor_types
-                WHERE sensor_type = ?
-                """, sensorType.toLowerCase());
-
-            if (!results.isEmpty()) {
-                Map<String, Object> row = results.get(0);
-                return new Double[] {
-                    row.get("warning_threshold") != null ? ((Number) row.get("warning_threshold")).doubleValue() : null,
-                    row.get("critical_threshold") != null ? ((Number) row.get("critical_threshold")).doubleValue() : null
-                };
-            }
-        } catch (Exception e) {
-            log.warn("Error getting thresholds for {}/{}: {}", equipmentId, sensorType, e.getMessage());
-        }
-
-        // Hardcoded fallback if database unavailable
-        return switch (sensorType.toLowerCase()) {
-            case "vibration" -> new Double[] { 3.5, 5.0 };
-            case "temperature" -> new Double[] { 70.0, 85.0 };
-            case "spindle_speed" -> new Double[] { 16000.0, 18000.0 };
-            case "power_draw" -> new Double[] { 65.0, 80.0 };
-            default -> new Double[] { null, null };
-        };
-    }
-
     private String getRecommendation(String sensorType, String severity) {
         if ("CRITICAL".equals(severity)) {
             return "Immediate inspection required. Consider stopping equipment.";
@@ -0,0 +1,105 @@
+package com.titan.sensor.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically runs {@code sensor_storage_maintenance()} in Greenplum: creates
+ * the upcoming daily {@code sensor_readings} partitions, rolls completed
+ * minutes into {@code sensor_readings_1m} and {@code sensor_readings_1h}, and
+ * drops partitions and rollup rows past their retention.
+ *
+ * The function is idempotent and catches up from the last rolled-up minute, so
+ * a missed run only delays the rollups.
+ */
+@Component
+public class SensorStorageMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(SensorStorageMaintenance.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sensor-storage-maintenance");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${storage.maintenance.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.maintenance.interval-ms:60000}")
+    private long intervalMs;
+
+    @Value("${storage.retention.raw-days:14}")
+    private int rawRetentionDays;
+
+    @Value("${storage.retention.minute-days:90}")
+    private int minuteRetentionDays;
+
+    @Value("${storage.retention.hour-days:730}")
+    private int hourRetentionDays;
+
+    private volatile Map<String, Object> lastRun = Map.of();
+    private volatile long lastRunMillis;
+    private volatile String lastError;
+
+    public SensorStorageMaintenance(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Sensor storage maintenance is disabled");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Sensor storage maintenance every {} ms (retention: raw {}d, 1m {}d, 1h {}d)",
+                 intervalMs, rawRetentionDays, minuteRetentionDays, hourRetentionDays);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /** One maintenance pass; failures are logged and retried on the next run. */
+    public void runOnce() {
+        long start = System.currentTimeMillis();
+        try {
+            Map<String, Object> steps = new LinkedHashMap<>();
+            jdbcTemplate.query("SELECT step, affected FROM sensor_storage_maintenance(?, ?, ?)",
+                rs -> { steps.put(rs.getString("step"), rs.getInt("affected")); },
+                rawRetentionDays, minuteRetentionDays, hourRetentionDays);
+            steps.put("durationMs", System.currentTimeMillis() - start);
+            lastRun = Collections.unmodifiableMap(steps);
+            lastRunMillis = start;
+            lastError = null;
+            log.debug("Sensor storage maintenance: {}", steps);
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.warn("Sensor storage maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRun", lastRun);
+        stats.put("lastError", lastError);
+        return stats;
+    }
+}
@@ -0,0 +1,259 @@
+package com.titan.sensor.service;
+
+import org.eclipse.paho.client.mqttv3.*;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory warning/critical thresholds for anomaly analysis.
+ *
+ * Global defaults from {@code sensor_types} are layered under the
+ * equipment-specific rows of {@code sensor_thresholds} when the table is
+ * loaded, so a lookup is one map get and two array reads with no I/O. Values
+ * are primitive doubles; NaN means "no threshold".
+ *
+ * Writes go through {@link #publishChange()}: this instance reloads at once and
+ * the other instances reload when the change arrives on the MQTT control topic.
+ * A slow periodic reload covers changes missed while disconnected.
+ */
+@Component
+public class ThresholdTable implements MqttCallbackExtended {
+
+    private static final Logger log = LoggerFactory.getLogger(ThresholdTable.class);
+
+    // Used until the first successful load, and for types unknown to sensor_types
+    private static final Map<String, double[]> BUILT_IN_DEFAULTS = Map.of(
+        "vibration", new double[] { 3.5, 5.0 },
+        "temperature", new double[] { 70.0, 85.0 },
+        "spindle_speed", new double[] { 16000.0, 18000.0 },
+        "power_draw", new double[] { 65.0, 80.0 }
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "threshold-reload");
+        t.setDaemon(true);
+        return t;
+    });
+    private MqttClient mqttClient;
+
+    @Value("${mqtt.broker:tcp://localhost:1883}")
+    private String brokerUrl;
+
+    @Value("${mqtt.username:titan}")
+    private String username;
+
+    @Value("${mqtt.password:titan5.0}")
+    private String password;
+
+    @Value("${mqtt.enabled:true}")
+    private boolean mqttEnabled;
+
+    @Value("${thresholds.change-topic:titan/control/thresholds}")
+    private String changeTopic;
+
+    @Value("${thresholds.reload-interval-ms:300000}")
+    private long reloadIntervalMs;
+
+    private volatile Table table = Table.of(Map.of(), Map.of());
+
+    /**
+     * Thresholds by sensor type index: {@code [2 * i]} warning, {@code [2 * i + 1]} critical.
+     * {@code byEquipment} rows already include the global defaults.
+     */
+    private record Table(Map<String, Integer> sensorIndex, double[] global, Map<String, double[]> byEquipment) {
+
+        static Table of(Map<String, double[]> globalBySensor, Map<String, Map<String, double[]>> overrides) {
+            Map<String, Integer> index = new HashMap<>();
+            for (String sensorType : BUILT_IN_DEFAULTS.keySet()) {
+                index.putIfAbsent(sensorType, index.size());
+            }
+            for (String sensorType : globalBySensor.keySet()) {
+                index.putIfAbsent(sensorType, index.size());
+            }
+            overrides.values().forEach(bySensor -> bySensor.keySet().forEach(s -> index.putIfAbsent(s, index.size())));
+
+            double[] global = new double[index.size() * 2];
+            Arrays.fill(global, Double.NaN);
+            index.forEach((sensorType, i) -> {
+                double[] values = globalBySensor.getOrDefault(sensorType, BUILT_IN_DEFAULTS.get(sensorType));
+                if (values != null) {
+                    global[2 * i] = values[0];
+                    global[2 * i + 1] = values[1];
+                }
+            });
+
+            Map<String, double[]> byEquipment = new HashMap<>();
+            overrides.forEach((equipmentId, bySensor) -> {
+                double[] row = global.clone();
+                bySensor.forEach((sensorType, values) -> {
+                    int i = index.get(sensorType);
+                    row[2 * i] = values[0];
+                    row[2 * i + 1] = values[1];
+                });
+                byEquipment.put(equipmentId, row);
+            });
+            return new Table(index, global, byEquipment);
+        }
+
+        double get(String equipmentId, String sensorType, int offset) {
+            Integer i = sensorIndex.get(sensorType);
+            if (i == null) {
+                return Double.NaN;
+            }
+            return byEquipment.getOrDefault(equipmentId, global)[2 * i + offset];
+        }
+    }
+
+    public ThresholdTable(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        reload();
+        scheduler.scheduleWithFixedDelay(this::reload, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        if (!mqttEnabled) {
+            return;
+        }
+        try {
+            mqttClient = new MqttClient(brokerUrl, "sensor-thresholds-" + instanceId.substring(0, 8),
+                                        new MemoryPersistence());
+            mqttClient.setCallback(this);
+            MqttConnectOptions options = new MqttConnectOptions();
+            options.setUserName(username);
+            options.setPassword(password.toCharArray());
+            options.setCleanSession(true);
+            options.setAutomaticReconnect(true);
+            options.setConnectionTimeout(10);
+            mqttClient.connect(options);
+            mqttClient.subscribe(changeTopic, 1);
+            log.info("Threshold changes shared on MQTT topic {}", changeTopic);
+        } catch (MqttException e) {
+            log.warn("Threshold change channel unavailable ({}); relying on reload every {} ms",
+                     e.getMessage(), reloadIntervalMs);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+        if (mqttClient != null && mqttClient.isConnected()) {
+            try {
+                mqttClient.disconnect();
+                mqttClient.close();
+            } catch (MqttException e) {
+                log.warn("Error disconnecting threshold channel: {}", e.getMessage());
+            }
+        }
+    }
+
+    /** Warning threshold, or NaN if none. */
+    public double warning(String equipmentId, String sensorType) {
+        return table.get(equipmentId, sensorType, 0);
+    }
+
+    /** Critical threshold, or NaN if none. */
+    public double critical(String equipmentId, String sensorType) {
+        return table.get(equipmentId, sensorType, 1);
+    }
+
+    /** Reload from Greenplum; keeps the current table on failure. */
+    public void reload() {
+        try {
+            Map<String, double[]> global = new HashMap<>();
+            jdbcTemplate.query("SELECT sensor_type, warning_threshold, critical_threshold FROM sensor_types",
+                rs -> { global.put(rs.getString("sensor_type").toLowerCase(), readPair(rs)); });
+
+            Map<String, Map<String, double[]>> overrides = new HashMap<>();
+            jdbcTemplate.query("""
+                SELECT equipment_id, sensor_type, warning_threshold, critical_threshold
+                FROM sensor_thresholds
+                WHERE equipment_id IS NOT NULL
+                """, rs -> {
+                    overrides.computeIfAbsent(rs.getString("equipment_id"), k -> new HashMap<>())
+                             .put(rs.getString("sensor_type").toLowerCase(), readPair(rs));
+                });
+
+            table = Table.of(global, overrides);
+            log.debug("Thresholds loaded: {} sensor types, {} equipment with overrides",
+                      table.sensorIndex().size(), overrides.size());
+        } catch (Exception e) {
+            log.warn("Threshold reload failed, keeping current table: {}", e.getMessage());
+        }
+    }
+
+    /** Call after writing thresholds: reloads here and tells the other instances to reload. */
+    public void publishChange() {
+        reload();
+        if (mqttClient == null || !mqttClient.isConnected()) {
+            return;
+        }
+        try {
+            mqttClient.publish(changeTopic, instanceId.getBytes(StandardCharsets.UTF_8), 1, false);
+        } catch (MqttException e) {
+            log.warn("Could not publish threshold change: {}", e.getMessage());
+        }
+    }
+
+    private static double[] readPair(ResultSet rs) throws SQLException {
+        double warning = rs.getDouble("warning_threshold");
+        if (rs.wasNull()) {
+            warning = Double.NaN;
+        }
+        double critical = rs.getDouble("critical_threshold");
+        if (rs.wasNull()) {
+            critical = Double.NaN;
+        }
+        return new double[] { warning, critical };
+    }
+
+    @Override
+    public void messageArrived(String topic, MqttMessage message) {
+        if (instanceId.equals(new String(message.getPayload(), StandardCharsets.UTF_8))) {
+            return;  // Our own change; already reloaded
+        }
+        log.debug("Threshold change from another instance; reloading");
+        // Off the MQTT callback thread, which must not block on JDBC
+        scheduler.execute(this::reload);
+    }
+
+    @Override
+    public void connectComplete(boolean reconnect, String serverURI) {
+        if (!reconnect) {
+            return;
+        }
+        // Clean sessions drop subscriptions; changes made meanwhile were missed
+        try {
+            mqttClient.subscribe(changeTopic, 1);
+        } catch (MqttException e) {
+            log.warn("Could not resubscribe to {}: {}", changeTopic, e.getMessage());
+        }
+        scheduler.execute(this::reload);
+    }
+
+    @Override
+    public void connectionLost(Throwable cause) {
+        log.warn("Threshold change channel lost: {}", cause.getMessage());
+    }
+
+    @Override
+    public void deliveryComplete(IMqttDeliveryToken token) {
+        // Nothing to track
+    }
+}
@@ -0,0 +1,108 @@
+package com.titan.common.codec;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Compact binary wire format for sensor readings and frames, published by the
+ * generator instead of JSON on the topic prefixes listed in
+ * {@code generator.binary-topic-prefixes}.
+ *
+ * Every message starts with {@link #MAGIC}, a byte that cannot begin a JSON
+ * document, so consumers tell the formats apart from the first byte. Integers are
+ * big-endian; values are IEEE-754 doubles.
+ *
+ * <pre>
+ * reading (kind 1) / frame (kind 2)
+ *    0  u8   MAGIC
+ *    1  u8   VERSION &lt;&lt; 4 | kind
+ *    2  i32  dictionary id
+ *    6  u16  equipment code (index into the dictionary)
+ *    8  i64  timestamp, epoch millis
+ *   16  u8   reading count (1 for kind 1)
+ *   17  per reading, 11 bytes: u8 sensor type, u8 unit, u8 quality flag, f64 value
+ *
+ * dictionary (kind 3), retained on {dictionary-topic}/{dictionary id in hex}
+ *    0  u8   MAGIC
+ *    1  u8   VERSION &lt;&lt; 4 | kind
+ *    2  i32  dictionary id
+ *    6  u16  entry count
+ *    8  per entry: u8 length + ASCII equipment id, u8 length + ASCII facility id
+ * </pre>
+ *
+ * Equipment IDs and their facility are coded through the dictionary; sensor
+ * types, units and quality flags through the fixed tables below, where code 0
+ * means absent.
+ */
+public final class BinarySensorFormat {
+
+    public static final byte MAGIC = (byte) 0xB5;
+    public static final int VERSION = 1;
+
+    public static final int KIND_READING = 1;
+    public static final int KIND_FRAME = 2;
+    public static final int KIND_DICTIONARY = 3;
+
+    public static final int HEADER_BYTES = 17;
+    public static final int READING_BYTES = 11;
+    public static final int DICTIONARY_HEADER_BYTES = 8;
+
+    public static final String[] SENSOR_TYPES = {
+        null, "vibration", "temperature", "spindle_speed", "torque", "pressure", "power"
+    };
+    public static final String[] UNITS = { null, "mm/s", "celsius", "rpm", "Nm", "bar", "kW" };
+    public static final String[] QUALITY_FLAGS = { null, "GOOD", "WARNING", "CRITICAL", "BAD" };
+
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private BinarySensorFormat() {}
+
+    public static boolean isBinary(byte[] payload) {
+        return payload.length > 0 && payload[0] == MAGIC;
+    }
+
+    /** Second header byte for a message of {@code kind}. */
+    public static byte versionAndKind(int kind) {
+        return (byte) (VERSION << 4 | kind);
+    }
+
+    /** Code of {@code value} in {@code table}: 0 for null, -1 if the table doesn't have it. */
+    public static int codeOf(String[] table, String value) {
+        if (value == null) {
+            return 0;
+        }
+        for (int i = 1; i < table.length; i++) {
+            if (table[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static int readInt(byte[] b, int off) {
+        return (int) INT.get(b, off);
+    }
+
+    public static long readLong(byte[] b, int off) {
+        return (long) LONG.get(b, off);
+    }
+
+    public static int readUnsignedShort(byte[] b, int off) {
+        return (b[off] & 0xFF) << 8 | (b[off + 1] & 0xFF);
+    }
+
+    public static void writeInt(byte[] b, int off, int v) {
+        INT.set(b, off, v);
+    }
+
+    public static void writeLong(byte[] b, int off, long v) {
+        LONG.set(b, off, v);
+    }
+
+    public static void writeShort(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 8);
+        b[off + 1] = (byte) v;
+    }
+}
@@ -0,0 +1,115 @@
+package com.titan.common.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Maps UTF-8 byte ranges to canonical {@link String} instances without allocating
+ * on a hit.
+ *
+ * Used by {@link SensorPayloadDecoder} so that equipment IDs, sensor types, units
+ * and quality flags decoded from MQTT payloads resolve to the same shared strings
+ * instead of a fresh {@code String} per message. The table is pre-seeded from the
+ * known equipment dictionary; unknown values are added on first sight up to
+ * {@code maxEntries}, after which they are returned uninterned.
+ *
+ * Lookups are lock-free against an immutable open-addressing table; inserts copy
+ * the table under a lock and publish it through a volatile field.
+ */
+public final class ByteStringInterner {
+
+    private record Table(byte[][] keys, String[] values) {
+        Table(int length) {
+            this(new byte[length][], new String[length]);
+        }
+    }
+
+    private final int maxEntries;
+    private volatile Table table = new Table(64);
+    private int size;
+
+    public ByteStringInterner(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /** Pre-seed the dictionary with known values. */
+    public synchronized void addAll(Collection<String> values) {
+        for (String v : values) {
+            if (v != null) {
+                insert(v.getBytes(StandardCharsets.UTF_8), v);
+            }
+        }
+    }
+
+    /** Resolve {@code buf[off, off+len)} to a canonical string. */
+    public String intern(byte[] buf, int off, int len) {
+        Table t = table;
+        int mask = t.keys.length - 1;
+        int i = hash(buf, off, len) & mask;
+        byte[] key;
+        while ((key = t.keys[i]) != null) {
+            if (Arrays.equals(key, 0, key.length, buf, off, off + len)) {
+                return t.values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        String value = new String(buf, off, len, StandardCharsets.UTF_8);
+        synchronized (this) {
+            if (size < maxEntries) {
+                return insert(Arrays.copyOfRange(buf, off, off + len), value);
+            }
+        }
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private String insert(byte[] key, String value) {
+        Table old = table;
+        Table t = (size + 1) * 2 > old.keys.length
+            ? rehash(old, old.keys.length * 2)
+            : new Table(old.keys.clone(), old.values.clone());
+        int mask = t.keys.length - 1;
+        int i = hash(key, 0, key.length) & mask;
+        while (t.keys[i] != null) {
+            if (Arrays.equals(t.keys[i], key)) {
+                return t.values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        t.keys[i] = key;
+        t.values[i] = value;
+        size++;
+        table = t;
+        return value;
+    }
+
+    private static Table rehash(Table old, int newLength) {
+        Table t = new Table(newLength);
+        int mask = newLength - 1;
+        for (int k = 0; k < old.keys.length; k++) {
+            byte[] key = old.keys[k];
+            if (key != null) {
+                int i = hash(key, 0, key.length) & mask;
+                while (t.keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                t.keys[i] = key;
+                t.values[i] = old.values[k];
+            }
+        }
+        return t;
+    }
+
+    // FNV-1a over the raw bytes
+    private static int hash(byte[] buf, int off, int len) {
+        int h = 0x811C9DC5;
+        for (int k = off; k < off + len; k++) {
+            h = (h ^ (buf[k] & 0xFF)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,77 @@
+package com.titan.common.codec;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, mutable holder for one decoded multi-sensor frame: the equipment,
+ * facility and timestamp shared by every reading, plus the readings themselves
+ * in parallel arrays.
+ *
+ * Owned by the MQTT callback thread like {@link MutableSensorReading}; the
+ * arrays grow to the largest frame seen and are then reused.
+ */
+public final class MutableSensorFrame {
+
+    public String equipmentId;
+    public String facilityId;
+    /** Frame timestamp in epoch millis, or {@link Long#MIN_VALUE} if the payload had none. */
+    public long epochMillis;
+
+    private int size;
+    private String[] sensorTypes = new String[8];
+    private double[] values = new double[8];
+    private String[] units = new String[8];
+    private String[] qualityFlags = new String[8];
+
+    // Scratch space for the decoder
+    final MutableSensorReading header = new MutableSensorReading();
+    final MutableSensorReading element = new MutableSensorReading();
+
+    public void reset() {
+        equipmentId = null;
+        facilityId = null;
+        epochMillis = Long.MIN_VALUE;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Copy reading {@code i}, with the frame's equipment, facility and timestamp, into {@code out}. */
+    public void readingAt(int i, MutableSensorReading out) {
+        out.equipmentId = equipmentId;
+        out.facilityId = facilityId;
+        out.epochMillis = epochMillis;
+        out.sensorType = sensorTypes[i];
+        out.value = values[i];
+        out.unit = units[i];
+        out.qualityFlag = qualityFlags[i];
+    }
+
+    void setHeader(String equipmentId, String facilityId, long epochMillis) {
+        this.equipmentId = equipmentId;
+        this.facilityId = facilityId;
+        this.epochMillis = epochMillis;
+    }
+
+    void add(MutableSensorReading r) {
+        if (size == sensorTypes.length) {
+            int capacity = size * 2;
+            sensorTypes = Arrays.copyOf(sensorTypes, capacity);
+            values = Arrays.copyOf(values, capacity);
+            units = Arrays.copyOf(units, capacity);
+            qualityFlags = Arrays.copyOf(qualityFlags, capacity);
+        }
+        sensorTypes[size] = r.sensorType;
+        values[size] = r.value;
+        units[size] = r.unit;
+        qualityFlags[size] = r.qualityFlag;
+        size++;
+    }
+
+    @Override
+    public String toString() {
+        return equipmentId + " frame of " + size + " reading(s)";
+    }
+}
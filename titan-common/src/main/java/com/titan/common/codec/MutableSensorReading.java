@@ -0,0 +1,38 @@
+package com.titan.common.codec;
+
+/**
+ * Reusable, mutable holder for one decoded MQTT sensor reading.
+ *
+ * One instance is owned by the MQTT callback thread and overwritten for every
+ * message, so decoding a reading does not allocate a record or a JSON tree.
+ */
+public final class MutableSensorReading {
+
+    public String equipmentId;
+    public String facilityId;
+    public String sensorType;
+    public double value;
+    public String unit;
+    public String qualityFlag;
+    /** Reading timestamp in epoch millis, or {@link Long#MIN_VALUE} if the payload had none. */
+    public long epochMillis;
+
+    public void reset() {
+        equipmentId = null;
+        facilityId = null;
+        sensorType = null;
+        value = 0.0;
+        unit = null;
+        qualityFlag = null;
+        epochMillis = Long.MIN_VALUE;
+    }
+
+    public boolean hasTimestamp() {
+        return epochMillis != Long.MIN_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return equipmentId + "/" + sensorType + "=" + value + " " + unit + " (" + qualityFlag + ")";
+    }
+}
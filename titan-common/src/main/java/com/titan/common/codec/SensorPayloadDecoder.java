@@ -0,0 +1,576 @@
+package com.titan.common.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming decoder for the generator's flat JSON {@code SensorReading} payload
+ * and its multi-sensor {@code SensorFrame} payload.
+ *
+ * Scans the raw MQTT {@code byte[]} once and fills a caller-owned
+ * {@link MutableSensorReading}. No JSON tree, no payload {@code String} and no
+ * {@link Instant} are created: identifiers are resolved through a
+ * {@link ByteStringInterner}, numbers with up to 15 significant digits are parsed
+ * exactly in place, and ISO-8601 UTC timestamps are converted straight to epoch
+ * millis.
+ *
+ * Anything the fast scanner doesn't expect (escaped strings, exponents, nested
+ * values, timezone offsets) falls back to Jackson's streaming {@link JsonParser},
+ * so correctness never depends on the fast path.
+ *
+ * Payloads starting with {@link BinarySensorFormat#MAGIC} are decoded as the
+ * binary format instead, against the equipment dictionaries passed to
+ * {@link #loadDictionary}. Dictionaries are held per decoder, which like the
+ * reused reading objects belongs to one MQTT callback thread.
+ */
+public final class SensorPayloadDecoder {
+
+    private static final byte[] EQUIPMENT_ID = ascii("equipmentId");
+    private static final byte[] FACILITY_ID = ascii("facilityId");
+    private static final byte[] SENSOR_TYPE = ascii("sensorType");
+    private static final byte[] VALUE = ascii("value");
+    private static final byte[] UNIT = ascii("unit");
+    private static final byte[] QUALITY_FLAG = ascii("qualityFlag");
+    private static final byte[] TIMESTAMP = ascii("timestamp");
+    private static final byte[] READINGS = ascii("readings");
+
+    private static final int F_UNKNOWN = 0, F_EQUIPMENT_ID = 1, F_FACILITY_ID = 2, F_SENSOR_TYPE = 3,
+            F_VALUE = 4, F_UNIT = 5, F_QUALITY_FLAG = 6, F_TIMESTAMP = 7, F_READINGS = 8;
+
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteStringInterner interner;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    // Binary equipment dictionaries by id, plus the one used last
+    private final Map<Integer, Dictionary> dictionaries = new HashMap<>();
+    private Dictionary lastDictionary;
+
+    private record Dictionary(int id, String[] equipmentIds, String[] facilityIds) {}
+
+    public SensorPayloadDecoder(ByteStringInterner interner) {
+        this.interner = interner;
+    }
+
+    /**
+     * Decode {@code payload} into {@code out}.
+     *
+     * @return false if the payload is malformed or lacks equipmentId/sensorType
+     */
+    public boolean decode(byte[] payload, MutableSensorReading out) {
+        out.reset();
+        if (BinarySensorFormat.isBinary(payload)) {
+            return decodeBinary(payload, out);
+        }
+        boolean ok;
+        try {
+            ok = scan(payload, out);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            ok = false;
+        }
+        if (!ok) {
+            out.reset();
+            ok = decodeWithParser(payload, out);
+        }
+        return ok && out.equipmentId != null && out.sensorType != null;
+    }
+
+    /**
+     * Decode a frame payload ({@code equipmentId}, {@code facilityId},
+     * {@code timestamp} and a {@code readings} array of per-sensor objects) into {@code out}.
+     *
+     * @return false if the payload is malformed, lacks equipmentId, or has a reading without sensorType
+     */
+    public boolean decodeFrame(byte[] payload, MutableSensorFrame out) {
+        out.reset();
+        if (BinarySensorFormat.isBinary(payload)) {
+            return decodeBinaryFrame(payload, out);
+        }
+        boolean ok;
+        try {
+            ok = scanFrame(payload, out);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            ok = false;
+        }
+        if (!ok) {
+            out.reset();
+            ok = decodeFrameWithParser(payload, out);
+        }
+        if (!ok || out.equipmentId == null) {
+            out.reset();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Load a binary equipment dictionary, replacing any earlier one with the same id.
+     *
+     * @return the number of entries, or -1 if the payload is not a valid dictionary
+     */
+    public int loadDictionary(byte[] payload) {
+        try {
+            if (!BinarySensorFormat.isBinary(payload)
+                    || payload[1] != BinarySensorFormat.versionAndKind(BinarySensorFormat.KIND_DICTIONARY)) {
+                return -1;
+            }
+            int id = BinarySensorFormat.readInt(payload, 2);
+            int count = BinarySensorFormat.readUnsignedShort(payload, 6);
+            String[] equipmentIds = new String[count];
+            String[] facilityIds = new String[count];
+            int p = BinarySensorFormat.DICTIONARY_HEADER_BYTES;
+            for (int i = 0; i < count; i++) {
+                int len = payload[p++] & 0xFF;
+                equipmentIds[i] = interner.intern(payload, p, len);
+                p += len;
+                len = payload[p++] & 0xFF;
+                facilityIds[i] = len > 0 ? interner.intern(payload, p, len) : null;
+                p += len;
+            }
+            if (p != payload.length) {
+                return -1;
+            }
+            dictionaries.put(id, new Dictionary(id, equipmentIds, facilityIds));
+            lastDictionary = null;
+            return count;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    // ── Binary format ──────────────────────────────────────────────────────
+
+    private boolean decodeBinary(byte[] b, MutableSensorReading out) {
+        try {
+            Dictionary d = binaryHeader(b, BinarySensorFormat.KIND_READING);
+            if (d == null || b[16] != 1) {
+                return false;
+            }
+            int code = BinarySensorFormat.readUnsignedShort(b, 6);
+            out.equipmentId = d.equipmentIds[code];
+            out.facilityId = d.facilityIds[code];
+            out.epochMillis = BinarySensorFormat.readLong(b, 8);
+            if (readBinaryReading(b, BinarySensorFormat.HEADER_BYTES, out)) {
+                return true;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            // unknown table code
+        }
+        out.reset();
+        return false;
+    }
+
+    private boolean decodeBinaryFrame(byte[] b, MutableSensorFrame out) {
+        try {
+            Dictionary d = binaryHeader(b, BinarySensorFormat.KIND_FRAME);
+            if (d == null) {
+                return false;
+            }
+            int count = b[16] & 0xFF;
+            for (int i = 0; i < count; i++) {
+                MutableSensorReading element = out.element;
+                if (!readBinaryReading(b, BinarySensorFormat.HEADER_BYTES + i * BinarySensorFormat.READING_BYTES,
+                                       element)) {
+                    out.reset();
+                    return false;
+                }
+                out.add(element);
+            }
+            int code = BinarySensorFormat.readUnsignedShort(b, 6);
+            out.setHeader(d.equipmentIds[code], d.facilityIds[code], BinarySensorFormat.readLong(b, 8));
+            return true;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            out.reset();
+            return false;
+        }
+    }
+
+    /**
+     * Validate a reading or frame header: version and kind, length, known
+     * dictionary and equipment code. Returns the dictionary, or null.
+     */
+    private Dictionary binaryHeader(byte[] b, int kind) {
+        if (b.length < BinarySensorFormat.HEADER_BYTES || b[1] != BinarySensorFormat.versionAndKind(kind)
+                || b.length != BinarySensorFormat.HEADER_BYTES + (b[16] & 0xFF) * BinarySensorFormat.READING_BYTES) {
+            return null;
+        }
+        int id = BinarySensorFormat.readInt(b, 2);
+        Dictionary d = lastDictionary;
+        if (d == null || d.id() != id) {
+            d = dictionaries.get(id);
+            if (d == null) {
+                return null;
+            }
+            lastDictionary = d;
+        }
+        return BinarySensorFormat.readUnsignedShort(b, 6) < d.equipmentIds().length ? d : null;
+    }
+
+    /** One 11-byte reading; an unknown table code throws ArrayIndexOutOfBoundsException. */
+    private static boolean readBinaryReading(byte[] b, int off, MutableSensorReading out) {
+        out.sensorType = BinarySensorFormat.SENSOR_TYPES[b[off] & 0xFF];
+        out.unit = BinarySensorFormat.UNITS[b[off + 1] & 0xFF];
+        out.qualityFlag = BinarySensorFormat.QUALITY_FLAGS[b[off + 2] & 0xFF];
+        out.value = Double.longBitsToDouble(BinarySensorFormat.readLong(b, off + 3));
+        return out.sensorType != null;
+    }
+
+    // ── Fast path: single pass over the bytes ──────────────────────────────
+
+    private boolean scan(byte[] b, MutableSensorReading out) {
+        return scanObject(b, skipWhitespace(b, 0), out) >= 0;
+    }
+
+    private boolean scanFrame(byte[] b, MutableSensorFrame out) {
+        MutableSensorReading header = out.header;
+        header.reset();
+        int p = skipWhitespace(b, 0);
+        if (b[p] != '{') return false;
+        p++;
+
+        while (true) {
+            p = skipWhitespace(b, p);
+            if (b[p] == '}') break;
+            if (b[p] != '"') return false;
+
+            int keyStart = p + 1;
+            int keyEnd = endOfString(b, keyStart);
+            if (keyEnd < 0) return false;
+            int field = fieldOf(b, keyStart, keyEnd - keyStart);
+
+            p = skipWhitespace(b, keyEnd + 1);
+            if (b[p] != ':') return false;
+            p = skipWhitespace(b, p + 1);
+
+            byte c = b[p];
+            if (field == F_READINGS && c == '[') {
+                p = skipWhitespace(b, p + 1);
+                while (b[p] != ']') {
+                    MutableSensorReading element = out.element;
+                    element.reset();
+                    p = scanObject(b, p, element);
+                    if (p < 0 || element.sensorType == null) return false;
+                    out.add(element);
+                    p = skipWhitespace(b, p);
+                    if (b[p] == ',') {
+                        p = skipWhitespace(b, p + 1);
+                    } else if (b[p] != ']') {
+                        return false;
+                    }
+                }
+                p++;
+            } else if (c == '"') {
+                int start = p + 1;
+                int end = endOfString(b, start);
+                if (end < 0) return false;
+                if (!assignString(field, b, start, end - start, header)) return false;
+                p = end + 1;
+            } else if (c == '-' || (c >= '0' && c <= '9') || c == 'n' || c == 't' || c == 'f') {
+                while (p < b.length && (isNumberChar(b[p]) || (b[p] >= 'a' && b[p] <= 'z'))) p++;
+            } else {
+                return false;
+            }
+
+            p = skipWhitespace(b, p);
+            if (b[p] == ',') {
+                p++;
+            } else if (b[p] != '}') {
+                return false;
+            }
+        }
+        out.setHeader(header.equipmentId, header.facilityId, header.epochMillis);
+        return true;
+    }
+
+    /** Scan one flat object starting at {@code p}; returns the index after its '}', or -1. */
+    private int scanObject(byte[] b, int p, MutableSensorReading out) {
+        if (b[p] != '{') return -1;
+        p++;
+
+        while (true) {
+            p = skipWhitespace(b, p);
+            if (b[p] == '}') return p + 1;
+            if (b[p] != '"') return -1;
+
+            int keyStart = p + 1;
+            int keyEnd = endOfString(b, keyStart);
+            if (keyEnd < 0) return -1;
+            int field = fieldOf(b, keyStart, keyEnd - keyStart);
+
+            p = skipWhitespace(b, keyEnd + 1);
+            if (b[p] != ':') return -1;
+            p = skipWhitespace(b, p + 1);
+
+            byte c = b[p];
+            if (c == '"') {
+                int start = p + 1;
+                int end = endOfString(b, start);
+                if (end < 0) return -1;
+                if (!assignString(field, b, start, end - start, out)) return -1;
+                p = end + 1;
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                int start = p;
+                while (p < b.length && isNumberChar(b[p])) p++;
+                if (field == F_VALUE) {
+                    double v = parseSimpleDouble(b, start, p - start);
+                    if (Double.isNaN(v)) return -1;
+                    out.value = v;
+                }
+            } else if (c == 'n' || c == 't' || c == 'f') {
+                // null / true / false — none of our fields use them meaningfully
+                while (p < b.length && b[p] >= 'a' && b[p] <= 'z') p++;
+            } else {
+                return -1;
+            }
+
+            p = skipWhitespace(b, p);
+            if (b[p] == ',') {
+                p++;
+            } else if (b[p] == '}') {
+                return p + 1;
+            } else {
+                return -1;
+            }
+        }
+    }
+
+    private boolean assignString(int field, byte[] b, int off, int len, MutableSensorReading out) {
+        switch (field) {
+            case F_EQUIPMENT_ID -> out.equipmentId = interner.intern(b, off, len);
+            case F_FACILITY_ID -> out.facilityId = interner.intern(b, off, len);
+            case F_SENSOR_TYPE -> out.sensorType = interner.intern(b, off, len);
+            case F_UNIT -> out.unit = interner.intern(b, off, len);
+            case F_QUALITY_FLAG -> out.qualityFlag = interner.intern(b, off, len);
+            case F_TIMESTAMP -> {
+                long millis = parseIsoInstantMillis(b, off, len);
+                if (millis == Long.MIN_VALUE) return false;
+                out.epochMillis = millis;
+            }
+            default -> { }
+        }
+        return true;
+    }
+
+    private static int fieldOf(byte[] b, int off, int len) {
+        if (equalsAscii(EQUIPMENT_ID, b, off, len)) return F_EQUIPMENT_ID;
+        if (equalsAscii(SENSOR_TYPE, b, off, len)) return F_SENSOR_TYPE;
+        if (equalsAscii(VALUE, b, off, len)) return F_VALUE;
+        if (equalsAscii(UNIT, b, off, len)) return F_UNIT;
+        if (equalsAscii(QUALITY_FLAG, b, off, len)) return F_QUALITY_FLAG;
+        if (equalsAscii(TIMESTAMP, b, off, len)) return F_TIMESTAMP;
+        if (equalsAscii(FACILITY_ID, b, off, len)) return F_FACILITY_ID;
+        if (equalsAscii(READINGS, b, off, len)) return F_READINGS;
+        return F_UNKNOWN;
+    }
+
+    /** Index of the closing quote, or -1 if the string contains an escape. */
+    private static int endOfString(byte[] b, int p) {
+        while (b[p] != '"') {
+            if (b[p] == '\\') return -1;
+            p++;
+        }
+        return p;
+    }
+
+    private static int skipWhitespace(byte[] b, int p) {
+        while (b[p] == ' ' || b[p] == '\n' || b[p] == '\r' || b[p] == '\t') p++;
+        return p;
+    }
+
+    private static boolean isNumberChar(byte c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    /**
+     * Parse a plain decimal ({@code -?digits[.digits]}) with at most 15 significant
+     * digits. Both the mantissa and the power of ten are exact doubles, so the single
+     * division is correctly rounded and matches {@link Double#parseDouble}. Other
+     * forms are delegated to {@link Double#parseDouble}.
+     */
+    static double parseSimpleDouble(byte[] b, int off, int len) {
+        int i = off;
+        int end = off + len;
+        boolean negative = false;
+        if (i < end && b[i] == '-') {
+            negative = true;
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            byte c = b[i];
+            if (c >= '0' && c <= '9') {
+                if (++digits > 15) return slowParseDouble(b, off, len);
+                mantissa = mantissa * 10 + (c - '0');
+                if (seenDot) fractionDigits++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                return slowParseDouble(b, off, len);
+            }
+        }
+        if (digits == 0) return Double.NaN;
+        double v = fractionDigits == 0 ? (double) mantissa : mantissa / POW10[fractionDigits];
+        return negative ? -v : v;
+    }
+
+    private static double slowParseDouble(byte[] b, int off, int len) {
+        try {
+            return Double.parseDouble(new String(b, off, len, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Parse {@code yyyy-MM-ddTHH:mm:ss[.fraction]Z} (the form {@link Instant#toString()}
+     * produces) into epoch millis. Returns {@link Long#MIN_VALUE} for anything else.
+     */
+    static long parseIsoInstantMillis(byte[] b, int off, int len) {
+        if (len < 20 || b[off + 4] != '-' || b[off + 7] != '-' || b[off + 10] != 'T'
+                || b[off + 13] != ':' || b[off + 16] != ':' || b[off + len - 1] != 'Z') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(b, off, 4);
+        int month = digits(b, off + 5, 2);
+        int day = digits(b, off + 8, 2);
+        int hour = digits(b, off + 11, 2);
+        int minute = digits(b, off + 14, 2);
+        int second = digits(b, off + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+
+        int millis = 0;
+        int p = off + 19;
+        int zone = off + len - 1;
+        if (p < zone) {
+            if (b[p] != '.') return Long.MIN_VALUE;
+            p++;
+            int n = 0;
+            for (; p < zone; p++, n++) {
+                int d = b[p] - '0';
+                if (d < 0 || d > 9) return Long.MIN_VALUE;
+                if (n < 3) millis = millis * 10 + d;
+            }
+            if (n == 0) return Long.MIN_VALUE;
+            for (; n < 3; n++) millis *= 10;
+        }
+
+        long days = daysFromCivil(year, month, day);
+        return (((days * 24 + hour) * 60 + minute) * 60 + second) * 1000 + millis;
+    }
+
+    private static int digits(byte[] b, int off, int count) {
+        int v = 0;
+        for (int i = off; i < off + count; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return -1;
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (H. Hinnant's algorithm)
+    private static long daysFromCivil(int y, int m, int d) {
+        y -= m <= 2 ? 1 : 0;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153L * (m + (m > 2 ? -3 : 9)) + 2) / 5 + d - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static boolean equalsAscii(byte[] expected, byte[] b, int off, int len) {
+        if (expected.length != len) return false;
+        for (int i = 0; i < len; i++) {
+            if (expected[i] != b[off + i]) return false;
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // ── Slow path: Jackson streaming parser ────────────────────────────────
+
+    private boolean decodeWithParser(byte[] payload, MutableSensorReading out) {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return false;
+            readObject(parser, out);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private boolean decodeFrameWithParser(byte[] payload, MutableSensorFrame out) {
+        MutableSensorReading header = out.header;
+        header.reset();
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_ARRAY && "readings".equals(name)) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        MutableSensorReading element = out.element;
+                        element.reset();
+                        readObject(parser, element);
+                        if (element.sensorType == null) return false;
+                        out.add(element);
+                    }
+                } else if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                } else if (token != JsonToken.VALUE_NULL) {
+                    assignField(name, parser, header);
+                }
+            }
+            out.setHeader(header.equipmentId, header.facilityId, header.epochMillis);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /** Read the fields of the object whose START_OBJECT was just consumed. */
+    private static void readObject(JsonParser parser, MutableSensorReading out) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            if (token == JsonToken.VALUE_NULL) continue;
+            assignField(name, parser, out);
+        }
+    }
+
+    private static void assignField(String name, JsonParser parser, MutableSensorReading out) throws IOException {
+        switch (name) {
+            case "equipmentId" -> out.equipmentId = parser.getText();
+            case "facilityId" -> out.facilityId = parser.getText();
+            case "sensorType" -> out.sensorType = parser.getText();
+            case "value" -> out.value = parser.getValueAsDouble();
+            case "unit" -> out.unit = parser.getText();
+            case "qualityFlag" -> out.qualityFlag = parser.getText();
+            case "timestamp" -> out.epochMillis = Instant.parse(parser.getText()).toEpochMilli();
+            default -> { }
+        }
+    }
+}
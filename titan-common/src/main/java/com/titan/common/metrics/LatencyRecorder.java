@@ -0,0 +1,59 @@
+package com.titan.common.metrics;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the most recent latency samples (in millis) in a fixed ring and reports
+ * percentiles over them. Recording is a synchronized array store; percentiles
+ * sort a copy, which is fine for a status endpoint.
+ */
+public final class LatencyRecorder {
+
+    private final long[] samples;
+    private long recorded;
+    private long max;
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long millis) {
+        samples[(int) (recorded % samples.length)] = millis;
+        recorded++;
+        max = Math.max(max, millis);
+    }
+
+    public synchronized void reset() {
+        recorded = 0;
+        max = 0;
+    }
+
+    /** count, p50, p90, p99 (over retained samples) and all-time max. */
+    public Map<String, Object> summary() {
+        long[] copy;
+        long count;
+        long allTimeMax;
+        synchronized (this) {
+            count = recorded;
+            allTimeMax = max;
+            copy = Arrays.copyOf(samples, (int) Math.min(recorded, samples.length));
+        }
+        Arrays.sort(copy);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("p50", percentile(copy, 0.50));
+        summary.put("p90", percentile(copy, 0.90));
+        summary.put("p99", percentile(copy, 0.99));
+        summary.put("max", allTimeMax);
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,187 @@
+package com.titan.common.scoring;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A logistic-regression PMML model compiled down to a coefficient vector.
+ *
+ * Handles exactly what ModelExportService generates: one {@code RegressionModel}
+ * with {@code functionName="regression"}, {@code normalizationMethod="logit"}
+ * (or "none") and a single {@code RegressionTable} of linear
+ * {@code NumericPredictor}s. Anything else is rejected by {@link #compile} and
+ * the model has to be scored by JPMML.
+ *
+ * Scoring is a dot product plus sigmoid. Terms are summed in PMML order with the
+ * intercept added last, the same order JPMML evaluates the table, so results
+ * agree with JPMML to the last bit or within an ulp or two.
+ *
+ * Immutable and thread-safe.
+ */
+public final class LogisticRegressionScorer {
+
+    private final String[] fieldNames;
+    private final double[] coefficients;
+    private final double intercept;
+    private final boolean logit;
+    // Column in the caller's rows for each model field
+    private final int[] columns;
+    private final int width;
+
+    private LogisticRegressionScorer(String[] fieldNames, double[] coefficients, double intercept,
+                                     boolean logit, int[] columns, int width) {
+        this.fieldNames = fieldNames;
+        this.coefficients = coefficients;
+        this.intercept = intercept;
+        this.logit = logit;
+        this.columns = columns;
+        this.width = width;
+    }
+
+    /**
+     * Compile a PMML document.
+     *
+     * @throws IllegalArgumentException if the document isn't a plain linear/logistic regression
+     */
+    public static LogisticRegressionScorer compile(String pmmlXml) {
+        Document doc;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            doc = factory.newDocumentBuilder().parse(new InputSource(new StringReader(pmmlXml)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unparseable PMML: " + e.getMessage(), e);
+        }
+
+        Element root = doc.getDocumentElement();
+        List<Element> models = new ArrayList<>();
+        for (Node n = root.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n instanceof Element e && !"Header".equals(e.getLocalName())
+                    && !"DataDictionary".equals(e.getLocalName())
+                    && !"TransformationDictionary".equals(e.getLocalName())) {
+                models.add(e);
+            }
+        }
+        if (models.size() != 1 || !"RegressionModel".equals(models.get(0).getLocalName())) {
+            throw new IllegalArgumentException("Expected a single RegressionModel");
+        }
+        Element model = models.get(0);
+        if (!"regression".equals(model.getAttribute("functionName"))) {
+            throw new IllegalArgumentException("Unsupported functionName: " + model.getAttribute("functionName"));
+        }
+        String normalization = model.getAttribute("normalizationMethod");
+        boolean logit = "logit".equals(normalization);
+        if (!logit && !normalization.isEmpty() && !"none".equals(normalization)) {
+            throw new IllegalArgumentException("Unsupported normalizationMethod: " + normalization);
+        }
+        if (children(model, "LocalTransformations").size() > 0 || children(model, "Targets").size() > 0) {
+            throw new IllegalArgumentException("Transformations and targets are not supported");
+        }
+
+        List<Element> tables = children(model, "RegressionTable");
+        if (tables.size() != 1) {
+            throw new IllegalArgumentException("Expected one RegressionTable, found " + tables.size());
+        }
+        Element table = tables.get(0);
+        for (Node n = table.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n instanceof Element e && !"NumericPredictor".equals(e.getLocalName())) {
+                throw new IllegalArgumentException("Unsupported predictor: " + e.getLocalName());
+            }
+        }
+
+        List<Element> predictors = children(table, "NumericPredictor");
+        String[] names = new String[predictors.size()];
+        double[] coefficients = new double[predictors.size()];
+        for (int i = 0; i < predictors.size(); i++) {
+            Element p = predictors.get(i);
+            String exponent = p.getAttribute("exponent");
+            if (!exponent.isEmpty() && Integer.parseInt(exponent) != 1) {
+                throw new IllegalArgumentException("Unsupported exponent " + exponent + " on " + p.getAttribute("name"));
+            }
+            names[i] = p.getAttribute("name");
+            coefficients[i] = Double.parseDouble(p.getAttribute("coefficient"));
+        }
+        String interceptAttr = table.getAttribute("intercept");
+        double intercept = interceptAttr.isEmpty() ? 0.0 : Double.parseDouble(interceptAttr);
+
+        int[] identity = new int[names.length];
+        for (int i = 0; i < identity.length; i++) {
+            identity[i] = i;
+        }
+        return new LogisticRegressionScorer(names, coefficients, intercept, logit, identity, names.length);
+    }
+
+    /**
+     * A scorer reading rows laid out as {@code columnNames}. Extra columns are
+     * ignored.
+     *
+     * @throws IllegalArgumentException if a model field has no column
+     */
+    public LogisticRegressionScorer bind(String[] columnNames) {
+        int[] bound = new int[fieldNames.length];
+        for (int f = 0; f < fieldNames.length; f++) {
+            bound[f] = -1;
+            for (int c = 0; c < columnNames.length; c++) {
+                if (fieldNames[f].equals(columnNames[c])) {
+                    bound[f] = c;
+                    break;
+                }
+            }
+            if (bound[f] < 0) {
+                throw new IllegalArgumentException("No column for model field " + fieldNames[f]);
+            }
+        }
+        return new LogisticRegressionScorer(fieldNames, coefficients, intercept, logit, bound, columnNames.length);
+    }
+
+    /** Model input fields, in PMML order. */
+    public String[] fieldNames() {
+        return fieldNames.clone();
+    }
+
+    /** Values per row this scorer reads. */
+    public int width() {
+        return width;
+    }
+
+    /** Score the row starting at {@code offset}. */
+    public double score(double[] features, int offset) {
+        double[] coef = coefficients;
+        int[] cols = columns;
+        double sum = 0.0;
+        for (int f = 0; f < coef.length; f++) {
+            sum += coef[f] * features[offset + cols[f]];
+        }
+        sum += intercept;
+        return logit ? 1.0 / (1.0 + Math.exp(-sum)) : sum;
+    }
+
+    /** Score every row of a row-major array into {@code out}. */
+    public void scoreAll(double[] features, double[] out) {
+        for (int r = 0, offset = 0; r < out.length; r++, offset += width) {
+            out[r] = score(features, offset);
+        }
+    }
+
+    private static List<Element> children(Element parent, String localName) {
+        List<Element> found = new ArrayList<>();
+        NodeList nodes = parent.getChildNodes();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            if (nodes.item(i) instanceof Element e && localName.equals(e.getLocalName())) {
+                found.add(e);
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,217 @@
+package com.titan.common.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming {@link SensorPayloadDecoder} with the previous
+ * {@code ObjectMapper.readTree} path on generator-shaped payloads, and JSON
+ * with {@link BinarySensorFormat} for single readings and six-sensor frames.
+ * Bytes per reading for each format are printed at setup.
+ *
+ * Run with allocation profiling, e.g.:
+ * <pre>
+ * mvn -pl titan-common test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp "titan-common/target/test-classes:titan-common/target/classes:$(cat titan-common/cp.txt)" \
+ *     org.openjdk.jmh.Main SensorPayloadDecoderBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SensorPayloadDecoderBenchmark {
+
+    private static final String[] SENSORS = {"vibration", "temperature", "spindle_speed", "torque", "pressure", "power"};
+    private static final String[] UNITS = {"mm/s", "celsius", "rpm", "Nm", "bar", "kW"};
+
+    private byte[][] payloads;
+    private byte[][] binaryPayloads;
+    private byte[][] framePayloads;
+    private byte[][] binaryFramePayloads;
+    private int next;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SensorPayloadDecoder decoder;
+    private final MutableSensorReading reading = new MutableSensorReading();
+    private final MutableSensorFrame frame = new MutableSensorFrame();
+
+    @Setup
+    public void setup() {
+        ByteStringInterner interner = new ByteStringInterner(4096);
+        interner.addAll(List.of(SENSORS));
+        payloads = new byte[600][];
+        for (int i = 0; i < payloads.length; i++) {
+            String equipmentId = "PHX-CNC-" + String.format("%03d", i % 100 + 1);
+            interner.addAll(List.of(equipmentId));
+            int s = i % SENSORS.length;
+            String json = "{\"equipmentId\":\"" + equipmentId + "\",\"facilityId\":\"PHX\","
+                + "\"sensorType\":\"" + SENSORS[s] + "\",\"value\":" + (2.0 + i * 0.731) + ","
+                + "\"unit\":\"" + UNITS[s] + "\",\"qualityFlag\":\"GOOD\","
+                + "\"timestamp\":\"" + Instant.ofEpochMilli(1_760_000_000_000L + i * 5_000L) + "\"}";
+            payloads[i] = json.getBytes(StandardCharsets.UTF_8);
+        }
+        decoder = new SensorPayloadDecoder(interner);
+
+        // Same readings as binary messages and as frames of six, against a 100-entry dictionary
+        int dictionaryId = 0x7E57;
+        binaryPayloads = new byte[payloads.length][];
+        framePayloads = new byte[payloads.length / SENSORS.length][];
+        binaryFramePayloads = new byte[framePayloads.length][];
+        StringBuilder frameJson = new StringBuilder();
+        for (int i = 0; i < payloads.length; i++) {
+            int s = i % SENSORS.length;
+            long millis = 1_760_000_000_000L + i * 5_000L;
+            byte[] b = binaryHeader(BinarySensorFormat.KIND_READING, dictionaryId, i % 100, millis, 1);
+            writeBinaryReading(b, BinarySensorFormat.HEADER_BYTES, s, 2.0 + i * 0.731);
+            binaryPayloads[i] = b;
+
+            int f = i / SENSORS.length;
+            if (s == 0) {
+                binaryFramePayloads[f] = binaryHeader(BinarySensorFormat.KIND_FRAME, dictionaryId, f % 100, millis,
+                                                      SENSORS.length);
+                frameJson.setLength(0);
+                frameJson.append("{\"equipmentId\":\"PHX-CNC-").append(String.format("%03d", f % 100 + 1))
+                         .append("\",\"facilityId\":\"PHX\",\"timestamp\":\"").append(Instant.ofEpochMilli(millis))
+                         .append("\",\"readings\":[");
+            } else {
+                frameJson.append(',');
+            }
+            writeBinaryReading(binaryFramePayloads[f],
+                               BinarySensorFormat.HEADER_BYTES + s * BinarySensorFormat.READING_BYTES, s, 2.0 + i * 0.731);
+            frameJson.append("{\"sensorType\":\"").append(SENSORS[s]).append("\",\"value\":").append(2.0 + i * 0.731)
+                     .append(",\"unit\":\"").append(UNITS[s]).append("\",\"qualityFlag\":\"GOOD\"}");
+            if (s == SENSORS.length - 1) {
+                framePayloads[f] = frameJson.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        decoder.loadDictionary(binaryDictionary(dictionaryId, 100));
+
+        System.out.printf("%nBytes per reading: JSON %.1f, binary %.1f | in frames: JSON %.1f, binary %.1f%n",
+                          averageLength(payloads, 1), averageLength(binaryPayloads, 1),
+                          averageLength(framePayloads, SENSORS.length),
+                          averageLength(binaryFramePayloads, SENSORS.length));
+    }
+
+    private static byte[] binaryHeader(int kind, int dictionaryId, int equipmentCode, long millis, int readings) {
+        byte[] b = new byte[BinarySensorFormat.HEADER_BYTES + readings * BinarySensorFormat.READING_BYTES];
+        b[0] = BinarySensorFormat.MAGIC;
+        b[1] = BinarySensorFormat.versionAndKind(kind);
+        BinarySensorFormat.writeInt(b, 2, dictionaryId);
+        BinarySensorFormat.writeShort(b, 6, equipmentCode);
+        BinarySensorFormat.writeLong(b, 8, millis);
+        b[16] = (byte) readings;
+        return b;
+    }
+
+    private static void writeBinaryReading(byte[] b, int off, int sensor, double value) {
+        b[off] = (byte) BinarySensorFormat.codeOf(BinarySensorFormat.SENSOR_TYPES, SENSORS[sensor]);
+        b[off + 1] = (byte) BinarySensorFormat.codeOf(BinarySensorFormat.UNITS, UNITS[sensor]);
+        b[off + 2] = (byte) BinarySensorFormat.codeOf(BinarySensorFormat.QUALITY_FLAGS, "GOOD");
+        BinarySensorFormat.writeLong(b, off + 3, Double.doubleToRawLongBits(value));
+    }
+
+    private static byte[] binaryDictionary(int dictionaryId, int entries) {
+        byte[] b = new byte[BinarySensorFormat.DICTIONARY_HEADER_BYTES + entries * (2 + 11 + 3)];
+        b[0] = BinarySensorFormat.MAGIC;
+        b[1] = BinarySensorFormat.versionAndKind(BinarySensorFormat.KIND_DICTIONARY);
+        BinarySensorFormat.writeInt(b, 2, dictionaryId);
+        BinarySensorFormat.writeShort(b, 6, entries);
+        int p = BinarySensorFormat.DICTIONARY_HEADER_BYTES;
+        for (int i = 0; i < entries; i++) {
+            for (String s : new String[] { "PHX-CNC-" + String.format("%03d", i + 1), "PHX" }) {
+                byte[] ascii = s.getBytes(StandardCharsets.US_ASCII);
+                b[p++] = (byte) ascii.length;
+                System.arraycopy(ascii, 0, b, p, ascii.length);
+                p += ascii.length;
+            }
+        }
+        return b;
+    }
+
+    private static double averageLength(byte[][] messages, int readingsPerMessage) {
+        long total = 0;
+        for (byte[] m : messages) {
+            total += m.length;
+        }
+        return (double) total / (messages.length * readingsPerMessage);
+    }
+
+    private byte[] nextPayload() {
+        return next(payloads);
+    }
+
+    private byte[] next(byte[][] messages) {
+        byte[] p = messages[next % messages.length];
+        next = (next + 1) % payloads.length;
+        return p;
+    }
+
+    /** Previous path: String copy, JSON tree, Instant.parse. */
+    @Benchmark
+    public void treeModel(Blackhole bh) throws Exception {
+        String payload = new String(nextPayload());
+        JsonNode json = objectMapper.readTree(payload);
+        bh.consume(json.path("equipmentId").asText());
+        bh.consume(json.path("sensorType").asText());
+        bh.consume(json.path("value").asDouble());
+        bh.consume(json.path("unit").asText());
+        bh.consume(json.path("qualityFlag").asText("GOOD"));
+        bh.consume(Instant.parse(json.path("timestamp").asText()).toEpochMilli());
+    }
+
+    @Benchmark
+    public void streamingDecoder(Blackhole bh) {
+        decoder.decode(nextPayload(), reading);
+        bh.consume(reading.equipmentId);
+        bh.consume(reading.sensorType);
+        bh.consume(reading.value);
+        bh.consume(reading.unit);
+        bh.consume(reading.qualityFlag);
+        bh.consume(reading.epochMillis);
+    }
+
+    @Benchmark
+    public void binaryDecoder(Blackhole bh) {
+        decoder.decode(next(binaryPayloads), reading);
+        bh.consume(reading.equipmentId);
+        bh.consume(reading.sensorType);
+        bh.consume(reading.value);
+        bh.consume(reading.unit);
+        bh.consume(reading.qualityFlag);
+        bh.consume(reading.epochMillis);
+    }
+
+    /** One six-sensor frame per invocation. */
+    @Benchmark
+    public void streamingFrameDecoder(Blackhole bh) {
+        decoder.decodeFrame(next(framePayloads), frame);
+        consumeFrame(bh);
+    }
+
+    /** One six-sensor frame per invocation. */
+    @Benchmark
+    public void binaryFrameDecoder(Blackhole bh) {
+        decoder.decodeFrame(next(binaryFramePayloads), frame);
+        consumeFrame(bh);
+    }
+
+    private void consumeFrame(Blackhole bh) {
+        for (int i = 0; i < frame.size(); i++) {
+            frame.readingAt(i, reading);
+            bh.consume(reading.sensorType);
+            bh.consume(reading.value);
+        }
+        bh.consume(frame.equipmentId);
+        bh.consume(frame.epochMillis);
+    }
+}
@@ -0,0 +1,215 @@
+package com.titan.common.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link SensorPayloadDecoder} against {@link ObjectMapper} on JSON
+ * readings and frames, both through the single-pass scanner and through the
+ * Jackson fallback it drops to on anything unexpected, and the in-place number
+ * and timestamp parsers against {@link Double#parseDouble} and {@link Instant#parse}.
+ */
+class SensorPayloadDecoderTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Generator-shaped readings, plus whitespace, number and field-order variants the scanner handles. */
+    private static final String[] READINGS = {
+        "{\"equipmentId\":\"PHX-CNC-007\",\"facilityId\":\"PHX\",\"sensorType\":\"vibration\",\"value\":2.731,"
+            + "\"unit\":\"mm/s\",\"qualityFlag\":\"GOOD\",\"timestamp\":\"2026-01-15T10:30:00.123Z\"}",
+        "{ \"equipmentId\" : \"ATL-CNC-012\",\n  \"sensorType\" : \"temperature\",\n  \"value\" : -17.25,\n"
+            + "  \"unit\" : \"celsius\",\n  \"timestamp\" : \"2026-01-15T10:30:00Z\"\n}",
+        "{\"timestamp\":\"2024-02-29T23:59:59.999999999Z\",\"value\":12000,\"sensorType\":\"spindle_speed\","
+            + "\"equipmentId\":\"DAL-CNC-001\",\"qualityFlag\":\"WARNING\"}",
+        "{\"equipmentId\":\"SEA-CNC-044\",\"sensorType\":\"torque\",\"value\":1.5e2,\"unit\":\"Nm\",\"extra\":true}",
+        "{\"equipmentId\":\"SEA-CNC-045\",\"sensorType\":\"pressure\",\"value\":0.12345678901234567,\"unit\":null}",
+        "{\"equipmentId\":\"MUC-CNC-003\",\"sensorType\":\"power\",\"value\":0,\"timestamp\":\"1969-12-31T23:59:59.5Z\"}"
+    };
+
+    private static final String FRAME =
+        "{\"equipmentId\":\"PHX-CNC-007\",\"facilityId\":\"PHX\",\"timestamp\":\"2026-01-15T10:30:00.250Z\","
+            + "\"readings\":[{\"sensorType\":\"vibration\",\"value\":2.731,\"unit\":\"mm/s\",\"qualityFlag\":\"GOOD\"},"
+            + " {\"sensorType\":\"temperature\",\"value\":71.4,\"unit\":\"celsius\",\"qualityFlag\":\"WARNING\"},"
+            + " {\"sensorType\":\"spindle_speed\",\"value\":11850,\"unit\":\"rpm\"}]}";
+
+    private final SensorPayloadDecoder decoder = new SensorPayloadDecoder(new ByteStringInterner(4096));
+
+    @Test
+    void scannerAndParserFallbackDecodeReadingsAlike() throws Exception {
+        MutableSensorReading scanned = new MutableSensorReading();
+        MutableSensorReading parsed = new MutableSensorReading();
+        for (String json : READINGS) {
+            assertTrue(decoder.decode(bytes(json), scanned), json);
+            assertTrue(decoder.decode(bytes(forceFallback(json)), parsed), json);
+            assertReading(MAPPER.readTree(json), null, scanned, json + " (scanner)");
+            assertReading(MAPPER.readTree(json), null, parsed, json + " (fallback)");
+        }
+    }
+
+    @Test
+    void parserFallbackHandlesWhatTheScannerRejects() throws Exception {
+        String[] payloads = {
+            "{\"equipmentId\":\"PHX-CNC-007\",\"sensorType\":\"vibration\",\"value\":2.5,"
+                + "\"meta\":{\"firmware\":[1,2]},\"timestamp\":\"2026-01-15T10:30:00Z\"}",
+            "{\"equipmentId\":\"PHX-CNC-\\u0030\\u00307\",\"sensorType\":\"vibration\",\"value\":2.5}",
+            "{\"equipmentId\":\"PHX-CNC-007\",\"sensorType\":\"vibration\",\"value\":2.5,"
+                + "\"timestamp\":\"2026-01-15T12:30:00+02:00\"}"
+        };
+        MutableSensorReading out = new MutableSensorReading();
+        for (String json : payloads) {
+            assertTrue(decoder.decode(bytes(json), out), json);
+            assertReading(MAPPER.readTree(json), null, out, json);
+        }
+        assertEquals("PHX-CNC-007", out.equipmentId);
+        assertEquals(Instant.parse("2026-01-15T10:30:00Z").toEpochMilli(), out.epochMillis);
+    }
+
+    @Test
+    void scannerAndParserFallbackDecodeFramesAlike() throws Exception {
+        MutableSensorFrame scanned = new MutableSensorFrame();
+        MutableSensorFrame parsed = new MutableSensorFrame();
+        assertTrue(decoder.decodeFrame(bytes(FRAME), scanned));
+        assertTrue(decoder.decodeFrame(bytes(forceFallback(FRAME)), parsed));
+
+        JsonNode expected = MAPPER.readTree(FRAME);
+        JsonNode readings = expected.get("readings");
+        for (MutableSensorFrame frame : new MutableSensorFrame[] { scanned, parsed }) {
+            assertEquals(readings.size(), frame.size());
+            MutableSensorReading reading = new MutableSensorReading();
+            for (int i = 0; i < frame.size(); i++) {
+                frame.readingAt(i, reading);
+                assertReading(readings.get(i), expected, reading, "frame reading " + i);
+            }
+        }
+    }
+
+    @Test
+    void parsesIsoInstantsLikeInstantParse() {
+        String[] instants = {
+            "2026-01-15T10:30:00Z", "2026-01-15T10:30:00.1Z", "2026-01-15T10:30:00.12Z",
+            "2026-01-15T10:30:00.123Z", "2026-01-15T10:30:00.123456789Z", "1970-01-01T00:00:00Z",
+            "1969-12-31T23:59:59.999Z", "2000-02-29T12:00:00Z", "2100-03-01T00:00:00Z", "0001-01-01T00:00:00Z"
+        };
+        for (String s : instants) {
+            assertEquals(Instant.parse(s).toEpochMilli(), parseIso(s), s);
+        }
+
+        String[] rejected = {
+            "", "2026-01-15T10:30Z", "2026-01-15T10:30:00", "2026-01-15 10:30:00Z", "2026-01-15T10:30:00+02:00",
+            "2026-13-15T10:30:00Z", "2026-00-15T10:30:00Z", "2026-01-32T10:30:00Z", "2026-01-15T24:00:00Z",
+            "2026-01-15T10:60:00Z", "2026-01-15T10:30:60Z", "2026-01-15T10:3a:00Z", "2026-01-15T10:30:00.Z",
+            "2026-01-15T10:30:00,5Z", "2026-01-15T10:30:00.1x3Z"
+        };
+        for (String s : rejected) {
+            assertEquals(Long.MIN_VALUE, parseIso(s), s);
+        }
+    }
+
+    @Test
+    void parsesSimpleDoublesLikeParseDouble() {
+        String[] numbers = {
+            "0", "-0", "7", "2.731", "-17.25", "0.1", "12.", ".5", "007.50", "999999999999999",
+            "0.000000000000001", "123456789012345.6", "0.12345678901234567", "1.5e3", "-1E-7", "12000"
+        };
+        for (String s : numbers) {
+            assertEquals(Double.parseDouble(s), parseDouble(s), s);
+        }
+
+        // Up to 15 significant digits the single division must round exactly like parseDouble
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long mantissa = random.nextLong() % 1_000_000_000_000_000L;
+            String s = BigDecimal.valueOf(mantissa, random.nextInt(16)).toPlainString();
+            assertEquals(Double.parseDouble(s), parseDouble(s), s);
+        }
+
+        for (String s : new String[] { "", "-", ".", "1.2.3", "--1", "1-2", "abc", "1e" }) {
+            assertTrue(Double.isNaN(parseDouble(s)), s);
+        }
+    }
+
+    @Test
+    void rejectsMalformedReadings() {
+        String[] payloads = {
+            "", "   ", "null", "[]", "{", "\"vibration\"",
+            "{\"equipmentId\":\"PHX-CNC-007\",\"sensorType\":\"vib",
+            "{\"equipmentId\":\"PHX-CNC-007\",\"sensorType\":\"vibration\",\"value\":}",
+            "{\"equipmentId\":\"PHX-CNC-007\",\"sensorType\":\"vibration\" \"value\":2.5}",
+            "{\"equipmentId\":\"PHX-CNC-007\",\"value\":2.5}",
+            "{\"sensorType\":\"vibration\",\"value\":2.5}",
+            "{\"equipmentId\":\"PHX-CNC-007\",\"sensorType\":\"vibration\",\"timestamp\":\"yesterday\"}",
+            "{\"equipmentId\":\"PHX-CNC-007\",\"sensorType\":\"vibration\",\"value\":2.5.1}"
+        };
+        MutableSensorReading out = new MutableSensorReading();
+        for (String json : payloads) {
+            assertFalse(decoder.decode(bytes(json), out), json);
+        }
+        // A rejected payload leaves nothing behind for the next one
+        assertTrue(decoder.decode(bytes(READINGS[0]), out));
+        assertEquals("PHX-CNC-007", out.equipmentId);
+    }
+
+    @Test
+    void rejectsMalformedFrames() {
+        String[] payloads = {
+            "", "{", "[]",
+            FRAME.substring(0, FRAME.length() - 3),
+            FRAME.replace("\"equipmentId\":\"PHX-CNC-007\",", ""),
+            FRAME.replace("\"sensorType\":\"temperature\",", ""),
+            FRAME.replace("},", "}")
+        };
+        MutableSensorFrame out = new MutableSensorFrame();
+        for (String json : payloads) {
+            assertFalse(decoder.decodeFrame(bytes(json), out), json);
+            assertEquals(0, out.size(), json);
+            assertNull(out.equipmentId, json);
+        }
+    }
+
+    /** Compare a decoded reading with the JSON object it came from (frame fields taken from {@code frame}). */
+    private static void assertReading(JsonNode expected, JsonNode frame, MutableSensorReading actual, String where) {
+        JsonNode header = frame != null ? frame : expected;
+        assertEquals(text(header, "equipmentId"), actual.equipmentId, where + ": equipmentId");
+        assertEquals(text(header, "facilityId"), actual.facilityId, where + ": facilityId");
+        assertEquals(text(expected, "sensorType"), actual.sensorType, where + ": sensorType");
+        assertEquals(expected.path("value").asDouble(), actual.value, where + ": value");
+        assertEquals(text(expected, "unit"), actual.unit, where + ": unit");
+        assertEquals(text(expected, "qualityFlag"), actual.qualityFlag, where + ": qualityFlag");
+        String timestamp = text(header, "timestamp");
+        long millis = timestamp == null ? Long.MIN_VALUE : Instant.parse(timestamp).toEpochMilli();
+        assertEquals(millis, actual.epochMillis, where + ": timestamp");
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    /** The same payload with a leading field holding an escaped string, which only the parser accepts. */
+    private static String forceFallback(String json) {
+        int brace = json.indexOf('{');
+        return json.substring(0, brace + 1) + "\"note\":\"esc\\\"aped\"," + json.substring(brace + 1);
+    }
+
+    private static long parseIso(String s) {
+        byte[] b = bytes("\"" + s + "\"");
+        return SensorPayloadDecoder.parseIsoInstantMillis(b, 1, b.length - 2);
+    }
+
+    private static double parseDouble(String s) {
+        byte[] b = bytes("[" + s + "]");
+        return SensorPayloadDecoder.parseSimpleDouble(b, 1, b.length - 2);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -87,7 +87,8 @@ public class TitanSensorAgent {
         return ai.withAutoLlm().createObject(
             """
             Use the get_sensor_readings tool to get readings for equipment "%s" %s
-            for the last %d hours.
+            for the last %d hours. For windows longer than 6 hours, use mode "bucket"
+            so the readings cover the whole window instead of only the most recent ones.
 
             Return the list of sensor readings.
             """.formatted(equipmentId, sensorFilter, hours),
@@ -212,7 +213,7 @@ public class TitanSensorAgent {
             Available tools:
             - list_equipment: List equipment by facility (facility_id, equipment_type, limit)
             - get_equipment_status: Get current status of equipment (equipment_id)
-            - get_sensor_readings: Get historical readings (equipment_id, sensor_type, hours_back, limit)
+            - get_sensor_readings: Get historical readings (equipment_id, sensor_type, hours_back, limit, mode = raw|bucket|lttb, max_points)
             - get_facility_status: Get facility overview (facility_id)
             - detect_anomaly: Check for anomalies (equipment_id, sensor_type)
 
@@ -112,11 +112,13 @@ public class McpToolGroupsConfiguration {
                 // Include all maintenance-related tools
                 return toolName.equals("predict_failure") ||
                        toolName.equals("estimate_rul") ||
+                       toolName.equals("assess_fleet_health") ||
                        toolName.equals("schedule_maintenance") ||
                        toolName.equals("get_maintenance_history") ||
                        // Also match camelCase variants
                        toolName.equals("predictFailure") ||
                        toolName.equals("estimateRul") ||
+                       toolName.equals("assessFleetHealth") ||
                        toolName.equals("scheduleMaintenance") ||
                        toolName.equals("getMaintenanceHistory");
             }